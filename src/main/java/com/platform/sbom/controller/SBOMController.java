@@ -2,15 +2,27 @@ package com.platform.sbom.controller;
 
 import com.platform.sbom.converter.SBOMConverter;
 import com.platform.sbom.model.SBOM;
+import com.platform.sbom.model.ScanBatch;
+import com.platform.sbom.model.ScanJob;
+import com.platform.sbom.service.BatchScanService;
 import com.platform.sbom.service.SBOMService;
+import com.platform.sbom.service.SBOMSummaryService;
+import com.platform.sbom.service.ScanEngine;
+import com.platform.sbom.service.ScanJobService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @Log4j2
@@ -19,16 +31,39 @@ import java.util.List;
 public class SBOMController {
 
     private final SBOMService sbomService;
+    private final SBOMSummaryService sbomSummaryService;
     private final SBOMConverter sbomConverter;
+    private final ScanJobService scanJobService;
+    private final BatchScanService batchScanService;
 
-    public SBOMController(SBOMService sbomService, SBOMConverter sbomConverter) {
+    public SBOMController(SBOMService sbomService, SBOMSummaryService sbomSummaryService, SBOMConverter sbomConverter,
+                          ScanJobService scanJobService, BatchScanService batchScanService) {
         this.sbomService = sbomService;
+        this.sbomSummaryService = sbomSummaryService;
         this.sbomConverter = sbomConverter;
+        this.scanJobService = scanJobService;
+        this.batchScanService = batchScanService;
     }
 
+    /**
+     * List SBOM summaries (id, name, timestamp, tool, component/dependency counts) without loading components
+     * Pages are keyset-paginated: pass the returned nextCursor to fetch the next page with the same
+     * sort, direction and filters. name matches a substring; from/to accept yyyy-MM-dd or
+     * yyyy-MM-ddTHH:mm:ss (a date-only "to" includes that day). Use /api/sbom/{id} for the full SBOM.
+     */
     @GetMapping
-    public ResponseEntity<List<SBOM>> getAllSBOMs() {
-        return ResponseEntity.ok(sbomService.listAll());
+    public ResponseEntity<Map<String, Object>> listSBOMs(@RequestParam(value="name", required=false) String name,
+                                                         @RequestParam(value="from", required=false) String from,
+                                                         @RequestParam(value="to", required=false) String to,
+                                                         @RequestParam(value="sort", required=false, defaultValue="timestamp") String sort,
+                                                         @RequestParam(value="direction", required=false, defaultValue="desc") String direction,
+                                                         @RequestParam(value="cursor", required=false) String cursor,
+                                                         @RequestParam(value="limit", required=false, defaultValue="50") int limit) {
+        try {
+            return ResponseEntity.ok(sbomSummaryService.list(name, from, to, sort, direction, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -40,33 +75,159 @@ public class SBOMController {
 
     /**
      * Generate SBOM for a file system (using Syft)
+     * The upload is staged to disk and scanned asynchronously; poll /api/sbom/jobs/{jobId} for the result.
+     * With incremental=true (default) only files that changed since the previous upload of the same
+     * system name are scanned; components of unchanged files are carried over from that SBOM.
+     * engine=native uses the built-in JVM artifact scanner instead of Syft (no external process).
      */
     @PostMapping("/generate/system")
-    public ResponseEntity<SBOM> generateForSystem(@RequestParam String name,
-                                                  @RequestParam("systemFolder") MultipartFile[] folder,
-                                                  @RequestParam(value="imageFile", required=false) MultipartFile img,
-                                                  @RequestParam(value="format", required=false, defaultValue="spdx") String format) throws Exception {
-        log.info("Generating SBOM for system: {} using {} format", name, format);
-        SBOM sbom = sbomService.generate(name, folder, img, format);
-        if (sbom == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<ScanJob> generateForSystem(@RequestParam String name,
+                                                     @RequestParam("systemFolder") MultipartFile[] folder,
+                                                     @RequestParam(value="imageFile", required=false) MultipartFile img,
+                                                     @RequestParam(value="format", required=false, defaultValue="spdx") String format,
+                                                     @RequestParam(value="incremental", required=false, defaultValue="true") boolean incremental,
+                                                     @RequestParam(value="engine", required=false, defaultValue="syft") String engine) throws Exception {
+        ScanEngine scanEngine = parseEngine(engine);
+        log.info("Generating SBOM for system: {} using {} format (engine: {}, incremental: {})", name, format, scanEngine, incremental);
+        File tmpF = sbomService.stageUpload(folder);
+        File tmpI = sbomService.stageImage(img);
+        String imageFileName = img != null ? img.getOriginalFilename() : null;
+        try {
+            ScanJob job = scanJobService.submit("system", name,
+                    () -> sbomService.generate(name, tmpF, tmpI, imageFileName, format, incremental, scanEngine),
+                    () -> sbomService.discardStaged(tmpF, tmpI));
+            return accepted(job);
+        } catch (RejectedExecutionException e) {
+            sbomService.discardStaged(tmpF, tmpI);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Scan queue is full, retry later");
+        }
+    }
+
+    /**
+     * Generate SBOM for a file system uploaded as a single .tar, .tar.gz or .zip request body
+     * The body is extracted into the scan workspace while it is being received, so each byte is written
+     * to disk once and the scan job is queued as soon as the upload completes. The archive format is
+     * detected from its content; entries escaping the workspace are rejected.
+     */
+    @PostMapping(value = "/generate/system/archive",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "application/x-tar", "application/gzip",
+                    "application/x-gzip", "application/zip"})
+    public ResponseEntity<ScanJob> generateForSystemArchive(@RequestParam String name,
+                                                            @RequestParam(value="format", required=false, defaultValue="spdx") String format,
+                                                            @RequestParam(value="incremental", required=false, defaultValue="true") boolean incremental,
+                                                            @RequestParam(value="engine", required=false, defaultValue="syft") String engine,
+                                                            HttpServletRequest request) {
+        ScanEngine scanEngine = parseEngine(engine);
+        log.info("Generating SBOM for system archive: {} using {} format (engine: {}, incremental: {})", name, format, scanEngine, incremental);
+        File tmpF;
+        try {
+            tmpF = sbomService.stageArchive(request.getInputStream());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid archive: " + e.getMessage());
+        }
+        try {
+            ScanJob job = scanJobService.submit("system", name,
+                    () -> sbomService.generate(name, tmpF, null, null, format, incremental, scanEngine),
+                    () -> sbomService.discardStaged(tmpF, null));
+            return accepted(job);
+        } catch (RejectedExecutionException e) {
+            sbomService.discardStaged(tmpF, null);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Scan queue is full, retry later");
         }
-        return ResponseEntity.ok(sbom);
     }
 
     /**
      * Generate SBOM for a container image (using Syft)
+     * The scan runs asynchronously; poll /api/sbom/jobs/{jobId} for the result.
      */
     @PostMapping("/generate/container")
-    public ResponseEntity<SBOM> generateForContainerImage(@RequestParam String name,
-                                                          @RequestParam String imageName,
-                                                          @RequestParam(value="format", required=false, defaultValue="spdx") String format) throws Exception {
+    public ResponseEntity<ScanJob> generateForContainerImage(@RequestParam String name,
+                                                             @RequestParam String imageName,
+                                                             @RequestParam(value="format", required=false, defaultValue="spdx") String format,
+                                                             @RequestParam(value="engine", required=false, defaultValue="syft") String engine) {
+        if (parseEngine(engine) != ScanEngine.SYFT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Only the syft engine can scan images by name; upload the image tar to /generate/system instead");
+        }
         log.info("Generating SBOM for container image: {} using {} format", imageName, format);
-        SBOM sbom = sbomService.generateForContainerImage(name, imageName, format);
-        if (sbom == null) {
-            return ResponseEntity.notFound().build();
+        try {
+            ScanJob job = scanJobService.submit("container", name,
+                    () -> sbomService.generateForContainerImage(name, imageName, format));
+            return accepted(job);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Scan queue is full, retry later");
+        }
+    }
+
+    /**
+     * Scan a list of container images as one batch
+     * References are resolved to content digests first; references sharing a digest are scanned once
+     * and share the resulting SBOM. Distinct images are scanned in parallel up to sbom.batch.parallelism.
+     * docker-archive:<file> references are resolved against sbom.batch.archive-dir.
+     * Poll /api/sbom/batches/{batchId} for per-image states and SBOM ids.
+     */
+    @PostMapping("/generate/containers")
+    public ResponseEntity<ScanBatch> generateForContainerImages(@RequestParam(value="name", required=false) String name,
+                                                                @RequestParam("images") List<String> images,
+                                                                @RequestParam(value="format", required=false, defaultValue="spdx") String format) {
+        log.info("Generating SBOMs for {} container images using {} format", images.size(), format);
+        try {
+            ScanBatch batch = batchScanService.submit(name, images, format);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/sbom/batches/" + batch.getId()))
+                    .body(batch);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Batch scan queue is full, retry later");
+        }
+    }
+
+    /**
+     * Get per-image states, digests and SBOM ids of a batch scan
+     */
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<ScanBatch> getBatch(@PathVariable String batchId) {
+        return batchScanService.find(batchId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Batch scan not found with id: " + batchId));
+    }
+
+    /**
+     * Get the state, timings and resulting SBOM id of a scan job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ScanJob> getJob(@PathVariable String jobId) {
+        return scanJobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Scan job not found with id: " + jobId));
+    }
+
+    /**
+     * Cancel a queued or running scan job; running external processes are killed
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<ScanJob> cancelJob(@PathVariable String jobId) {
+        ScanJob job = scanJobService.find(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Scan job not found with id: " + jobId));
+        if (!scanJobService.cancel(jobId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Scan job already finished: " + jobId);
         }
-        return ResponseEntity.ok(sbom);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    private ScanEngine parseEngine(String engine) {
+        try {
+            return ScanEngine.from(engine);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported scan engine: " + engine);
+        }
+    }
+
+    private ResponseEntity<ScanJob> accepted(ScanJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/sbom/jobs/" + job.getId()))
+                .body(job);
     }
 
     /**
@@ -0,0 +1,65 @@
+package com.platform.sbom.controller;
+
+import com.platform.sbom.graph.ReachabilityIndex;
+import com.platform.sbom.service.SBOMGraphService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * Dependency graph queries over a stored SBOM.
+ * Answers come from a reachability index built when the SBOM is stored and cached in memory.
+ */
+@RestController
+@RequestMapping("/api/sbom/{id}/graph")
+public class SBOMGraphController {
+
+    private final SBOMGraphService graphService;
+
+    public SBOMGraphController(SBOMGraphService graphService) {
+        this.graphService = graphService;
+    }
+
+    /**
+     * Top-level components that transitively depend on the given package, each with one shortest
+     * dependency path from the top-level component down to the package.
+     * @param purl package URL (or sbomRef) of the package; qualifiers and subpath are ignored,
+     *             and a purl without a version matches every version of the package
+     * @param maxPaths maximum number of paths to return
+     */
+    @GetMapping("/reachability")
+    public ResponseEntity<Map<String, Object>> reachability(@PathVariable Long id,
+                                                            @RequestParam String purl,
+                                                            @RequestParam(value = "maxPaths", required = false, defaultValue = "100") int maxPaths) {
+        ReachabilityIndex index = index(id);
+        return ResponseEntity.ok(graphService.reachability(index, targets(index, purl), Math.max(0, maxPaths)));
+    }
+
+    /**
+     * Components that depend on the given package.
+     * @param transitive false to return direct dependents only
+     */
+    @GetMapping("/dependents")
+    public ResponseEntity<Map<String, Object>> dependents(@PathVariable Long id,
+                                                          @RequestParam String purl,
+                                                          @RequestParam(value = "transitive", required = false, defaultValue = "true") boolean transitive) {
+        ReachabilityIndex index = index(id);
+        return ResponseEntity.ok(graphService.dependents(index, targets(index, purl), transitive));
+    }
+
+    private ReachabilityIndex index(Long id) {
+        return graphService.get(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "SBOM not found with id: " + id));
+    }
+
+    private int[] targets(ReachabilityIndex index, String purl) {
+        int[] targets = index.find(purl);
+        if (targets.length == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Component not found in SBOM: " + purl);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,116 @@
+package com.platform.sbom.controller;
+
+import com.platform.sbom.model.ScanJob;
+import com.platform.sbom.model.UploadSession;
+import com.platform.sbom.service.ChunkedUploadService;
+import com.platform.sbom.service.ScanEngine;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Resumable chunked uploads for large image tars and folder archives
+ * 1. POST /api/uploads?kind=image|archive&fileName=..&size=..   create a session
+ * 2. PUT  /api/uploads/{id}?offset=N  (raw body)                  write a chunk at offset N
+ * 3. GET  /api/uploads/{id}                                       receivedBytes is the offset to resume from
+ * 4. POST /api/uploads/{id}/complete?name=..                      queue the scan, poll /api/sbom/jobs/{jobId}
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService uploadService;
+
+    public UploadController(ChunkedUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UploadSession> create(@RequestParam String kind,
+                                                @RequestParam(value="fileName", required=false) String fileName,
+                                                @RequestParam(value="size", required=false) Long size) throws IOException {
+        UploadSession.Kind uploadKind;
+        try {
+            uploadKind = UploadSession.Kind.valueOf(kind.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported upload kind: " + kind);
+        }
+        try {
+            UploadSession session = uploadService.create(uploadKind, fileName, size);
+            return ResponseEntity.created(URI.create("/api/uploads/" + session.getId())).body(session);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSession> status(@PathVariable String id) {
+        return ResponseEntity.ok(session(id));
+    }
+
+    /**
+     * Write one chunk; the offset must not be past the bytes already received.
+     * Bytes written before a dropped connection are kept, so resume from the reported receivedBytes.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSession> writeChunk(@PathVariable String id,
+                                                    @RequestParam long offset,
+                                                    HttpServletRequest request) throws IOException {
+        UploadSession session = session(id);
+        try {
+            return ResponseEntity.ok(uploadService.writeChunk(session, offset, request.getInputStream()));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        }
+    }
+
+    /**
+     * Finish the upload and queue the scan: image tars are scanned as images,
+     * archives are extracted and scanned as a system folder.
+     */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<ScanJob> complete(@PathVariable String id,
+                                            @RequestParam String name,
+                                            @RequestParam(value="format", required=false, defaultValue="spdx") String format,
+                                            @RequestParam(value="incremental", required=false, defaultValue="true") boolean incremental,
+                                            @RequestParam(value="engine", required=false, defaultValue="syft") String engine) {
+        UploadSession session = session(id);
+        ScanEngine scanEngine;
+        try {
+            scanEngine = ScanEngine.from(engine);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported scan engine: " + engine);
+        }
+        try {
+            ScanJob job = uploadService.complete(session, name, format, incremental, scanEngine);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/sbom/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Scan queue is full, retry later");
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abort(@PathVariable String id) {
+        uploadService.abort(session(id));
+        return ResponseEntity.noContent().build();
+    }
+
+    private UploadSession session(String id) {
+        return uploadService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload session not found with id: " + id));
+    }
+}
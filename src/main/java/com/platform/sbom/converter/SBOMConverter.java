@@ -5,7 +5,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.platform.sbom.model.Dependency;
+import com.platform.sbom.graph.DependencyGraph;
 import com.platform.sbom.model.FileSystemInfo;
 import com.platform.sbom.model.SBOM;
 import com.platform.sbom.model.SourceInfo;
@@ -62,6 +62,12 @@ public class SBOMConverter {
             // 添加primaryPackagePurpose
             pkg.put("primaryPackagePurpose", comp.getType());
 
+            if (comp.getSha256() != null) {
+                ObjectNode checksum = pkg.putArray("checksums").addObject();
+                checksum.put("algorithm", "SHA256");
+                checksum.put("checksumValue", comp.getSha256());
+            }
+
             // 添加外部引用
             ArrayNode externalRefs = objectMapper.createArrayNode();
             if (comp.getPurl() != null) {
@@ -88,20 +94,16 @@ public class SBOMConverter {
 
         // 添加依赖关系
         ArrayNode relationships = objectMapper.createArrayNode();
-        for (Dependency dep : sbom.getDependencies()) {
-            String sourceId = dep.getRef();
-            if (!sourceId.startsWith("SPDXRef-")) {
-                sourceId = "SPDXRef-" + sourceId;
-            }
-            
-            for (String targetId : dep.getDependsOn()) {
+        DependencyGraph graph = DependencyGraph.of(sbom.getComponents(), sbom.getDependencies());
+        String[] spdxIds = new String[graph.nodeCount()];
+        for (int i = 0; i < graph.sourceCount(); i++) {
+            int source = graph.source(i);
+            String sourceId = spdxId(graph, spdxIds, source);
+            for (int k = 0; k < graph.outDegree(source); k++) {
                 ObjectNode rel = relationships.addObject();
                 rel.put("spdxElementId", sourceId);
                 rel.put("relationshipType", "DEPENDS_ON");
-                if (!targetId.startsWith("SPDXRef-")) {
-                    targetId = "SPDXRef-" + targetId;
-                }
-                rel.put("relatedSpdxElement", targetId);
+                rel.put("relatedSpdxElement", spdxId(graph, spdxIds, graph.successor(source, k)));
             }
         }
         root.set("relationships", relationships);
@@ -196,6 +198,12 @@ public class SBOMConverter {
                 c.put("cpe", comp.getCpe());
             }
 
+            if (comp.getSha256() != null) {
+                ObjectNode hash = c.putArray("hashes").addObject();
+                hash.put("alg", "SHA-256");
+                hash.put("content", comp.getSha256());
+            }
+
             // 添加扩展的外部引用
             ArrayNode externalRefs = c.putArray("externalReferences");
 
@@ -215,12 +223,16 @@ public class SBOMConverter {
         // dependencies (optional)
         if (sbom.getDependencies() != null && !sbom.getDependencies().isEmpty()) {
             ArrayNode deps = root.putArray("dependencies");
-            for (Dependency d : sbom.getDependencies()) {
+            DependencyGraph graph = DependencyGraph.of(sbom.getComponents(), sbom.getDependencies());
+            for (int i = 0; i < graph.sourceCount(); i++) {
+                int source = graph.source(i);
                 ObjectNode dn = deps.addObject();
-                dn.put("ref", d.getRef());
-                if (d.getDependsOn() != null && !d.getDependsOn().isEmpty()) {
+                dn.put("ref", graph.ref(source));
+                if (graph.outDegree(source) > 0) {
                     ArrayNode on = dn.putArray("dependsOn");
-                    d.getDependsOn().forEach(on::add);
+                    for (int k = 0; k < graph.outDegree(source); k++) {
+                        on.add(graph.ref(graph.successor(source, k)));
+                    }
                 }
             }
         }
@@ -228,6 +240,17 @@ public class SBOMConverter {
         return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(root);
     }
     
+    // 辅助方法：SPDX元素ID，每个节点只拼接一次
+    private String spdxId(DependencyGraph graph, String[] spdxIds, int id) {
+        String spdxId = spdxIds[id];
+        if (spdxId == null) {
+            String ref = graph.ref(id);
+            spdxId = ref.startsWith("SPDXRef-") ? ref : "SPDXRef-" + ref;
+            spdxIds[id] = spdxId;
+        }
+        return spdxId;
+    }
+
     // 辅助方法：添加CycloneDX格式的属性
     private void addProperty(ArrayNode properties, String name, String value) {
         if (value != null) {
@@ -300,12 +323,16 @@ public class SBOMConverter {
         });
         // dependencies
         ArrayNode da = r.putArray("dependencies");
-        s.getDependencies().forEach(d -> {
+        DependencyGraph graph = DependencyGraph.of(s.getComponents(), s.getDependencies());
+        for (int i = 0; i < graph.sourceCount(); i++) {
+            int source = graph.source(i);
             ObjectNode n = da.addObject();
-            n.put("ref", d.getRef());
+            n.put("ref", graph.ref(source));
             ArrayNode d2 = n.putArray("dependsOn");
-            d.getDependsOn().forEach(d2::add);
-        });
+            for (int k = 0; k < graph.outDegree(source); k++) {
+                d2.add(graph.ref(graph.successor(source, k)));
+            }
+        }
         // source
         ObjectNode sn = r.putObject("source");
         SourceInfo src = s.getSource();
@@ -0,0 +1,21 @@
+package com.platform.sbom.enrichment;
+
+import com.platform.sbom.model.Component;
+
+/**
+ * 组件增强阶段
+ * 由EnrichmentPipeline在一次遍历中对每个组件依次调用各阶段，实现必须是无状态且线程安全的。
+ * 注册为Spring Bean即可加入管道，按@Order排序
+ */
+public interface ComponentEnricher {
+
+    /**
+     * 阶段名称，用于耗时统计
+     */
+    String name();
+
+    /**
+     * 就地补充组件属性
+     */
+    void enrich(Component component);
+}
@@ -0,0 +1,29 @@
+package com.platform.sbom.enrichment;
+
+import com.platform.sbom.model.Component;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 既没有CPE也没有PURL的组件标记为UNKNOWN
+ * 有PURL的组件不由PURL推导CPE：PURL的命名空间（如Maven groupId）不是NVD厂商名，且未经CPE 2.3转义
+ */
+@org.springframework.stereotype.Component
+@Order(200)
+public class CpeEnricher implements ComponentEnricher {
+
+    @Override
+    public String name() {
+        return "cpe";
+    }
+
+    @Override
+    public void enrich(Component comp) {
+        if (comp.getCpe() != null && !comp.getCpe().isEmpty()) {
+            return;
+        }
+        if (comp.getPurl() == null) {
+            // 如果 PURL 缺失，设置默认值或提示
+            comp.setCpe("UNKNOWN");
+        }
+    }
+}
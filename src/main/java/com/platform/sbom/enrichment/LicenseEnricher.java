@@ -0,0 +1,24 @@
+package com.platform.sbom.enrichment;
+
+import com.platform.sbom.model.Component;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 许可证为空的组件标记为unknown
+ */
+@org.springframework.stereotype.Component
+@Order(300)
+public class LicenseEnricher implements ComponentEnricher {
+
+    @Override
+    public String name() {
+        return "license";
+    }
+
+    @Override
+    public void enrich(Component comp) {
+        if (comp.getLicense() == null || comp.getLicense().isEmpty()) {
+            comp.setLicense("unknown");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.platform.sbom.enrichment;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.MavenArtifactMetadata;
+import com.platform.sbom.model.PackageURL;
+import com.platform.sbom.service.MavenMetadataProvider;
+import org.springframework.core.annotation.Order;
+
+import java.util.Optional;
+
+/**
+ * 按Maven坐标补充供应商、主页、描述、许可证和源码仓库
+ * 元数据来自本地Maven仓库中的POM，找不到时主页指向Maven Central搜索页
+ */
+@org.springframework.stereotype.Component
+@Order(100)
+public class MavenMetadataEnricher implements ComponentEnricher {
+
+    private final MavenMetadataProvider metadataProvider;
+
+    public MavenMetadataEnricher(MavenMetadataProvider metadataProvider) {
+        this.metadataProvider = metadataProvider;
+    }
+
+    @Override
+    public String name() {
+        return "maven";
+    }
+
+    @Override
+    public void enrich(Component comp) {
+        // If PURL exists, use its parsed coordinates (pkg:maven/group/artifact@version)
+        PackageURL purl = comp.getPackageUrl();
+        if (purl == null || !purl.isType("maven") || purl.getNamespace() == null || purl.getVersion() == null) {
+            return;
+        }
+        String groupId = purl.getNamespace();
+        Optional<MavenArtifactMetadata> metadata = metadataProvider.find(groupId, purl.getName(), purl.getVersion());
+        metadata.ifPresent(m -> {
+            if (isEmpty(comp.getDescription()) || comp.getDescription().startsWith("From ")) {
+                comp.setDescription(m.getDescription() != null ? m.getDescription() : comp.getDescription());
+            }
+            if (isEmpty(comp.getLicense()) && !m.getLicenses().isEmpty()) {
+                comp.setLicense(String.join(" OR ", m.getLicenses()));
+            }
+            if (comp.getHomePage() == null) {
+                comp.setHomePage(m.getUrl());
+            }
+            if (comp.getSourceRepo() == null) {
+                comp.setSourceRepo(m.getScmUrl());
+            }
+        });
+
+        // Use groupId as vendor if not present
+        if (comp.getVendor() == null) {
+            comp.setVendor(groupId);
+        }
+
+        // Construct potential Maven Central URL if homepage not present
+        if (comp.getHomePage() == null) {
+            comp.setHomePage("https://search.maven.org/artifact/" + groupId + "/" + purl.getName());
+        }
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
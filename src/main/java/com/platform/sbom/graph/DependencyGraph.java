@@ -0,0 +1,269 @@
+package com.platform.sbom.graph;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * SBOM依赖图的紧凑内存表示
+ * 引用字符串只在构建时驻留一次并编号：组件在前（编号即组件下标），依赖中出现但不是组件的引用（如system）在后。
+ * 边以压缩稀疏行（CSR）的int数组保存，同时保存正向（依赖谁）和反向（被谁依赖）邻接，
+ * 每条边只占两个int，遍历时不再经过字符串和HashMap。构建后不可变，可在线程间共享。
+ */
+public final class DependencyGraph {
+
+    private final String[] refs;
+    private final Map<String, Integer> ids;
+    private final int componentCount;
+    // 在依赖关系中作为依赖方出现的节点，按第一次出现的顺序
+    private final int[] sources;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    private DependencyGraph(String[] refs, Map<String, Integer> ids, int componentCount, int[] sources,
+                            int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources) {
+        this.refs = refs;
+        this.ids = ids;
+        this.componentCount = componentCount;
+        this.sources = sources;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * 由组件和依赖关系构建
+     * 同一依赖方的重复边只保留第一条，每个依赖方的目标保持原有顺序
+     */
+    public static DependencyGraph of(List<Component> components, List<Dependency> dependencies) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> refs = new ArrayList<>();
+        if (components != null) {
+            for (Component comp : components) {
+                // 重复或为空的sbomRef仍占用编号，使组件编号与下标一致
+                String ref = comp.getSbomRef();
+                if (ref != null) {
+                    ids.putIfAbsent(ref, refs.size());
+                }
+                refs.add(ref);
+            }
+        }
+        int componentCount = refs.size();
+
+        int edgeCapacity = 0;
+        if (dependencies != null) {
+            for (Dependency dep : dependencies) {
+                edgeCapacity += dep.getDependsOn() != null ? dep.getDependsOn().size() : 0;
+            }
+        }
+        int[] from = new int[edgeCapacity];
+        int[] to = new int[edgeCapacity];
+        int edges = 0;
+        IntList sourceOrder = new IntList();
+        BitSet isSource = new BitSet();
+        if (dependencies != null) {
+            for (Dependency dep : dependencies) {
+                if (dep.getRef() == null) {
+                    continue;
+                }
+                int source = intern(dep.getRef(), ids, refs);
+                if (!isSource.get(source)) {
+                    isSource.set(source);
+                    sourceOrder.add(source);
+                }
+                if (dep.getDependsOn() == null) {
+                    continue;
+                }
+                for (String target : dep.getDependsOn()) {
+                    if (target != null) {
+                        from[edges] = source;
+                        to[edges] = intern(target, ids, refs);
+                        edges++;
+                    }
+                }
+            }
+        }
+
+        int n = refs.size();
+        // 按依赖方做稳定的计数排序，同一行内保持插入顺序，再逐行去重
+        int[] outOffsets = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            outOffsets[from[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+        }
+        int[] fill = Arrays.copyOf(outOffsets, n);
+        int[] sorted = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            sorted[fill[from[e]]++] = to[e];
+        }
+        int[] lastRow = new int[n];
+        Arrays.fill(lastRow, -1);
+        int[] outTargets = new int[edges];
+        int kept = 0;
+        int rowStart = 0;
+        for (int row = 0; row < n; row++) {
+            int end = outOffsets[row + 1];
+            outOffsets[row] = kept;
+            for (int e = rowStart; e < end; e++) {
+                int target = sorted[e];
+                if (lastRow[target] != row) {
+                    lastRow[target] = row;
+                    outTargets[kept++] = target;
+                }
+            }
+            rowStart = end;
+        }
+        outOffsets[n] = kept;
+        outTargets = Arrays.copyOf(outTargets, kept);
+
+        // 由正向邻接生成反向邻接
+        int[] inOffsets = new int[n + 1];
+        for (int target : outTargets) {
+            inOffsets[target + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        int[] inSources = new int[kept];
+        for (int row = 0; row < n; row++) {
+            for (int e = outOffsets[row]; e < outOffsets[row + 1]; e++) {
+                inSources[inFill[outTargets[e]]++] = row;
+            }
+        }
+
+        return new DependencyGraph(refs.toArray(new String[0]), ids, componentCount, sourceOrder.toArray(),
+                outOffsets, outTargets, inOffsets, inSources);
+    }
+
+    private static int intern(String ref, Map<String, Integer> ids, List<String> refs) {
+        Integer id = ids.get(ref);
+        if (id == null) {
+            id = refs.size();
+            ids.put(ref, id);
+            refs.add(ref);
+        }
+        return id;
+    }
+
+    public int nodeCount() {
+        return refs.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @return 引用的编号，不存在时返回-1
+     */
+    public int id(String ref) {
+        Integer id = ids.get(ref);
+        return id != null ? id : -1;
+    }
+
+    public String ref(int id) {
+        return refs[id];
+    }
+
+    /**
+     * 编号是否对应一个组件（而不是只在依赖关系中出现的引用）
+     */
+    public boolean isComponent(int id) {
+        return id < componentCount && refs[id] != null && ids.get(refs[id]) == id;
+    }
+
+    /**
+     * 作为依赖方出现过的节点数
+     */
+    public int sourceCount() {
+        return sources.length;
+    }
+
+    /**
+     * 第i个依赖方，按其在依赖关系中第一次出现的顺序
+     */
+    public int source(int i) {
+        return sources[i];
+    }
+
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    /**
+     * id依赖的第k个节点
+     */
+    public int successor(int id, int k) {
+        return outTargets[outOffsets[id] + k];
+    }
+
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    /**
+     * 依赖id的第k个节点
+     */
+    public int predecessor(int id, int k) {
+        return inSources[inOffsets[id] + k];
+    }
+
+    /**
+     * 转回Dependency列表
+     * @param keepSource 保留哪些依赖方
+     * @param keepTarget 保留哪些目标
+     * @return 按依赖方第一次出现的顺序排列，过滤后没有目标的依赖方不输出
+     */
+    public List<Dependency> toDependencies(IntPredicate keepSource, IntPredicate keepTarget) {
+        List<Dependency> result = new ArrayList<>();
+        for (int source : sources) {
+            if (!keepSource.test(source)) {
+                continue;
+            }
+            List<String> targets = new ArrayList<>(outDegree(source));
+            for (int e = outOffsets[source]; e < outOffsets[source + 1]; e++) {
+                if (keepTarget.test(outTargets[e])) {
+                    targets.add(refs[outTargets[e]]);
+                }
+            }
+            if (!targets.isEmpty()) {
+                Dependency dep = new Dependency();
+                dep.setRef(refs[source]);
+                dep.setDependsOn(targets);
+                result.add(dep);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 可增长的int数组
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.platform.sbom.graph;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import com.platform.sbom.model.PackageURL;
+
+import java.util.*;
+
+/**
+ * SBOM依赖图的可达性索引，入库时构建一次后缓存复用
+ * 只考虑组件之间的边（system等非组件节点不参与）。先用Tarjan算法把强连通分量收缩为DAG，
+ * 再按拓扑序为每个分量传播一个位图：哪些顶层组件（在收缩后的DAG中没有前驱的分量中的组件）能传递依赖到它。
+ * “哪些顶层组件引入了某个包”因此只需一次位图查找；位图总大小超出预算时退化为按需反向遍历。
+ */
+public final class ReachabilityIndex {
+
+    private final DependencyGraph graph;
+    private final String[] names;
+    private final String[] versions;
+    private final String[] purls;
+    // 以去掉限定符和子路径、转为小写的PURL为键，CVE等外部数据中的PURL通常不带arch、distro等限定符
+    private final Map<String, int[]> byPurl;
+    // 以不含版本的PURL（pkg:type/namespace/name）为键，查询不带版本时返回所有版本
+    private final Map<String, int[]> byPackage;
+    // 组件所属的强连通分量，非组件为-1；分量编号满足：被依赖的分量编号更小
+    private final int[] scc;
+    private final int sccCount;
+    private final int[] topLevel;
+    // 每个分量可被哪些顶层组件（topLevel下标）到达，超出预算时为null
+    private final BitSet[] closures;
+
+    private ReachabilityIndex(DependencyGraph graph, List<Component> components, long closureBudgetBytes) {
+        this.graph = graph;
+        int componentCount = graph.componentCount();
+        this.names = new String[componentCount];
+        this.versions = new String[componentCount];
+        this.purls = new String[componentCount];
+        Map<String, List<Integer>> purlIds = new HashMap<>();
+        Map<String, List<Integer>> packageIds = new HashMap<>();
+        for (int i = 0; i < componentCount; i++) {
+            Component comp = components.get(i);
+            names[i] = comp.getName();
+            versions[i] = comp.getVersion();
+            purls[i] = comp.getPurl();
+            PackageURL purl = comp.getPackageUrl();
+            if (purl != null && graph.isComponent(i)) {
+                purlIds.computeIfAbsent(purlKey(purl), k -> new ArrayList<>()).add(i);
+                packageIds.computeIfAbsent(packageKey(purl), k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.byPurl = toArrays(purlIds);
+        this.byPackage = toArrays(packageIds);
+
+        this.scc = new int[graph.nodeCount()];
+        this.sccCount = computeScc();
+
+        // 收缩后没有前驱的分量中的组件是顶层组件
+        boolean[] hasPredecessor = new boolean[sccCount];
+        for (int v = 0; v < componentCount; v++) {
+            if (scc[v] < 0) {
+                continue;
+            }
+            for (int k = 0; k < graph.outDegree(v); k++) {
+                int w = graph.successor(v, k);
+                if (scc[w] >= 0 && scc[w] != scc[v]) {
+                    hasPredecessor[scc[w]] = true;
+                }
+            }
+        }
+        int[] top = new int[componentCount];
+        int topCount = 0;
+        for (int v = 0; v < componentCount; v++) {
+            if (scc[v] >= 0 && !hasPredecessor[scc[v]]) {
+                top[topCount++] = v;
+            }
+        }
+        this.topLevel = Arrays.copyOf(top, topCount);
+
+        long closureBytes = (long) sccCount * ((topCount + 63) / 64) * 8;
+        this.closures = closureBytes <= closureBudgetBytes ? computeClosures() : null;
+    }
+
+    /**
+     * 构建可达性索引
+     * @param closureBudgetBytes 预计算位图的内存上限，超出时查询改为反向遍历
+     */
+    public static ReachabilityIndex build(List<Component> components, List<Dependency> dependencies,
+                                          long closureBudgetBytes) {
+        List<Component> comps = components != null ? components : Collections.emptyList();
+        return new ReachabilityIndex(DependencyGraph.of(comps, dependencies), comps, closureBudgetBytes);
+    }
+
+    /**
+     * 非递归的Tarjan算法，分量按完成顺序编号，因此被依赖的分量编号总是更小
+     */
+    private int computeScc() {
+        int n = graph.nodeCount();
+        Arrays.fill(scc, -1);
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] nextEdge = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] calls = new int[n];
+        int stackSize = 0;
+        int counter = 0;
+        int count = 0;
+
+        for (int root = 0; root < graph.componentCount(); root++) {
+            if (!graph.isComponent(root) || index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            calls[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int v = calls[depth - 1];
+                if (nextEdge[v] < graph.outDegree(v)) {
+                    int w = graph.successor(v, nextEdge[v]++);
+                    if (!graph.isComponent(w)) {
+                        continue;
+                    }
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        calls[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        scc[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+                if (depth > 0) {
+                    int parent = calls[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按拓扑序（分量编号从大到小）把顶层组件的位传播给下游分量
+     */
+    private BitSet[] computeClosures() {
+        int componentCount = graph.componentCount();
+        int[] offsets = new int[sccCount + 1];
+        for (int v = 0; v < componentCount; v++) {
+            if (scc[v] >= 0) {
+                offsets[scc[v] + 1]++;
+            }
+        }
+        for (int s = 0; s < sccCount; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        int[] fill = Arrays.copyOf(offsets, sccCount);
+        int[] members = new int[offsets[sccCount]];
+        for (int v = 0; v < componentCount; v++) {
+            if (scc[v] >= 0) {
+                members[fill[scc[v]]++] = v;
+            }
+        }
+
+        BitSet[] result = new BitSet[sccCount];
+        for (int s = 0; s < sccCount; s++) {
+            result[s] = new BitSet(topLevel.length);
+        }
+        for (int t = 0; t < topLevel.length; t++) {
+            result[scc[topLevel[t]]].set(t);
+        }
+        for (int s = sccCount - 1; s >= 0; s--) {
+            for (int m = offsets[s]; m < offsets[s + 1]; m++) {
+                int v = members[m];
+                for (int k = 0; k < graph.outDegree(v); k++) {
+                    int w = graph.successor(v, k);
+                    if (scc[w] >= 0 && scc[w] != s) {
+                        result[scc[w]].or(result[s]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按PURL查找组件，找不到时按sbomRef查找
+     * PURL忽略大小写、限定符和子路径；不带版本的PURL匹配该包的所有版本
+     * @return 组件编号，可能为空数组
+     */
+    public int[] find(String purlOrRef) {
+        PackageURL purl = PackageURL.parse(purlOrRef);
+        if (purl != null) {
+            int[] ids = purl.getVersion() != null ? byPurl.get(purlKey(purl)) : byPackage.get(packageKey(purl));
+            if (ids != null) {
+                return ids.clone();
+            }
+        }
+        int id = graph.id(purlOrRef);
+        return id >= 0 && graph.isComponent(id) ? new int[]{id} : new int[0];
+    }
+
+    private static String purlKey(PackageURL purl) {
+        return purl.withoutQualifiers().key();
+    }
+
+    private static String packageKey(PackageURL purl) {
+        return PackageURL.of(purl.getType(), purl.getNamespace(), purl.getName(), null).key();
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> ids) {
+        Map<String, int[]> arrays = new HashMap<>(ids.size() * 2);
+        ids.forEach((key, list) -> arrays.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+
+    /**
+     * 能传递依赖到任一目标的顶层组件（目标本身是顶层组件时也包含在内）
+     * @return 组件编号，按编号升序
+     */
+    public int[] topLevelReaching(int[] targets) {
+        BitSet bits = new BitSet(topLevel.length);
+        if (closures != null) {
+            for (int target : targets) {
+                bits.or(closures[scc[target]]);
+            }
+        } else {
+            BitSet ancestors = ancestors(targets);
+            for (int t = 0; t < topLevel.length; t++) {
+                if (ancestors.get(topLevel[t])) {
+                    bits.set(t);
+                }
+            }
+        }
+        return bits.stream().map(t -> topLevel[t]).toArray();
+    }
+
+    /**
+     * 从每个顶层组件到目标的一条最短依赖路径
+     * 从目标出发做一次反向广度优先遍历，所有顶层组件都到达后提前结束
+     * @param tops topLevelReaching的结果
+     * @param maxPaths 最多返回的路径数
+     * @return 顶层组件编号到路径（从顶层组件到目标的组件编号）的映射，顺序与tops一致
+     */
+    public Map<Integer, int[]> paths(int[] targets, int[] tops, int maxPaths) {
+        int limit = Math.min(tops.length, maxPaths);
+        BitSet wanted = new BitSet(graph.componentCount());
+        for (int i = 0; i < limit; i++) {
+            wanted.set(tops[i]);
+        }
+        int[] next = new int[graph.nodeCount()];
+        Arrays.fill(next, -2);
+        int[] queue = new int[graph.nodeCount()];
+        int head = 0;
+        int tail = 0;
+        for (int target : targets) {
+            if (next[target] == -2) {
+                next[target] = -1;
+                queue[tail++] = target;
+            }
+        }
+        int remaining = wanted.cardinality();
+        while (head < tail && remaining > 0) {
+            int v = queue[head++];
+            if (wanted.get(v)) {
+                remaining--;
+            }
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                int u = graph.predecessor(v, k);
+                if (next[u] == -2 && graph.isComponent(u)) {
+                    next[u] = v;
+                    queue[tail++] = u;
+                }
+            }
+        }
+
+        Map<Integer, int[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < limit; i++) {
+            int top = tops[i];
+            if (next[top] == -2) {
+                continue;
+            }
+            int length = 0;
+            for (int v = top; v >= 0; v = next[v]) {
+                queue[length++] = v;
+            }
+            result.put(top, Arrays.copyOf(queue, length));
+        }
+        return result;
+    }
+
+    /**
+     * 依赖目标的组件
+     * @param transitive false时只返回直接依赖方，true时返回所有传递依赖方
+     * @return 组件编号，按编号升序，不包含目标本身（除非目标处在依赖环中）
+     */
+    public int[] dependents(int[] targets, boolean transitive) {
+        BitSet result;
+        if (transitive) {
+            result = ancestors(targets);
+            for (int target : targets) {
+                if (!inCycle(target)) {
+                    result.clear(target);
+                }
+            }
+        } else {
+            result = new BitSet(graph.componentCount());
+            for (int target : targets) {
+                for (int k = 0; k < graph.inDegree(target); k++) {
+                    int u = graph.predecessor(target, k);
+                    if (graph.isComponent(u)) {
+                        result.set(u);
+                    }
+                }
+            }
+        }
+        return result.stream().toArray();
+    }
+
+    private boolean inCycle(int v) {
+        for (int k = 0; k < graph.outDegree(v); k++) {
+            if (scc[graph.successor(v, k)] == scc[v]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 目标及所有能到达目标的组件
+     */
+    private BitSet ancestors(int[] targets) {
+        BitSet visited = new BitSet(graph.componentCount());
+        int[] queue = new int[graph.nodeCount()];
+        int head = 0;
+        int tail = 0;
+        for (int target : targets) {
+            if (!visited.get(target)) {
+                visited.set(target);
+                queue[tail++] = target;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                int u = graph.predecessor(v, k);
+                if (!visited.get(u) && graph.isComponent(u)) {
+                    visited.set(u);
+                    queue[tail++] = u;
+                }
+            }
+        }
+        return visited;
+    }
+
+    public int componentCount() {
+        return graph.componentCount();
+    }
+
+    public int edgeCount() {
+        return graph.edgeCount();
+    }
+
+    public int sccCount() {
+        return sccCount;
+    }
+
+    public int topLevelCount() {
+        return topLevel.length;
+    }
+
+    public boolean hasClosures() {
+        return closures != null;
+    }
+
+    public String ref(int id) {
+        return graph.ref(id);
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public String version(int id) {
+        return versions[id];
+    }
+
+    public String purl(int id) {
+        return purls[id];
+    }
+}
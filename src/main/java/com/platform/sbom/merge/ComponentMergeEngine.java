@@ -0,0 +1,225 @@
+package com.platform.sbom.merge;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.PackageURL;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * 合并多个格式视图（SPDX、CycloneDX等）中的组件
+ * 组件身份按 purl > sbomRef > 类型:名称:版本 的优先级确定，每个组件只规范化一次键；
+ * purl使用组件上已解析（扫描时已驻留）的PackageURL，小写键缓存在其实例上，共享实例的组件不再重复规范化；
+ * 同一身份的组件以第一次出现者为准，后出现者只补充其空属性。
+ * 输出顺序为各身份第一次出现的顺序，与输入规模和是否并行无关。
+ * 输入较大时按键的哈希分片，各分片在多个核上独立合并，结果与顺序合并完全一致。
+ */
+@Log4j2
+public class ComponentMergeEngine {
+
+    /** 达到该组件数时并行合并 */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    private final int parallelThreshold;
+    private final int partitions;
+
+    public ComponentMergeEngine() {
+        this(DEFAULT_PARALLEL_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelThreshold 达到该组件数时并行合并
+     * @param parallelism 并行合并的分片数
+     */
+    public ComponentMergeEngine(int parallelThreshold, int parallelism) {
+        this.parallelThreshold = parallelThreshold;
+        this.partitions = Math.max(1, parallelism);
+    }
+
+    /**
+     * 单遍合并各视图的组件
+     * @param views 按优先级排列的组件列表，前面视图中的组件作为合并目标并被就地补充属性
+     * @return 合并后的组件列表
+     */
+    public List<Component> merge(List<List<Component>> views) {
+        int total = 0;
+        for (List<Component> view : views) {
+            total += view != null ? view.size() : 0;
+        }
+        Component[] input = new Component[total];
+        int n = 0;
+        for (List<Component> view : views) {
+            if (view != null) {
+                for (Component c : view) {
+                    input[n++] = c;
+                }
+            }
+        }
+        return total >= parallelThreshold && partitions > 1 ? mergeParallel(input) : mergeSequential(input);
+    }
+
+    private List<Component> mergeSequential(Component[] input) {
+        Map<MergeKey, Component> merged = new LinkedHashMap<>(capacity(input.length));
+        for (Component comp : input) {
+            Component existing = merged.putIfAbsent(MergeKey.of(comp), comp);
+            if (existing != null) {
+                mergeProperties(existing, comp);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 并行合并：先并行计算所有键，再按键哈希分片，每个分片按输入顺序处理自己的组件并记录各身份第一次出现的位置，
+     * 最后按位置顺序输出胜出的组件。同一身份只落在一个分片中，分片之间没有共享状态
+     */
+    private List<Component> mergeParallel(Component[] input) {
+        int n = input.length;
+        MergeKey[] keys = new MergeKey[n];
+        IntStream.range(0, n).parallel().forEach(i -> keys[i] = MergeKey.of(input[i]));
+
+        int[] counts = new int[partitions];
+        int[] shardOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            int shard = Math.floorMod(keys[i].hashCode(), partitions);
+            shardOf[i] = shard;
+            counts[shard]++;
+        }
+        int[][] members = new int[partitions][];
+        for (int s = 0; s < partitions; s++) {
+            members[s] = new int[counts[s]];
+        }
+        int[] fill = new int[partitions];
+        for (int i = 0; i < n; i++) {
+            int s = shardOf[i];
+            members[s][fill[s]++] = i;
+        }
+
+        boolean[] winner = new boolean[n];
+        IntStream.range(0, partitions).parallel().forEach(s -> {
+            int[] indexes = members[s];
+            Map<MergeKey, Component> shard = new HashMap<>(capacity(indexes.length));
+            for (int i : indexes) {
+                Component existing = shard.putIfAbsent(keys[i], input[i]);
+                if (existing == null) {
+                    winner[i] = true;
+                } else {
+                    mergeProperties(existing, input[i]);
+                }
+            }
+        });
+
+        List<Component> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (winner[i]) {
+                result.add(input[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用source的非空属性补充target的空属性
+     */
+    public static void mergeProperties(Component target, Component source) {
+        if (isEmpty(target.getLicense()) && !isEmpty(source.getLicense())) {
+            target.setLicense(source.getLicense());
+        }
+        if (isEmpty(target.getPurl()) && !isEmpty(source.getPurl())) {
+            target.setPurl(source.getPurl());
+        }
+        if (isEmpty(target.getCpe()) && !isEmpty(source.getCpe())) {
+            target.setCpe(source.getCpe());
+        }
+        if (isEmpty(target.getVendor()) && !isEmpty(source.getVendor())) {
+            target.setVendor(source.getVendor());
+        }
+        if (isEmpty(target.getHomePage()) && !isEmpty(source.getHomePage())) {
+            target.setHomePage(source.getHomePage());
+        }
+        if (isEmpty(target.getDescription()) && !isEmpty(source.getDescription())) {
+            target.setDescription(source.getDescription());
+        }
+        if (isEmpty(target.getFilePath()) && !isEmpty(source.getFilePath())) {
+            target.setFilePath(source.getFilePath());
+        }
+        if (isEmpty(target.getSha256()) && !isEmpty(source.getSha256())) {
+            target.setSha256(source.getSha256());
+        }
+    }
+
+    private static boolean isEmpty(String str) {
+        return str == null || str.isBlank();
+    }
+
+    private static int capacity(int expected) {
+        return (int) Math.min(1 << 30, expected / 0.75f + 1);
+    }
+
+    /**
+     * 规范化后的组件身份
+     * 各部分单独小写保存，不拼接字符串；purl的小写键缓存在驻留的PackageURL实例上
+     */
+    static final class MergeKey {
+        private static final int PURL = 1;
+        private static final int REF = 2;
+        private static final int COORDINATES = 3;
+
+        private final int kind;
+        private final String first;
+        private final String second;
+        private final String third;
+        private final int hash;
+
+        private MergeKey(int kind, String first, String second, String third) {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            int h = kind;
+            h = 31 * h + Objects.hashCode(first);
+            h = 31 * h + Objects.hashCode(second);
+            h = 31 * h + Objects.hashCode(third);
+            // 扩散高位，使按哈希分片更均匀
+            this.hash = h ^ (h >>> 16);
+        }
+
+        static MergeKey of(Component comp) {
+            if (!isNullOrEmpty(comp.getPurl())) {
+                PackageURL purl = comp.getPackageUrl();
+                return new MergeKey(PURL, purl != null ? purl.key() : lower(comp.getPurl()), null, null);
+            }
+            String ref = comp.getSbomRef();
+            if (!isNullOrEmpty(ref) && !ref.equals("system")) {
+                return new MergeKey(REF, lower(ref), null, null);
+            }
+            String type = isNullOrEmpty(comp.getType()) ? null : lower(comp.getType());
+            return new MergeKey(COORDINATES, type, lower(comp.getName()), lower(comp.getVersion()));
+        }
+
+        private static boolean isNullOrEmpty(String s) {
+            return s == null || s.isEmpty();
+        }
+
+        private static String lower(String s) {
+            return s != null ? s.toLowerCase(Locale.ROOT) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MergeKey)) return false;
+            MergeKey other = (MergeKey) o;
+            return hash == other.hash && kind == other.kind
+                    && Objects.equals(first, other.first)
+                    && Objects.equals(second, other.second)
+                    && Objects.equals(third, other.third);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.platform.sbom.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_component_sha256", columnList = "sha256"))
 public class Component {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,6 +20,10 @@ public class Component {
     private String purl;
     private String cpe;
 
+    // purl解析后的值，不持久化；首次使用时解析，扫描时由PackageURL.Interner驻留
+    @Transient
+    private PackageURL packageUrl;
+
     // 新增元数据字段
     private String sourceRepo;     // 包来源
     private String vendor;         // 供应商
@@ -26,8 +32,38 @@ public class Component {
     @Column(length = 1024)
     private String description;
 
+    // 组件所在文件相对扫描根目录的路径（如 /lib/foo.jar），用于增量扫描时按文件沿用组件
+    @Column(length = 1024)
+    private String filePath;
+
+    // 组件所在归档文件内容的SHA-256，用于跨扫描、跨SBOM按内容识别同一制品
+    @Column(length = 64)
+    private String sha256;
+
     // getters/setters...
 
+    /**
+     * 复制除编号外的所有字段，用于从上次的SBOM或缓存的扫描结果中沿用组件而不修改原对象
+     */
+    public Component copy() {
+        Component copy = new Component();
+        copy.setSbomRef(sbomRef);
+        copy.setName(name);
+        copy.setVersion(version);
+        copy.setType(type);
+        copy.setLicense(license);
+        copy.setPurl(purl);
+        copy.packageUrl = packageUrl;
+        copy.setCpe(cpe);
+        copy.setSourceRepo(sourceRepo);
+        copy.setVendor(vendor);
+        copy.setHomePage(homePage);
+        copy.setDescription(description);
+        copy.setFilePath(filePath);
+        copy.setSha256(sha256);
+        return copy;
+    }
+
     public Long getId() {
         return id;
     }
@@ -82,6 +118,27 @@ public class Component {
 
     public void setPurl(String purl) {
         this.purl = purl;
+        this.packageUrl = null;
+    }
+
+    /**
+     * 解析后的PURL，purl为空或不是有效的PURL时返回null
+     */
+    @JsonIgnore
+    public PackageURL getPackageUrl() {
+        if (packageUrl == null && purl != null) {
+            packageUrl = PackageURL.parse(purl);
+        }
+        return packageUrl;
+    }
+
+    /**
+     * 设置PURL，purl字段同步为其字符串形式
+     */
+    @JsonIgnore
+    public void setPackageUrl(PackageURL packageUrl) {
+        this.packageUrl = packageUrl;
+        this.purl = packageUrl != null ? packageUrl.toString() : null;
     }
 
     public String getCpe() {
@@ -123,4 +180,20 @@ public class Component {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
 }
@@ -0,0 +1,102 @@
+package com.platform.sbom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从本地仓库POM中读取的Maven构件元数据
+ * 由MavenMetadataProvider返回时已按父POM链补全可继承的字段（groupId、version、description、url、licenses、scm）
+ */
+public class MavenArtifactMetadata {
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String packaging;
+    private String name;
+    private String description;
+    private String url;
+    private List<String> licenses = new ArrayList<>();
+    private String scmUrl;
+    // 直接父POM的坐标 groupId:artifactId:version
+    private String parent;
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getPackaging() {
+        return packaging;
+    }
+
+    public void setPackaging(String packaging) {
+        this.packaging = packaging;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public List<String> getLicenses() {
+        return licenses;
+    }
+
+    public void setLicenses(List<String> licenses) {
+        this.licenses = licenses;
+    }
+
+    public String getScmUrl() {
+        return scmUrl;
+    }
+
+    public void setScmUrl(String scmUrl) {
+        this.scmUrl = scmUrl;
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    public void setParent(String parent) {
+        this.parent = parent;
+    }
+}
@@ -0,0 +1,292 @@
+package com.platform.sbom.model;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 解析后的不可变PURL：pkg:type/namespace/name@version?qualifiers#subpath
+ * 解析时只定位一次各部分的边界，之后按字段读取，不再反复split字符串；各部分保持原样（不做百分号解码），
+ * toString返回原始（或构造出的）PURL字符串。同一次扫描中通过Interner驻留，相同的PURL共享同一个实例
+ */
+public final class PackageURL {
+
+    private static final String SCHEME = "pkg:";
+
+    private final String canonical;
+    // 各部分在canonical中的位置，不存在的部分起点为-1；取值时才截取子串
+    private final int typeStart;
+    private final int typeEnd;
+    private final int namespaceStart;
+    private final int namespaceEnd;
+    private final int nameStart;
+    private final int nameEnd;
+    private final int versionStart;
+    private final int versionEnd;
+    private final int qualifiersStart;
+    private final int qualifiersEnd;
+    private final int subpathStart;
+    // 忽略大小写比较用的键，首次使用时计算
+    private volatile String key;
+
+    private PackageURL(String canonical, int typeStart, int typeEnd, int namespaceStart, int namespaceEnd,
+                       int nameStart, int nameEnd, int versionStart, int versionEnd,
+                       int qualifiersStart, int qualifiersEnd, int subpathStart) {
+        this.canonical = canonical;
+        this.typeStart = typeStart;
+        this.typeEnd = typeEnd;
+        this.namespaceStart = namespaceStart;
+        this.namespaceEnd = namespaceEnd;
+        this.nameStart = nameStart;
+        this.nameEnd = nameEnd;
+        this.versionStart = versionStart;
+        this.versionEnd = versionEnd;
+        this.qualifiersStart = qualifiersStart;
+        this.qualifiersEnd = qualifiersEnd;
+        this.subpathStart = subpathStart;
+    }
+
+    /**
+     * 解析PURL字符串，只定位各部分的边界，不复制字符串
+     * @return 不是PURL（没有pkg:前缀、类型或名称）时返回null
+     */
+    public static PackageURL parse(String purl) {
+        if (purl == null || !purl.regionMatches(true, 0, SCHEME, 0, SCHEME.length())) {
+            return null;
+        }
+        int end = purl.length();
+        int subpathStart = -1;
+        int hash = purl.indexOf('#', SCHEME.length());
+        if (hash >= 0) {
+            subpathStart = hash + 1;
+            end = hash;
+        }
+        int qualifiersStart = -1;
+        int qualifiersEnd = -1;
+        int question = purl.indexOf('?', SCHEME.length());
+        if (question >= 0 && question < end) {
+            qualifiersStart = question + 1;
+            qualifiersEnd = end;
+            end = question;
+        }
+        int start = SCHEME.length();
+        while (start < end && purl.charAt(start) == '/') {
+            start++;
+        }
+        int typeEnd = purl.indexOf('/', start);
+        if (typeEnd < 0 || typeEnd >= end || typeEnd == start) {
+            return null;
+        }
+        int lastSlash = purl.lastIndexOf('/', end - 1);
+        // 版本分隔符必须在最后一个/之后，以免误把npm作用域（@scope）当成版本
+        int at = purl.lastIndexOf('@', end - 1);
+        int versionStart = -1;
+        int nameEnd = end;
+        if (at > lastSlash) {
+            versionStart = at + 1;
+            nameEnd = at;
+        }
+        if (nameEnd == lastSlash + 1) {
+            return null;
+        }
+        boolean hasNamespace = lastSlash > typeEnd;
+        return new PackageURL(purl, start, typeEnd,
+                hasNamespace ? typeEnd + 1 : -1, hasNamespace ? lastSlash : -1,
+                lastSlash + 1, nameEnd, versionStart, end,
+                qualifiersStart, qualifiersEnd, subpathStart);
+    }
+
+    /**
+     * 由各部分构造PURL
+     * @param namespace 可以为null
+     * @param version 可以为null
+     */
+    public static PackageURL of(String type, String namespace, String name, String version) {
+        return of(type, namespace, name, version, null);
+    }
+
+    /**
+     * 由各部分构造PURL
+     * @param qualifiers 形如 arch=amd64 的限定符（不含?），可以为null
+     */
+    public static PackageURL of(String type, String namespace, String name, String version, String qualifiers) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(name, "name");
+        StringBuilder sb = new StringBuilder(SCHEME.length() + type.length() + name.length() + 32);
+        sb.append(SCHEME).append(type).append('/');
+        if (namespace != null && !namespace.isEmpty()) {
+            sb.append(namespace).append('/');
+        }
+        sb.append(name);
+        if (version != null) {
+            sb.append('@').append(version);
+        }
+        if (qualifiers != null) {
+            sb.append('?').append(qualifiers);
+        }
+        PackageURL purl = parse(sb.toString());
+        if (purl == null) {
+            throw new IllegalArgumentException("无效的PURL: " + sb);
+        }
+        return purl;
+    }
+
+    /**
+     * 替换命名空间后的新PURL（如按os-release修正deb包的发行版）
+     */
+    public PackageURL withNamespace(String newNamespace) {
+        if (Objects.equals(getNamespace(), newNamespace)) {
+            return this;
+        }
+        PackageURL rebuilt = of(getType(), newNamespace, getName(), getVersion(), getQualifiers());
+        return subpathStart < 0 ? rebuilt : parse(rebuilt.canonical + "#" + getSubpath());
+    }
+
+    /**
+     * 去掉限定符和子路径后的PURL（pkg:type/namespace/name@version），没有这两部分时返回自身
+     */
+    public PackageURL withoutQualifiers() {
+        if (qualifiersStart < 0 && subpathStart < 0) {
+            return this;
+        }
+        return parse(canonical.substring(0, qualifiersStart >= 0 ? qualifiersStart - 1 : subpathStart - 1));
+    }
+
+    /**
+     * 追加一个限定符后的新PURL（如按os-release补充distro），已有同名限定符时返回自身
+     */
+    public PackageURL withQualifier(String name, String value) {
+        String qualifiers = getQualifiers();
+        if (qualifiers != null) {
+            for (String pair : qualifiers.split("&")) {
+                int eq = pair.indexOf('=');
+                if ((eq >= 0 ? pair.substring(0, eq) : pair).equalsIgnoreCase(name)) {
+                    return this;
+                }
+            }
+        }
+        String added = name + "=" + value;
+        PackageURL rebuilt = of(getType(), getNamespace(), getName(), getVersion(),
+                qualifiers == null || qualifiers.isEmpty() ? added : qualifiers + "&" + added);
+        return subpathStart < 0 ? rebuilt : parse(rebuilt.canonical + "#" + getSubpath());
+    }
+
+    public boolean isType(String expected) {
+        return typeEnd - typeStart == expected.length()
+                && canonical.regionMatches(true, typeStart, expected, 0, expected.length());
+    }
+
+    public String getType() {
+        return canonical.substring(typeStart, typeEnd);
+    }
+
+    public String getNamespace() {
+        return namespaceStart >= 0 ? canonical.substring(namespaceStart, namespaceEnd) : null;
+    }
+
+    public String getName() {
+        return canonical.substring(nameStart, nameEnd);
+    }
+
+    public String getVersion() {
+        return versionStart >= 0 ? canonical.substring(versionStart, versionEnd) : null;
+    }
+
+    public String getQualifiers() {
+        return qualifiersStart >= 0 ? canonical.substring(qualifiersStart, qualifiersEnd) : null;
+    }
+
+    public String getSubpath() {
+        return subpathStart >= 0 ? canonical.substring(subpathStart) : null;
+    }
+
+    /**
+     * 忽略大小写的比较键（整个PURL转小写），每个实例只计算一次；已经是小写时不产生新字符串
+     */
+    public String key() {
+        String k = key;
+        if (k == null) {
+            k = canonical.toLowerCase(Locale.ROOT);
+            key = k;
+        }
+        return k;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackageURL)) return false;
+        return canonical.equals(((PackageURL) o).canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return canonical.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return canonical;
+    }
+
+    /**
+     * 一次扫描内的PURL驻留表：相同的PURL字符串只解析一次，返回同一个实例，可以按引用比较。线程安全
+     */
+    public static final class Interner {
+        private final Map<String, PackageURL> purls;
+
+        public Interner() {
+            this(16);
+        }
+
+        /**
+         * @param expected 预计的PURL数量
+         */
+        public Interner(int expected) {
+            this.purls = new ConcurrentHashMap<>(expected);
+        }
+
+        /**
+         * @return 驻留的实例，不是PURL时返回null
+         */
+        public PackageURL intern(String purl) {
+            if (purl == null) {
+                return null;
+            }
+            PackageURL existing = purls.get(purl);
+            if (existing != null) {
+                return existing;
+            }
+            PackageURL parsed = parse(purl);
+            if (parsed == null) {
+                return null;
+            }
+            existing = purls.putIfAbsent(purl, parsed);
+            return existing != null ? existing : parsed;
+        }
+
+        public PackageURL intern(PackageURL purl) {
+            if (purl == null) {
+                return null;
+            }
+            PackageURL existing = purls.putIfAbsent(purl.toString(), purl);
+            return existing != null ? existing : purl;
+        }
+
+        /**
+         * 把组件的PURL替换为驻留的实例（PURL字符串也随之共享）
+         */
+        public void intern(Component component) {
+            PackageURL interned = component.getPackageUrl() != null
+                    ? intern(component.getPackageUrl()) : null;
+            if (interned != null) {
+                component.setPackageUrl(interned);
+            }
+        }
+
+        public int size() {
+            return purls.size();
+        }
+    }
+}
@@ -8,6 +8,10 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_sbom_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_sbom_name_id", columnList = "name, id")
+})
 public class SBOM {
     @Id
     //@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +30,10 @@ public class SBOM {
     // 使用的SBOM规范及版本（如SPDX-2.2, CycloneDX-1.4）
     private String specVersion;
 
+    // 组件数和依赖关系数，写入时维护，列表查询无需加载组件
+    private Integer componentCount;
+    private Integer dependencyCount;
+
     // 组件摘要
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @JoinColumn(name = "sbom_id", referencedColumnName = "id")
@@ -114,6 +122,22 @@ public class SBOM {
         this.specVersion = specVersion;
     }
 
+    public Integer getComponentCount() {
+        return componentCount;
+    }
+
+    public void setComponentCount(Integer componentCount) {
+        this.componentCount = componentCount;
+    }
+
+    public Integer getDependencyCount() {
+        return dependencyCount;
+    }
+
+    public void setDependencyCount(Integer dependencyCount) {
+        this.dependencyCount = dependencyCount;
+    }
+
     public List<Component> getComponents() {
         return components;
     }
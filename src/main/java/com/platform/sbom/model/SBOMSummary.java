@@ -0,0 +1,87 @@
+package com.platform.sbom.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * SBOM列表项：只包含sbom表本身的列，不加载组件和依赖关系
+ */
+public class SBOMSummary {
+    private Long id;
+    private String name;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+    private String toolName;
+    private String toolVersion;
+    private String specVersion;
+    private Integer componentCount;
+    private Integer dependencyCount;
+
+    public SBOMSummary() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    public void setToolName(String toolName) {
+        this.toolName = toolName;
+    }
+
+    public String getToolVersion() {
+        return toolVersion;
+    }
+
+    public void setToolVersion(String toolVersion) {
+        this.toolVersion = toolVersion;
+    }
+
+    public String getSpecVersion() {
+        return specVersion;
+    }
+
+    public void setSpecVersion(String specVersion) {
+        this.specVersion = specVersion;
+    }
+
+    public Integer getComponentCount() {
+        return componentCount;
+    }
+
+    public void setComponentCount(Integer componentCount) {
+        this.componentCount = componentCount;
+    }
+
+    public Integer getDependencyCount() {
+        return dependencyCount;
+    }
+
+    public void setDependencyCount(Integer dependencyCount) {
+        this.dependencyCount = dependencyCount;
+    }
+}
@@ -0,0 +1,179 @@
+package com.platform.sbom.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量镜像扫描的状态，仅保存在内存中，不持久化
+ * 指向同一摘要的多个镜像引用只扫描一次，共享同一个SBOM
+ */
+public class ScanBatch {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String name;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final List<ImageResult> images;
+
+    /**
+     * @param references 请求中的镜像引用
+     * @param targets 与references一一对应、实际交给扫描器的引用
+     */
+    public ScanBatch(String name, List<String> references, List<String> targets) {
+        this.name = name;
+        List<ImageResult> results = new ArrayList<>(references.size());
+        for (int i = 0; i < references.size(); i++) {
+            results.add(new ImageResult(references.get(i), targets.get(i)));
+        }
+        this.images = Collections.unmodifiableList(results);
+    }
+
+    public boolean isFinished() {
+        return images.stream().allMatch(ImageResult::isFinished);
+    }
+
+    /**
+     * 所有镜像都结束后的时间，未结束时为null
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    public LocalDateTime getFinishedAt() {
+        if (!isFinished()) {
+            return null;
+        }
+        return images.stream()
+                .map(ImageResult::getFinishedAt)
+                .filter(t -> t != null)
+                .max(LocalDateTime::compareTo)
+                .orElse(submittedAt);
+    }
+
+    /**
+     * 实际扫描的不同摘要数
+     */
+    public long getDistinctScans() {
+        return images.stream().filter(i -> i.getDuplicateOf() == null).count();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public List<ImageResult> getImages() {
+        return images;
+    }
+
+    /**
+     * 单个镜像引用的结果
+     */
+    public static class ImageResult {
+        private final String reference;
+        @JsonIgnore
+        private final String target;
+        // 解析出的内容摘要，无法解析时为null，此时按引用本身去重
+        private volatile String digest;
+        // 实际扫描的引用：标签解析时固定为 repo@sha256:摘要，使扫描内容与记录的摘要一致
+        @JsonIgnore
+        private volatile String scanTarget;
+        // 与之摘要相同、实际执行扫描的引用
+        private volatile String duplicateOf;
+        private volatile ScanJob.State state = ScanJob.State.QUEUED;
+        private volatile Long sbomId;
+        private volatile String error;
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private volatile LocalDateTime startedAt;
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private volatile LocalDateTime finishedAt;
+
+        public ImageResult(String reference, String target) {
+            this.reference = reference;
+            this.target = target;
+        }
+
+        /**
+         * @param scanTarget 固定到摘要的引用，无法固定时为null，此时扫描原引用
+         */
+        public void markResolved(String digest, String scanTarget) {
+            this.digest = digest;
+            this.scanTarget = scanTarget;
+        }
+
+        public void markDuplicateOf(String reference) {
+            this.duplicateOf = reference;
+        }
+
+        public void markRunning() {
+            this.startedAt = LocalDateTime.now();
+            this.state = ScanJob.State.RUNNING;
+        }
+
+        public void markSucceeded(Long sbomId) {
+            this.sbomId = sbomId;
+            this.finishedAt = LocalDateTime.now();
+            this.state = ScanJob.State.SUCCEEDED;
+        }
+
+        public void markFailed(String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.state = ScanJob.State.FAILED;
+        }
+
+        public boolean isFinished() {
+            return state == ScanJob.State.SUCCEEDED || state == ScanJob.State.FAILED || state == ScanJob.State.CANCELLED;
+        }
+
+        public String getReference() {
+            return reference;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getScanTarget() {
+            return scanTarget != null ? scanTarget : target;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public String getDuplicateOf() {
+            return duplicateOf;
+        }
+
+        public ScanJob.State getState() {
+            return state;
+        }
+
+        public Long getSbomId() {
+            return sbomId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+    }
+}
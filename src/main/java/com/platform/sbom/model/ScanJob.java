@@ -0,0 +1,128 @@
+package com.platform.sbom.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 异步扫描任务的状态，仅保存在内存中，不持久化
+ */
+public class ScanJob {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    // 任务类型，如 system、container
+    private final String type;
+    // 要生成的SBOM名称
+    private final String name;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile State state = State.QUEUED;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private volatile LocalDateTime startedAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private volatile LocalDateTime finishedAt;
+    private volatile Long sbomId;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public ScanJob(String type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    public void markRunning() {
+        this.startedAt = LocalDateTime.now();
+        this.state = State.RUNNING;
+    }
+
+    public void markSucceeded(Long sbomId) {
+        this.sbomId = sbomId;
+        this.finishedAt = LocalDateTime.now();
+        this.state = State.SUCCEEDED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.state = State.FAILED;
+    }
+
+    public void markCancelled() {
+        this.finishedAt = LocalDateTime.now();
+        this.state = State.CANCELLED;
+    }
+
+    public void requestCancel() {
+        this.cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    /**
+     * 在队列中等待的毫秒数
+     */
+    public Long getQueuedMillis() {
+        LocalDateTime end = startedAt != null ? startedAt : finishedAt;
+        return end != null ? Duration.between(submittedAt, end).toMillis() : null;
+    }
+
+    /**
+     * 实际执行的毫秒数
+     */
+    public Long getRunMillis() {
+        if (startedAt == null) return null;
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        return Duration.between(startedAt, end).toMillis();
+    }
+
+    // getters...
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getSbomId() {
+        return sbomId;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,118 @@
+package com.platform.sbom.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 可续传的分块上传会话，仅保存在内存中，数据写入服务端的临时文件
+ */
+public class UploadSession {
+
+    public enum Kind {
+        // 容器镜像tar
+        IMAGE,
+        // 系统目录的tar、tar.gz或zip归档
+        ARCHIVE
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Kind kind;
+    // 原始文件名
+    private final String fileName;
+    // 声明的总大小，未知时为null
+    private final Long totalBytes;
+    @JsonIgnore
+    private final Path file;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    // 从文件开头起连续写入的字节数，即下一个分块的偏移
+    private volatile long receivedBytes;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private volatile LocalDateTime updatedAt = createdAt;
+    // 完成后提交的扫描任务
+    private volatile String jobId;
+    // 当前写入请求的令牌，新的请求接管后旧请求不能再写入；由会话的监视器保护
+    @JsonIgnore
+    private long writer;
+
+    public UploadSession(Kind kind, String fileName, Long totalBytes, Path file) {
+        this.kind = kind;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.file = file;
+    }
+
+    public void advanceTo(long offset) {
+        if (offset > receivedBytes) {
+            receivedBytes = offset;
+        }
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 由新的写入请求接管会话，之前仍在读取请求体的写入者随之失效
+     * @return 新写入者的令牌
+     */
+    public long takeOverWriter() {
+        return ++writer;
+    }
+
+    public boolean isWriter(long token) {
+        return writer == token;
+    }
+
+    public void markSubmitted(String jobId) {
+        this.jobId = jobId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 已收齐声明的字节数；未声明大小时至少要收到一个字节，空会话不能提交扫描
+     */
+    public boolean isComplete() {
+        return totalBytes == null ? receivedBytes > 0 : receivedBytes == totalBytes;
+    }
+
+    // getters...
+
+    public String getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.platform.sbom.mongo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档内容SHA-256到识别出的组件的持久化索引条目
+ */
+@Document(collection = "artifactIndex")
+public class ArtifactIndexDocument {
+    // 归档内容的SHA-256
+    @Id
+    private String sha256;
+    // 生成条目的识别逻辑版本，版本不同的条目视为未命中
+    private int inspectorVersion;
+    // 组件列表的JSON，filePath为相对归档的后缀
+    private String componentsJson;
+    private LocalDateTime updatedAt;
+
+    public ArtifactIndexDocument() {}
+
+    public ArtifactIndexDocument(String sha256, int inspectorVersion, String componentsJson) {
+        this.sha256 = sha256;
+        this.inspectorVersion = inspectorVersion;
+        this.componentsJson = componentsJson;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+    public int getInspectorVersion() { return inspectorVersion; }
+    public void setInspectorVersion(int inspectorVersion) { this.inspectorVersion = inspectorVersion; }
+    public String getComponentsJson() { return componentsJson; }
+    public void setComponentsJson(String componentsJson) { this.componentsJson = componentsJson; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,8 @@
+package com.platform.sbom.mongo;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArtifactIndexDocumentRepository extends MongoRepository<ArtifactIndexDocument, String> {
+}
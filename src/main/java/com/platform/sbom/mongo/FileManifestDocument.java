@@ -0,0 +1,69 @@
+package com.platform.sbom.mongo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 某个系统最近一次扫描的文件指纹清单，用于下次上传时增量扫描
+ */
+@Document(collection = "fileManifests")
+public class FileManifestDocument {
+    // 系统名称（即生成SBOM时的name），每个系统只保留最新一份清单
+    @Id
+    private String systemName;
+    // 清单对应的 MySQL 中 SBOM 的 id
+    private Long sbomId;
+    private LocalDateTime updatedAt;
+    private List<FileFingerprint> files = new ArrayList<>();
+
+    public FileManifestDocument() {}
+
+    public FileManifestDocument(String systemName, Long sbomId, List<FileFingerprint> files) {
+        this.systemName = systemName;
+        this.sbomId = sbomId;
+        this.files = files;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 单个文件的指纹，路径相对扫描根目录，以 / 开头（与Syft报告的位置一致）
+     */
+    public static class FileFingerprint {
+        private String path;
+        private long size;
+        private long mtime;
+        private String sha256;
+
+        public FileFingerprint() {}
+
+        public FileFingerprint(String path, long size, long mtime, String sha256) {
+            this.path = path;
+            this.size = size;
+            this.mtime = mtime;
+            this.sha256 = sha256;
+        }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public long getSize() { return size; }
+        public void setSize(long size) { this.size = size; }
+        public long getMtime() { return mtime; }
+        public void setMtime(long mtime) { this.mtime = mtime; }
+        public String getSha256() { return sha256; }
+        public void setSha256(String sha256) { this.sha256 = sha256; }
+    }
+
+    // getters and setters...
+    public String getSystemName() { return systemName; }
+    public void setSystemName(String systemName) { this.systemName = systemName; }
+    public Long getSbomId() { return sbomId; }
+    public void setSbomId(Long sbomId) { this.sbomId = sbomId; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public List<FileFingerprint> getFiles() { return files; }
+    public void setFiles(List<FileFingerprint> files) { this.files = files; }
+}
@@ -0,0 +1,12 @@
+package com.platform.sbom.mongo;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileManifestDocumentRepository extends MongoRepository<FileManifestDocument, String> {
+    /**
+     * 删除指向指定 SBOM 的文件清单
+     */
+    void deleteBySbomId(Long sbomId);
+}
@@ -0,0 +1,543 @@
+package com.platform.sbom.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.platform.sbom.model.Component;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于JsonParser令牌流的Syft输出解析器
+ * 逐个包/组件构建Component并立即交给Sink，不会把整个文档读成String或JsonNode树，
+ * 与组件无关的部分（如SPDX的files、snippets）直接跳过，内存占用只与包数量相关
+ */
+@Log4j2
+@org.springframework.stereotype.Component
+public class SBOMStreamParser {
+
+    /**
+     * 解析结果的接收方，组件和依赖边在读取到时立即回调
+     */
+    public interface Sink {
+        void component(Component component);
+
+        void dependsOn(String ref, String target);
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public SBOMStreamParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * 流式解析SPDX JSON
+     *
+     * @param in SPDX JSON输入流，调用方负责关闭
+     * @param sourceRepo 写入每个组件的来源描述
+     * @param sink 结果接收方
+     */
+    public void parseSpdx(InputStream in, String sourceRepo, Sink sink) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            expect(p, JsonToken.START_OBJECT);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "name":
+                        log.info("解析SPDX文档: {}", p.getValueAsString("Unknown SBOM"));
+                        break;
+                    case "packages":
+                        forEachObject(p, () -> parseSpdxPackage(p, sourceRepo, sink));
+                        break;
+                    case "relationships":
+                        forEachObject(p, () -> parseSpdxRelationship(p, sink));
+                        break;
+                    default:
+                        // files、snippets等与组件无关的部分
+                        p.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * 流式解析CycloneDX JSON
+     *
+     * @param in CycloneDX JSON输入流，调用方负责关闭
+     * @param sourceRepo 写入每个组件的来源描述
+     * @param sink 结果接收方
+     */
+    public void parseCycloneDx(InputStream in, String sourceRepo, Sink sink) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            expect(p, JsonToken.START_OBJECT);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "metadata":
+                        parseCycloneDxMetadata(p);
+                        break;
+                    case "components":
+                        forEachObject(p, () -> parseCycloneDxComponent(p, sourceRepo, sink));
+                        break;
+                    case "dependencies":
+                        forEachObject(p, () -> parseCycloneDxDependency(p, sink));
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * 流式解析Syft原生JSON（-o syft-json）
+     * 用于直接读取Syft标准输出：Syft先输出artifacts再输出artifactRelationships，
+     * 每个artifact读完即交给Sink，不需要等待进程退出
+     *
+     * @param in Syft JSON输入流，调用方负责关闭
+     * @param sourceRepo 写入每个组件的来源描述
+     * @param sink 结果接收方
+     */
+    public void parseSyftJson(InputStream in, String sourceRepo, Sink sink) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            expect(p, JsonToken.START_OBJECT);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "artifacts":
+                        forEachObject(p, () -> parseSyftArtifact(p, sourceRepo, sink));
+                        break;
+                    case "artifactRelationships":
+                        forEachObject(p, () -> parseSyftRelationship(p, sink));
+                        break;
+                    default:
+                        // files、source、distro、descriptor等
+                        p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void parseSpdxPackage(JsonParser p, String sourceRepo, Sink sink) throws IOException {
+        String spdxId = "", name = "", version = "", supplier = "", description = "";
+        String licenseConcluded = "", licenseDeclared = "", purpose = "LIBRARY";
+        String purl = null, cpe = null, filePath = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "SPDXID": spdxId = text(p); break;
+                case "sourceInfo": filePath = pathFromSourceInfo(text(p)); break;
+                case "name": name = text(p); break;
+                case "versionInfo": version = text(p); break;
+                case "supplier": supplier = text(p); break;
+                case "description": description = text(p); break;
+                case "licenseConcluded": licenseConcluded = text(p); break;
+                case "licenseDeclared": licenseDeclared = text(p); break;
+                case "primaryPackagePurpose": purpose = text(p); break;
+                case "externalRefs":
+                    if (p.currentToken() != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        String refType = "", locator = "";
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String refField = p.currentName();
+                            p.nextToken();
+                            if (refField.equals("referenceType")) refType = text(p);
+                            else if (refField.equals("referenceLocator")) locator = text(p);
+                            else p.skipChildren();
+                        }
+                        // 各取第一个PURL和CPE
+                        if (purl == null && refType.equals("purl")) {
+                            purl = locator;
+                        } else if (cpe == null && (refType.equals("cpe23Type") || refType.equals("cpe22Type"))) {
+                            cpe = locator;
+                        }
+                    }
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+
+        // 跳过文档自身包
+        if (spdxId.equals("SPDXRef-DOCUMENT")) {
+            return;
+        }
+
+        Component component = new Component();
+        component.setSbomRef(spdxId.replace("SPDXRef-", ""));
+        component.setName(name);
+        component.setVersion(version);
+        component.setVendor(supplier);
+        component.setLicense(!licenseConcluded.isEmpty() ? licenseConcluded :
+                (!licenseDeclared.isEmpty() ? licenseDeclared : "UNKNOWN"));
+        component.setDescription(description);
+        component.setType(purpose);
+        component.setPurl(purl);
+        component.setCpe(cpe);
+        component.setSourceRepo(sourceRepo);
+        component.setFilePath(filePath);
+        sink.component(component);
+    }
+
+    /**
+     * Syft在sourceInfo中写入 "acquired package info from ...: /path/a, /path/b"，取第一个路径
+     */
+    private String pathFromSourceInfo(String sourceInfo) {
+        int colon = sourceInfo.indexOf(": ");
+        if (colon < 0) {
+            return null;
+        }
+        String paths = sourceInfo.substring(colon + 2).trim();
+        int comma = paths.indexOf(", ");
+        String path = comma >= 0 ? paths.substring(0, comma) : paths;
+        return path.isEmpty() ? null : path;
+    }
+
+    private void parseSpdxRelationship(JsonParser p, Sink sink) throws IOException {
+        String sourceId = "", relationType = "", targetId = "";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "spdxElementId": sourceId = text(p); break;
+                case "relationshipType": relationType = text(p); break;
+                case "relatedSpdxElement": targetId = text(p); break;
+                default: p.skipChildren();
+            }
+        }
+
+        // 仅处理DEPENDS_ON关系
+        if (relationType.equals("DEPENDS_ON")) {
+            sink.dependsOn(sourceId.replace("SPDXRef-", ""), targetId.replace("SPDXRef-", ""));
+        }
+    }
+
+    private void parseCycloneDxMetadata(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        String documentName = "Unknown SBOM";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals("component") && p.currentToken() == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String compField = p.currentName();
+                    p.nextToken();
+                    if (compField.equals("name")) documentName = text(p);
+                    else p.skipChildren();
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        log.info("解析CycloneDX文档: {}", documentName);
+    }
+
+    private void parseCycloneDxComponent(JsonParser p, String sourceRepo, Sink sink) throws IOException {
+        String name = "", version = "", type = "", bomRef = "", description = "";
+        String publisher = null, license = null, purl = null, cpe = null, filePath = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "name": name = text(p); break;
+                case "version": version = text(p); break;
+                case "type": type = text(p); break;
+                case "bom-ref": bomRef = text(p); break;
+                case "description": description = text(p); break;
+                case "publisher": publisher = text(p); break;
+                case "purl": purl = text(p); break;
+                case "cpe": cpe = text(p); break;
+                case "licenses": license = firstCycloneDxLicense(p); break;
+                case "properties": filePath = cycloneDxLocation(p); break;
+                default: p.skipChildren();
+            }
+        }
+
+        Component component = new Component();
+        component.setName(name);
+        component.setVersion(version);
+        component.setType(type);
+        if (bomRef.isEmpty()) {
+            // 如果没有bom-ref, 生成一个基于类型/名称/版本的ID
+            bomRef = "pkg:" + type + "/" + name + "@" + version;
+        }
+        component.setSbomRef(bomRef);
+        component.setVendor(publisher);
+        component.setLicense(license == null || license.isEmpty() ? "UNKNOWN" : license);
+        component.setDescription(description);
+        component.setPurl(purl);
+        component.setCpe(cpe);
+        component.setSourceRepo(sourceRepo);
+        component.setFilePath(filePath);
+        sink.component(component);
+    }
+
+    /**
+     * 从properties中读取Syft写入的第一个位置（syft:location:0:path）
+     */
+    private String cycloneDxLocation(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        String location = null;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String name = "", value = "";
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("name")) name = text(p);
+                else if (field.equals("value")) value = text(p);
+                else p.skipChildren();
+            }
+            if (location == null && name.equals("syft:location:0:path") && !value.isEmpty()) {
+                location = value;
+            }
+        }
+        return location;
+    }
+
+    /**
+     * 读取licenses数组中第一个条目的许可证id、name或expression，跳过其余条目
+     */
+    private String firstCycloneDxLicense(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        String result = null;
+        boolean first = true;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (!first || p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            first = false;
+            String id = null, name = null, expression = null;
+            boolean hasLicense = false;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("license") && p.currentToken() == JsonToken.START_OBJECT) {
+                    hasLicense = true;
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String licField = p.currentName();
+                        p.nextToken();
+                        if (licField.equals("id")) id = text(p);
+                        else if (licField.equals("name")) name = text(p);
+                        else p.skipChildren();
+                    }
+                } else if (field.equals("expression")) {
+                    expression = text(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (hasLicense) {
+                result = id != null ? id : name;
+            } else {
+                result = expression;
+            }
+        }
+        return result;
+    }
+
+    private void parseCycloneDxDependency(JsonParser p, Sink sink) throws IOException {
+        String ref = "";
+        // ref和dependsOn的出现顺序不固定，先暂存目标
+        List<String> targets = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals("ref")) {
+                ref = text(p);
+            } else if (field.equals("dependsOn") && p.currentToken() == JsonToken.START_ARRAY) {
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    targets.add(text(p));
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (!ref.isEmpty()) {
+            for (String target : targets) {
+                sink.dependsOn(ref, target);
+            }
+        }
+    }
+
+    private void parseSyftArtifact(JsonParser p, String sourceRepo, Sink sink) throws IOException {
+        String id = "", name = "", version = "";
+        String purl = null, cpe = null, filePath = null;
+        List<String> licenses = new ArrayList<>();
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "id": id = text(p); break;
+                case "name": name = text(p); break;
+                case "version": version = text(p); break;
+                case "purl": purl = text(p); break;
+                case "licenses":
+                    if (p.currentToken() != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        String license = syftValue(p, "spdxExpression", "value");
+                        if (license != null && !license.isEmpty() && !licenses.contains(license)) {
+                            licenses.add(license);
+                        }
+                    }
+                    break;
+                case "cpes":
+                    if (p.currentToken() != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        // 取第一个CPE
+                        String value = syftValue(p, "cpe", "cpe");
+                        if (cpe == null && value != null && !value.isEmpty()) {
+                            cpe = value;
+                        }
+                    }
+                    break;
+                case "locations":
+                    if (p.currentToken() != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        // 取第一个位置的path
+                        String path = syftValue(p, "path", "path");
+                        if (filePath == null && path != null && !path.isEmpty()) {
+                            filePath = path;
+                        }
+                    }
+                    break;
+                default:
+                    // metadata等
+                    p.skipChildren();
+            }
+        }
+
+        Component component = new Component();
+        component.setSbomRef(id.isEmpty() ? "pkg:" + name + "@" + version : id);
+        component.setName(name);
+        component.setVersion(version);
+        // 与Syft的CycloneDX输出一致，包统一视为library
+        component.setType("library");
+        component.setLicense(licenses.isEmpty() ? "UNKNOWN" : String.join(" AND ", licenses));
+        component.setDescription("");
+        component.setPurl(purl == null || purl.isEmpty() ? null : purl);
+        component.setCpe(cpe);
+        component.setSourceRepo(sourceRepo);
+        component.setFilePath(filePath);
+        sink.component(component);
+    }
+
+    /**
+     * 读取Syft数组元素的值：旧版本为字符串，新版本为对象，依次取preferred和fallback字段
+     */
+    private String syftValue(JsonParser p, String preferred, String fallback) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return text(p);
+        }
+        String preferredValue = null, fallbackValue = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals(preferred)) preferredValue = text(p);
+            else if (field.equals(fallback)) fallbackValue = text(p);
+            else p.skipChildren();
+        }
+        return preferredValue != null && !preferredValue.isEmpty() ? preferredValue : fallbackValue;
+    }
+
+    private void parseSyftRelationship(JsonParser p, Sink sink) throws IOException {
+        String parent = "", child = "", type = "";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "parent": parent = text(p); break;
+                case "child": child = text(p); break;
+                case "type": type = text(p); break;
+                default: p.skipChildren();
+            }
+        }
+
+        // dependency-of：parent是child的依赖，即child依赖parent；contains、evident-by等关系与依赖无关
+        if (type.equals("dependency-of") && !parent.isEmpty() && !child.isEmpty()) {
+            sink.dependsOn(child, parent);
+        }
+    }
+
+    /**
+     * 遍历对象数组，每个元素调用一次handler，handler负责消费到该对象的END_OBJECT
+     */
+    private void forEachObject(JsonParser p, ObjectHandler handler) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() == JsonToken.START_OBJECT) {
+                handler.handle();
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 读取当前标量值的文本，非标量值跳过并返回空串（与JsonNode.asText("")的行为一致）
+     */
+    private String text(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return "";
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return "";
+        }
+        return p.getValueAsString("");
+    }
+
+    private void expect(JsonParser p, JsonToken expected) throws IOException {
+        JsonToken token = p.nextToken();
+        if (token != expected) {
+            throw new IOException("无效的SBOM JSON，期望 " + expected + " 但读到 " + token);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ObjectHandler {
+        void handle() throws IOException;
+    }
+}
@@ -0,0 +1,63 @@
+package com.platform.sbom.parser;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import com.platform.sbom.model.PackageURL;
+import com.platform.sbom.util.DependencyAdjacency;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 收集流式解析器产出的组件和依赖边，按引用分组为Dependency（重复的边只保留一条）
+ * 组件的PURL在收集时驻留，相同的PURL只解析一次
+ */
+public class ScanResultCollector implements SBOMStreamParser.Sink {
+
+    private final List<Component> components = new ArrayList<>();
+    private final DependencyAdjacency dependencies = new DependencyAdjacency();
+    private final PackageURL.Interner purls = new PackageURL.Interner();
+
+    @Override
+    public void component(Component component) {
+        purls.intern(component);
+        components.add(component);
+    }
+
+    @Override
+    public void dependsOn(String ref, String target) {
+        dependencies.addEdge(ref, target);
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    /**
+     * 输出与SyftService其他扫描方法一致的结果Map
+     * 如果没有找到依赖关系，创建基于组件的简单系统级依赖树
+     * @return 包含组件列表和依赖关系列表的Map
+     */
+    public Map<String, Object> toResult() {
+        List<Dependency> dependencyList = dependencies.toDependencies();
+        if (dependencyList.isEmpty() && !components.isEmpty()) {
+            Dependency rootDep = new Dependency();
+            rootDep.setRef("system");
+
+            List<String> allComponents = new ArrayList<>();
+            for (Component comp : components) {
+                allComponents.add(comp.getSbomRef());
+            }
+
+            rootDep.setDependsOn(allComponents);
+            dependencyList.add(rootDep);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("components", components);
+        result.put("dependencies", dependencyList);
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.platform.sbom.scanner;
+
+import com.platform.sbom.model.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 归档内容SHA-256到识别结果的索引
+ * 同一内容的归档无论出现在哪个路径，识别结果都相同，只有组件的filePath随位置变化，
+ * 因此索引中保存相对归档本身的路径后缀（归档自身为空串，嵌套归档为 :条目名）
+ */
+public interface ArtifactIndex {
+
+    /** 不做任何缓存的索引 */
+    ArtifactIndex NONE = new ArtifactIndex() {
+        @Override
+        public Optional<List<Component>> find(String sha256, String filePath) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void store(String sha256, String filePath, List<Component> components) {
+        }
+    };
+
+    /**
+     * 查找已识别过的归档
+     * @param filePath 归档当前所在路径，用于还原组件的filePath
+     * @return 命中时返回组件的新副本，调用方可以修改
+     */
+    Optional<List<Component>> find(String sha256, String filePath);
+
+    /**
+     * 记录归档的识别结果，不会修改传入的组件
+     * @param filePath 归档当前所在路径，组件的filePath都以它开头
+     */
+    void store(String sha256, String filePath, List<Component> components);
+}
@@ -0,0 +1,214 @@
+package com.platform.sbom.scanner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.platform.sbom.model.Component;
+import com.platform.sbom.util.LayerOverlay;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 单遍流式分析镜像tar，不向磁盘写任何内容
+ * - docker-archive：每个层（layer.tar或blobs/sha256/下的tar/tar.gz）作为嵌套流读取，
+ *   层内的jar（包括嵌套归档）、dpkg/apk数据库和os-release直接从流中解析；读到manifest.json后按层顺序
+ *   以overlay语义（whiteout、不透明目录、上层覆盖下层）组装结果
+ * - 普通根文件系统tar：整个tar视为一层
+ * 包含层但没有manifest.json的tar（如纯OCI布局）无法确定层顺序，不予分析
+ */
+@Log4j2
+public class ImageTarAnalyzer {
+
+    private static final int TAR_HEADER_BYTES = 512;
+    /** 不超过该大小的归档读入内存检查（含嵌套归档），更大的只顺序检查顶层 */
+    private static final long MAX_BUFFERED_ARCHIVE = 256L * 1024 * 1024;
+
+    private final JarInspector jarInspector;
+    private final OsPackageParser osPackageParser;
+    private final ObjectMapper objectMapper;
+
+    public ImageTarAnalyzer(JarInspector jarInspector, OsPackageParser osPackageParser, ObjectMapper objectMapper) {
+        this.jarInspector = jarInspector;
+        this.osPackageParser = osPackageParser;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 分析镜像tar流
+     * @param tar tar内容，由调用方关闭
+     * @return 最终文件系统中可见的组件
+     * @throws IOException 读取失败，或包含镜像层却没有manifest.json时抛出
+     */
+    public List<Component> analyze(InputStream tar) throws IOException {
+        Map<String, LayerResult> layers = new LinkedHashMap<>();
+        Map<String, String> links = new HashMap<>();
+        LayerResult rootfs = new LayerResult();
+        byte[] manifest = null;
+
+        TarArchiveInputStream outer = new TarArchiveInputStream(new NonClosingInputStream(tar));
+        TarArchiveEntry entry;
+        while ((entry = outer.getNextTarEntry()) != null) {
+            String name = entry.getName();
+            if (name.equals("manifest.json")) {
+                manifest = outer.readAllBytes();
+            } else if (entry.isFile() && isLayerName(name)) {
+                LayerResult layer = readLayer(outer);
+                if (layer != null) {
+                    layers.put(name, layer);
+                }
+            } else if (entry.isSymbolicLink() && isLayerName(name)) {
+                links.put(name, LayerOverlay.resolveLink(name, entry.getLinkName()));
+            } else {
+                // 不是docker-archive的层，按根文件系统中的条目处理
+                readEntry(rootfs, entry, outer);
+            }
+        }
+
+        List<LayerResult> ordered = new ArrayList<>();
+        if (manifest != null) {
+            JsonNode images = objectMapper.readTree(manifest);
+            if (images.isArray() && !images.isEmpty()) {
+                for (JsonNode layerName : images.get(0).path("Layers")) {
+                    String resolved = links.getOrDefault(layerName.asText(), layerName.asText());
+                    LayerResult layer = layers.get(resolved);
+                    if (layer == null) {
+                        log.warn("镜像tar中缺少层或层格式不受支持: {}", resolved);
+                        continue;
+                    }
+                    ordered.add(layer);
+                }
+            }
+        } else if (layers.isEmpty() && links.isEmpty()) {
+            ordered.add(rootfs);
+        } else {
+            // 没有manifest.json（如纯OCI布局）时无法确定层的顺序，按tar中的顺序叠加会错误地应用whiteout和覆盖
+            throw new IOException("不是docker-archive格式：缺少manifest.json");
+        }
+        return assemble(ordered);
+    }
+
+    private boolean isLayerName(String name) {
+        return name.endsWith("/layer.tar") || name.startsWith("blobs/sha256/");
+    }
+
+    /**
+     * 读取一个层：先查看头部判断是tar还是gzip压缩的tar，其他内容（如config）返回null
+     */
+    private LayerResult readLayer(InputStream entryStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(new NonClosingInputStream(entryStream), 64 * 1024);
+        buffered.mark(TAR_HEADER_BYTES);
+        byte[] head = buffered.readNBytes(TAR_HEADER_BYTES);
+        buffered.reset();
+
+        InputStream layerStream;
+        if (head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            layerStream = new GzipCompressorInputStream(buffered);
+        } else if (head.length == TAR_HEADER_BYTES
+                && new String(head, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            layerStream = buffered;
+        } else {
+            return null;
+        }
+
+        LayerResult layer = new LayerResult();
+        TarArchiveInputStream tais = new TarArchiveInputStream(layerStream);
+        TarArchiveEntry entry;
+        while ((entry = tais.getNextTarEntry()) != null) {
+            readEntry(layer, entry, tais);
+        }
+        return layer;
+    }
+
+    /**
+     * 处理层中的一个条目：记录路径、whiteout和不透明目录，并从流中识别组件
+     */
+    private void readEntry(LayerResult layer, TarArchiveEntry entry, InputStream in) {
+        String path = LayerOverlay.normalize(entry.getName());
+        if (path == null) {
+            return;
+        }
+        if (LayerOverlay.collectMarker(path, layer.opaqueDirs, layer.whiteouts) || entry.isDirectory()) {
+            return;
+        }
+        layer.paths.add(path);
+        if (!entry.isFile()) {
+            return;
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+
+        try {
+            if (JarInspector.isArchive(fileName) && entry.getSize() <= MAX_BUFFERED_ARCHIVE) {
+                // 读入内存后按中央目录检查，以便递归检查嵌套归档
+                ByteBuffer archive = ByteBuffer.wrap(in.readNBytes((int) entry.getSize()));
+                layer.components.addAll(jarInspector.inspect(archive, fileName, path));
+            } else if (JarInspector.isArchive(fileName)) {
+                layer.components.addAll(jarInspector.inspect(in, fileName, path));
+            } else if (path.equals(OsPackageParser.DPKG_STATUS)
+                    || (path.startsWith(OsPackageParser.DPKG_STATUS_DIR) && !fileName.contains("."))) {
+                layer.components.addAll(osPackageParser.parseDpkgStatus(in, path));
+            } else if (path.equals(OsPackageParser.APK_INSTALLED)) {
+                layer.components.addAll(osPackageParser.parseApkInstalled(in, path));
+            } else if (OsPackageParser.OS_RELEASE.contains(path)) {
+                layer.osReleases.put(path, osPackageParser.parseOsRelease(in));
+            }
+        } catch (IOException e) {
+            log.debug("无法解析镜像中的文件 {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 按overlay语义组装：组件所在文件被上层覆盖或删除时不保留
+     */
+    private List<Component> assemble(List<LayerResult> ordered) {
+        LayerOverlay overlay = new LayerOverlay();
+        for (LayerResult layer : ordered) {
+            overlay.apply(layer.opaqueDirs, layer.whiteouts, layer.paths);
+        }
+
+        List<Component> components = new ArrayList<>();
+        Map<String, String> osRelease = Collections.emptyMap();
+        for (int i = 0; i < ordered.size(); i++) {
+            LayerResult layer = ordered.get(i);
+            for (Component comp : layer.components) {
+                if (overlay.isVisible(outerPath(comp.getFilePath()), i)) {
+                    components.add(comp);
+                }
+            }
+            for (Map.Entry<String, Map<String, String>> release : layer.osReleases.entrySet()) {
+                if (overlay.isVisible(release.getKey(), i)) {
+                    osRelease = release.getValue();
+                }
+            }
+        }
+        osPackageParser.applyDistro(components, osRelease);
+        log.info("镜像tar共 {} 层，识别出 {} 个组件", ordered.size(), components.size());
+        return components;
+    }
+
+    /**
+     * 嵌套归档中组件的路径形如 /app.jar:BOOT-INF/lib/x.jar，可见性由最外层文件决定
+     */
+    private String outerPath(String filePath) {
+        int colon = filePath.indexOf(':');
+        return colon >= 0 ? filePath.substring(0, colon) : filePath;
+    }
+
+    /**
+     * 一层的分析结果，只保存路径和组件，不保存文件内容
+     */
+    private static class LayerResult {
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> whiteouts = new ArrayList<>();
+        private final List<String> opaqueDirs = new ArrayList<>();
+        private final List<Component> components = new ArrayList<>();
+        private final Map<String, Map<String, String>> osReleases = new HashMap<>();
+    }
+}
@@ -0,0 +1,366 @@
+package com.platform.sbom.scanner;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.PackageURL;
+import com.platform.sbom.util.ContentDigests;
+import com.platform.sbom.util.MappedBuffers;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 识别JVM归档（jar/war/ear）中的构件
+ * 每个 META-INF/maven/.../pom.properties 对应一个组件（shaded jar中可能有多个），
+ * 没有pom.properties时使用MANIFEST，都没有时从文件名推断。
+ * 磁盘上的归档通过内存映射读取，并递归检查 BOOT-INF/lib、WEB-INF/lib 等处嵌套的归档
+ */
+@Log4j2
+public class JarInspector {
+
+    /** 识别逻辑的版本，变化时递增，使制品索引中的旧条目失效 */
+    public static final int VERSION = 1;
+
+    private static final Pattern POM_PROPERTIES = Pattern.compile("META-INF/maven/[^/]+/[^/]+/pom\\.properties");
+    /** 嵌套层数上限，EAR→WAR→jar→shaded jar 足够 */
+    private static final int MAX_NESTING = 4;
+    /** 单个嵌套归档解压后的大小上限 */
+    private static final long MAX_NESTED_SIZE = 512L * 1024 * 1024;
+    /** MANIFEST.MF、pom.properties 的大小上限，超过的视为损坏 */
+    private static final long MAX_METADATA_SIZE = 1024 * 1024;
+    /** 嵌套归档数量达到该值时并行检查 */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final ArtifactIndex index;
+
+    public JarInspector() {
+        this(ArtifactIndex.NONE);
+    }
+
+    public JarInspector(ArtifactIndex index) {
+        this.index = index;
+    }
+
+    public static boolean isArchive(String fileName) {
+        String name = fileName.toLowerCase();
+        return name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".ear");
+    }
+
+    public static boolean isPomProperties(String entryName) {
+        return POM_PROPERTIES.matcher(entryName).matches();
+    }
+
+    /**
+     * 通过内存映射读取磁盘上归档的中央目录，并原地递归检查嵌套的归档
+     * 映射后先计算SHA-256查制品索引，命中时不再解析
+     * 无法映射时（如超过2GB）退回JarFile，只检查顶层
+     * @param archive 归档文件
+     * @param filePath 写入组件的文件路径
+     */
+    public List<Component> inspect(Path archive, String filePath) {
+        String fileName = archive.getFileName().toString();
+        MappedByteBuffer mapped;
+        try {
+            mapped = MappedBuffers.map(archive);
+        } catch (IOException e) {
+            return inspectJarFile(archive, filePath);
+        }
+        try {
+            return inspect(mapped, fileName, filePath);
+        } finally {
+            MappedBuffers.unmap(mapped);
+        }
+    }
+
+    /**
+     * 检查内存中的归档（映射的文件或外层归档中的条目），嵌套的jar/war/ear直接在缓冲区上递归检查，
+     * 不解压到临时文件。嵌套组件的filePath为 外层路径:条目名
+     * @param archive 归档内容
+     * @param fileName 归档文件名，用于兜底推断
+     * @param filePath 写入组件的文件路径
+     */
+    public List<Component> inspect(ByteBuffer archive, String fileName, String filePath) {
+        return inspect(archive, fileName, filePath, 0);
+    }
+
+    private List<Component> inspect(ByteBuffer archive, String fileName, String filePath, int depth) {
+        // 先按内容查索引，命中时不再解析归档
+        String sha256 = ContentDigests.sha256(archive);
+        Optional<List<Component>> known = index.find(sha256, filePath);
+        if (known.isPresent()) {
+            return known.get();
+        }
+        List<Component> found = parse(archive, fileName, filePath, sha256, depth);
+        index.store(sha256, filePath, found);
+        return found;
+    }
+
+    private List<Component> parse(ByteBuffer archive, String fileName, String filePath, String sha256, int depth) {
+        ZipIndex zip;
+        try {
+            zip = ZipIndex.open(archive);
+        } catch (IOException e) {
+            log.debug("无法读取归档 {}: {}", filePath, e.getMessage());
+            return withDigest(componentsFor(Collections.emptyList(), null, fileName, filePath), sha256);
+        }
+
+        List<Properties> poms = new ArrayList<>();
+        Manifest manifest = null;
+        List<ZipIndex.Entry> nested = new ArrayList<>();
+        for (ZipIndex.Entry entry : zip.entries()) {
+            String name = entry.getName();
+            try {
+                if (isPomProperties(name)) {
+                    poms.add(loadProperties(new ByteBufferInputStream(zip.read(entry, MAX_METADATA_SIZE))));
+                } else if (name.equals(JarFile.MANIFEST_NAME)) {
+                    manifest = new Manifest(new ByteBufferInputStream(zip.read(entry, MAX_METADATA_SIZE)));
+                } else if (!entry.isDirectory() && isArchive(name) && depth < MAX_NESTING
+                        && entry.getSize() <= MAX_NESTED_SIZE) {
+                    nested.add(entry);
+                }
+            } catch (IOException e) {
+                log.debug("无法读取归档 {} 中的 {}: {}", filePath, name, e.getMessage());
+            }
+        }
+
+        List<Component> found = withDigest(componentsFor(poms, manifest, fileName, filePath), sha256);
+        // WAR/EAR、Spring Boot fat jar中嵌套归档较多时并行检查；在扫描引擎的ForkJoinPool中调用时并行流使用同一个池
+        (nested.size() >= PARALLEL_THRESHOLD ? nested.parallelStream() : nested.stream())
+                .map(entry -> inspectNested(zip, entry, filePath, depth))
+                .forEachOrdered(found::addAll);
+        return found;
+    }
+
+    private List<Component> inspectNested(ZipIndex zip, ZipIndex.Entry entry, String outerPath, int depth) {
+        String name = entry.getName();
+        String nestedPath = outerPath + ":" + name;
+        try {
+            return inspect(zip.read(entry, MAX_NESTED_SIZE), name.substring(name.lastIndexOf('/') + 1), nestedPath, depth + 1);
+        } catch (IOException e) {
+            log.debug("无法读取嵌套归档 {}: {}", nestedPath, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<Component> inspectJarFile(Path archive, String filePath) {
+        String sha256;
+        try {
+            sha256 = ContentDigests.sha256(archive);
+        } catch (IOException e) {
+            sha256 = null;
+        }
+        if (sha256 != null) {
+            Optional<List<Component>> known = index.find(sha256, filePath);
+            if (known.isPresent()) {
+                return known.get();
+            }
+        }
+        List<Properties> poms = new ArrayList<>();
+        Manifest manifest = null;
+        try (JarFile jf = new JarFile(archive.toFile(), false)) {
+            Enumeration<JarEntry> entries = jf.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (isPomProperties(entry.getName())) {
+                    try (InputStream in = jf.getInputStream(entry)) {
+                        poms.add(loadProperties(in));
+                    }
+                }
+            }
+            manifest = jf.getManifest();
+        } catch (IOException e) {
+            log.debug("无法读取归档 {}: {}", archive, e.getMessage());
+        }
+        List<Component> found = withDigest(componentsFor(poms, manifest, archive.getFileName().toString(), filePath), sha256);
+        if (sha256 != null) {
+            index.store(sha256, filePath, found);
+        }
+        return found;
+    }
+
+    private List<Component> withDigest(List<Component> components, String sha256) {
+        for (Component c : components) {
+            c.setSha256(sha256);
+        }
+        return components;
+    }
+
+    /**
+     * 顺序读取流中的归档（如tar条目），不落盘
+     * @param in 归档内容，不会被关闭
+     * @param fileName 归档文件名，用于兜底推断
+     * @param filePath 写入组件的文件路径
+     */
+    public List<Component> inspect(InputStream in, String fileName, String filePath) {
+        List<Properties> poms = new ArrayList<>();
+        Manifest manifest = null;
+        try {
+            JarInputStream jis = new JarInputStream(new NonClosingInputStream(in), false);
+            JarEntry entry;
+            while ((entry = jis.getNextJarEntry()) != null) {
+                if (isPomProperties(entry.getName())) {
+                    poms.add(loadProperties(jis));
+                }
+            }
+            manifest = jis.getManifest();
+        } catch (IOException e) {
+            log.debug("无法读取归档 {}: {}", filePath, e.getMessage());
+        }
+        return componentsFor(poms, manifest, fileName, filePath);
+    }
+
+    /**
+     * 根据已读取的pom.properties和MANIFEST生成组件
+     */
+    public List<Component> componentsFor(List<Properties> poms, Manifest manifest, String fileName, String filePath) {
+        List<Component> found = new ArrayList<>();
+        for (Properties props : poms) {
+            Component c = parsePomProperties(props);
+            if (c != null) {
+                found.add(c);
+            }
+        }
+
+        if (found.isEmpty() && manifest != null) {
+            Component c = parseJarManifest(manifest);
+            if (c != null) {
+                found.add(c);
+            }
+        } else if (found.size() == 1 && manifest != null) {
+            // 单一构件的jar可用MANIFEST补充许可证和主页
+            Component c = found.get(0);
+            c.setLicense(firstNonNull(manifest.getMainAttributes().getValue("Bundle-License"),
+                    manifest.getMainAttributes().getValue("Implementation-License")));
+            c.setHomePage(firstNonNull(manifest.getMainAttributes().getValue("Bundle-DocURL"),
+                    manifest.getMainAttributes().getValue("Implementation-URL")));
+        }
+        if (found.isEmpty()) {
+            Component c = parseJarFilename(fileName);
+            if (c != null) {
+                found.add(c);
+            }
+        }
+        for (Component c : found) {
+            // 记录文件路径
+            c.setFilePath(filePath);
+        }
+        return found;
+    }
+
+    public Properties loadProperties(InputStream in) throws IOException {
+        Properties props = new Properties();
+        props.load(new NonClosingInputStream(in));
+        return props;
+    }
+
+    private Component parsePomProperties(Properties props) {
+        String groupId = props.getProperty("groupId");
+        String artifactId = props.getProperty("artifactId");
+        String version = props.getProperty("version");
+        if (groupId == null || artifactId == null || version == null) {
+            return null;
+        }
+        Component c = new Component();
+        PackageURL purl = PackageURL.of("maven", groupId.trim(), artifactId.trim(), version.trim());
+        c.setSbomRef(purl.toString());
+        c.setName(artifactId.trim());
+        c.setVersion(version.trim());
+        c.setType("library");
+        c.setDescription("From pom.properties");
+        c.setPackageUrl(purl);
+        return c;
+    }
+
+    private String firstNonNull(String a, String b) {
+        return a != null ? a : b;
+    }
+
+    private Component parseJarManifest(Manifest m) {
+        String t = m.getMainAttributes().getValue("Implementation-Title"),
+                v = m.getMainAttributes().getValue("Implementation-Version");
+        if (t != null && v != null) {
+            Component c = new Component();
+            c.setSbomRef("pkg:" + t + "@" + v);
+            c.setName(t);
+            c.setVersion(v);
+            c.setType("library");
+            c.setDescription("From MANIFEST");
+
+            // 增强的元数据收集
+            c.setLicense(m.getMainAttributes().getValue("Implementation-License"));
+            c.setVendor(m.getMainAttributes().getValue("Implementation-Vendor"));
+            c.setHomePage(m.getMainAttributes().getValue("Implementation-URL"));
+            c.setSourceRepo(extractSourceRepo(m));
+
+            // 尝试构建 purl
+            if (c.getPurl() == null && t != null && v != null) {
+                String normalized = normalizePackageName(t);
+                c.setPackageUrl(PackageURL.of("maven", normalized, normalized, v));
+            }
+
+            return c;
+        }
+        return null;
+    }
+
+    private Component parseJarFilename(String filename) {
+        String name = filename.replaceAll("\\.(jar|war|ear)$", "");
+        int idx = name.lastIndexOf('-');
+        if (idx > 0) {
+            Component c = new Component();
+            c.setSbomRef("pkg:" + name);
+            c.setName(name.substring(0, idx));
+            c.setVersion(name.substring(idx+1));
+            c.setType("library");
+            c.setDescription("From filename");
+
+            // 尝试检测 Maven 坐标
+            Pattern p = Pattern.compile("(.+)-([0-9].+)");
+            Matcher m = p.matcher(name);
+            if (m.matches()) {
+                String artifactId = m.group(1);
+                String version = m.group(2);
+                // 尝试从文件名猜测 groupId
+                String groupId = guessGroupId(artifactId);
+                c.setPackageUrl(PackageURL.of("maven", groupId, artifactId, version));
+            }
+
+            return c;
+        }
+        return null;
+    }
+
+    // 从 MANIFEST 中提取源代码库信息
+    private String extractSourceRepo(Manifest manifest) {
+        String scm = manifest.getMainAttributes().getValue("SCM-URL");
+        if (scm != null) return scm;
+
+        String url = manifest.getMainAttributes().getValue("Implementation-URL");
+        if (url != null && (url.contains("github.com") || url.contains("gitlab") || url.contains("bitbucket"))) {
+            return url;
+        }
+
+        return null;
+    }
+
+    // normalize package name for purl
+    private String normalizePackageName(String name) {
+        return name.toLowerCase().replace(" ", "-");
+    }
+
+    // 基于常见命名约定猜测 groupId
+    private String guessGroupId(String artifactId) {
+        // 默认使用 artifactId 作为 groupId
+        return artifactId;
+    }
+}
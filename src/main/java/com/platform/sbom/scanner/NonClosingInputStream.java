@@ -0,0 +1,18 @@
+package com.platform.sbom.scanner;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * 关闭时不关闭底层流，用于在tar条目等外层流上叠加读取器
+ */
+class NonClosingInputStream extends FilterInputStream {
+
+    NonClosingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public void close() {
+    }
+}
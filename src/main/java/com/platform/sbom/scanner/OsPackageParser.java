@@ -0,0 +1,184 @@
+package com.platform.sbom.scanner;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.PackageURL;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 解析操作系统包数据库：dpkg（/var/lib/dpkg/status）和apk（/lib/apk/db/installed）
+ * 以及 /etc/os-release。只顺序读取，输入可以直接是tar条目流
+ */
+public class OsPackageParser {
+
+    public static final String DPKG_STATUS = "/var/lib/dpkg/status";
+    public static final String DPKG_STATUS_DIR = "/var/lib/dpkg/status.d/";
+    public static final String APK_INSTALLED = "/lib/apk/db/installed";
+    public static final Set<String> OS_RELEASE = Set.of("/etc/os-release", "/usr/lib/os-release");
+
+    /**
+     * 解析dpkg status（或distroless镜像中 /var/lib/dpkg/status.d/ 下的单包文件），只保留已安装的包
+     * @param in 文件内容，不会被关闭
+     * @param filePath 写入组件的文件路径
+     */
+    public List<Component> parseDpkgStatus(InputStream in, String filePath) throws IOException {
+        List<Component> result = new ArrayList<>();
+        for (Map<String, String> stanza : readStanzas(in)) {
+            String name = stanza.get("Package");
+            String version = stanza.get("Version");
+            // status.d中的文件没有Status字段，视为已安装
+            String status = stanza.getOrDefault("Status", "install ok installed");
+            if (name == null || version == null || !status.endsWith(" installed")) {
+                continue;
+            }
+            String arch = stanza.get("Architecture");
+            PackageURL purl = PackageURL.of("deb", "debian", name, version, arch != null ? "arch=" + arch : null);
+            Component c = new Component();
+            c.setSbomRef(purl.toString());
+            c.setName(name);
+            c.setVersion(version);
+            c.setType("library");
+            c.setPackageUrl(purl);
+            c.setVendor(stanza.get("Maintainer"));
+            c.setHomePage(stanza.get("Homepage"));
+            c.setDescription(firstLine(stanza.get("Description")));
+            c.setFilePath(filePath);
+            result.add(c);
+        }
+        return result;
+    }
+
+    /**
+     * 解析apk installed数据库
+     * @param in 文件内容，不会被关闭
+     * @param filePath 写入组件的文件路径
+     */
+    public List<Component> parseApkInstalled(InputStream in, String filePath) throws IOException {
+        List<Component> result = new ArrayList<>();
+        for (Map<String, String> stanza : readStanzas(in)) {
+            String name = stanza.get("P");
+            String version = stanza.get("V");
+            if (name == null || version == null) {
+                continue;
+            }
+            String arch = stanza.get("A");
+            PackageURL purl = PackageURL.of("apk", "alpine", name, version, arch != null ? "arch=" + arch : null);
+            Component c = new Component();
+            c.setSbomRef(purl.toString());
+            c.setName(name);
+            c.setVersion(version);
+            c.setType("library");
+            c.setPackageUrl(purl);
+            c.setLicense(stanza.get("L"));
+            c.setVendor(stanza.get("m"));
+            c.setHomePage(stanza.get("U"));
+            c.setDescription(stanza.get("T"));
+            c.setFilePath(filePath);
+            result.add(c);
+        }
+        return result;
+    }
+
+    /**
+     * 解析os-release
+     * @return 键值对，值已去掉引号
+     */
+    public Map<String, String> parseOsRelease(InputStream in) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new NonClosingInputStream(in), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int eq = line.indexOf('=');
+            if (eq <= 0 || line.startsWith("#")) {
+                continue;
+            }
+            String value = line.substring(eq + 1).trim();
+            if (value.length() >= 2 && (value.startsWith("\"") || value.startsWith("'"))) {
+                value = value.substring(1, value.length() - 1);
+            }
+            values.put(line.substring(0, eq).trim(), value);
+        }
+        return values;
+    }
+
+    /**
+     * 按os-release中的发行版修正操作系统包的PURL，与Syft扫描整个镜像时的结果一致：
+     * deb/apk包的默认命名空间（debian、alpine）或缺失的命名空间（Syft单独扫描不含os-release的镜像层时）
+     * 替换为发行版ID（如 ubuntu、wolfi），并补充 distro=ID-VERSION_ID 限定符。
+     * sbomRef原本就是PURL时（本类解析的组件）随之更新，否则保持不变，以免破坏依赖关系中的引用
+     */
+    public void applyDistro(List<Component> components, Map<String, String> osRelease) {
+        String distro = osRelease.get("ID");
+        if (distro == null || distro.isEmpty()) {
+            return;
+        }
+        String versionId = osRelease.get("VERSION_ID");
+        for (Component c : components) {
+            PackageURL purl = c.getPackageUrl();
+            if (purl == null || !(purl.isType("deb") || purl.isType("apk") || purl.isType("rpm"))) {
+                continue;
+            }
+            String namespace = purl.getNamespace();
+            PackageURL fixed = purl;
+            if (namespace == null
+                    || (purl.isType("deb") && "debian".equals(namespace))
+                    || (purl.isType("apk") && "alpine".equals(namespace))) {
+                fixed = fixed.withNamespace(distro);
+            }
+            if (versionId != null && !versionId.isEmpty()) {
+                fixed = fixed.withQualifier("distro", distro + "-" + versionId);
+            }
+            if (fixed != purl) {
+                if (purl.toString().equals(c.getSbomRef())) {
+                    c.setSbomRef(fixed.toString());
+                }
+                c.setPackageUrl(fixed);
+            }
+        }
+    }
+
+    /**
+     * 读取以空行分隔的 "键: 值" 段落，以空白开头的行是上一个字段的续行
+     */
+    private List<Map<String, String>> readStanzas(InputStream in) throws IOException {
+        List<Map<String, String>> stanzas = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new NonClosingInputStream(in), StandardCharsets.UTF_8));
+        Map<String, String> current = new HashMap<>();
+        String lastKey = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (!current.isEmpty()) {
+                    stanzas.add(current);
+                    current = new HashMap<>();
+                }
+                lastKey = null;
+            } else if ((line.startsWith(" ") || line.startsWith("\t")) && lastKey != null) {
+                current.put(lastKey, current.get(lastKey) + "\n" + line.trim());
+            } else {
+                int sep = line.indexOf(':');
+                if (sep > 0) {
+                    lastKey = line.substring(0, sep);
+                    current.put(lastKey, line.substring(sep + 1).trim());
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            stanzas.add(current);
+        }
+        return stanzas;
+    }
+
+    private String firstLine(String text) {
+        if (text == null) {
+            return null;
+        }
+        int nl = text.indexOf('\n');
+        return nl >= 0 ? text.substring(0, nl) : text;
+    }
+}
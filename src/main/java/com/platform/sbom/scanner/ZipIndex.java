@@ -0,0 +1,250 @@
+package com.platform.sbom.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 基于ByteBuffer的zip中央目录读取器
+ * 缓冲区可以是内存映射的文件（见MappedBuffers），也可以是外层归档中某个条目的切片，因此嵌套的jar无需解压到临时文件：
+ * STORED条目直接返回原缓冲区的切片，DEFLATED条目在内存中解压。
+ * 只读取中央目录和被请求的条目，不会顺序扫描整个归档。
+ */
+public final class ZipIndex {
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int EOCD_MIN = 22;
+    private static final int MAX_COMMENT = 0xffff;
+
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+
+    private final ByteBuffer buffer;
+    private final List<Entry> entries;
+
+    private ZipIndex(ByteBuffer buffer, List<Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * 解析缓冲区中的zip中央目录
+     * @param source 归档内容，不会修改其position/limit
+     * @throws IOException 不是有效的zip时抛出
+     */
+    public static ZipIndex open(ByteBuffer source) throws IOException {
+        ByteBuffer buf = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buf.clear();
+        int size = buf.capacity();
+        int eocd = findEocd(buf, size);
+        if (eocd < 0) {
+            throw new IOException("未找到zip中央目录结束记录");
+        }
+
+        long count = Short.toUnsignedInt(buf.getShort(eocd + 10));
+        long cenSize = Integer.toUnsignedLong(buf.getInt(eocd + 12));
+        long cenOffset = Integer.toUnsignedLong(buf.getInt(eocd + 16));
+        // 中央目录紧挨着结束记录，归档起点 = 结束记录位置 - 中央目录大小 - 中央目录偏移，
+        // 归档前面有其他数据（如带启动脚本的可执行jar）时该值大于0，记录中的偏移都要加上它
+        long endPos = eocd;
+        int locator = eocd - 20;
+        if ((count == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL)
+                && locator >= 0 && buf.getInt(locator) == ZIP64_LOCATOR_SIG) {
+            int zip64Eocd = findZip64Eocd(buf, locator);
+            if (zip64Eocd >= 0) {
+                count = buf.getLong(zip64Eocd + 32);
+                cenSize = buf.getLong(zip64Eocd + 40);
+                cenOffset = buf.getLong(zip64Eocd + 48);
+                endPos = zip64Eocd;
+            }
+        }
+        long base = endPos - cenSize - cenOffset;
+        if (cenSize < 0 || cenOffset < 0 || base < 0) {
+            throw new IOException("zip中央目录超出归档范围");
+        }
+
+        List<Entry> entries = new ArrayList<>((int) Math.min(count, 65536));
+        int pos = (int) (base + cenOffset);
+        int end = (int) endPos;
+        while (pos + 46 <= end && buf.getInt(pos) == CEN_SIG) {
+            int method = Short.toUnsignedInt(buf.getShort(pos + 10));
+            long compressedSize = Integer.toUnsignedLong(buf.getInt(pos + 20));
+            long uncompressedSize = Integer.toUnsignedLong(buf.getInt(pos + 24));
+            int nameLen = Short.toUnsignedInt(buf.getShort(pos + 28));
+            int extraLen = Short.toUnsignedInt(buf.getShort(pos + 30));
+            int commentLen = Short.toUnsignedInt(buf.getShort(pos + 32));
+            long localOffset = Integer.toUnsignedLong(buf.getInt(pos + 42));
+            if (pos + 46 + nameLen > end) {
+                break;
+            }
+            byte[] nameBytes = new byte[nameLen];
+            buf.get(pos + 46, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            // ZIP64扩展字段按 原始大小、压缩大小、本地头偏移 的顺序只包含溢出的值
+            int extra = pos + 46 + nameLen;
+            int extraEnd = Math.min(extra + extraLen, end);
+            while (extra + 4 <= extraEnd) {
+                int tag = Short.toUnsignedInt(buf.getShort(extra));
+                int len = Short.toUnsignedInt(buf.getShort(extra + 2));
+                if (tag == 0x0001) {
+                    int p = extra + 4;
+                    if (uncompressedSize == 0xffffffffL && p + 8 <= extra + 4 + len) {
+                        uncompressedSize = buf.getLong(p);
+                        p += 8;
+                    }
+                    if (compressedSize == 0xffffffffL && p + 8 <= extra + 4 + len) {
+                        compressedSize = buf.getLong(p);
+                        p += 8;
+                    }
+                    if (localOffset == 0xffffffffL && p + 8 <= extra + 4 + len) {
+                        localOffset = buf.getLong(p);
+                    }
+                }
+                extra += 4 + len;
+            }
+
+            entries.add(new Entry(name, method, compressedSize, uncompressedSize, base + localOffset));
+            pos += 46 + nameLen + extraLen + commentLen;
+        }
+        return new ZipIndex(buf, Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * 定位ZIP64结束记录：通常紧挨在定位器之前，否则使用定位器中记录的偏移（归档前没有其他数据时有效）
+     * @return 记录位置，找不到时返回-1
+     */
+    private static int findZip64Eocd(ByteBuffer buf, int locator) {
+        int adjacent = locator - 56;
+        if (adjacent >= 0 && buf.getInt(adjacent) == ZIP64_EOCD_SIG) {
+            return adjacent;
+        }
+        long recorded = buf.getLong(locator + 8);
+        if (recorded >= 0 && recorded + 56 <= locator && buf.getInt((int) recorded) == ZIP64_EOCD_SIG) {
+            return (int) recorded;
+        }
+        return -1;
+    }
+
+    private static int findEocd(ByteBuffer buf, int size) {
+        int stop = Math.max(0, size - EOCD_MIN - MAX_COMMENT);
+        for (int pos = size - EOCD_MIN; pos >= stop; pos--) {
+            if (buf.getInt(pos) == EOCD_SIG) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * 读取条目内容
+     * STORED条目返回原缓冲区的只读切片（零拷贝），DEFLATED条目在内存中解压
+     * @throws IOException 条目损坏或压缩方法不支持时抛出
+     */
+    public ByteBuffer read(Entry entry) throws IOException {
+        return read(entry, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 读取条目内容，中央目录声明的大小超过上限时不读取
+     * 解压缓冲区按声明的大小分配，读取不可信归档中的小文件时应传入较小的上限
+     * @param maxSize 允许的最大原始大小
+     * @throws IOException 条目过大、损坏或压缩方法不支持时抛出
+     */
+    public ByteBuffer read(Entry entry, long maxSize) throws IOException {
+        if (entry.getSize() > maxSize || entry.getSize() > Integer.MAX_VALUE) {
+            throw new IOException("条目过大: " + entry.getName() + " (" + entry.getSize() + " 字节)");
+        }
+        long loc = entry.getLocalHeaderOffset();
+        if (loc + 30 > buffer.capacity() || buffer.getInt((int) loc) != LOC_SIG) {
+            throw new IOException("无效的本地文件头: " + entry.getName());
+        }
+        int nameLen = Short.toUnsignedInt(buffer.getShort((int) loc + 26));
+        int extraLen = Short.toUnsignedInt(buffer.getShort((int) loc + 28));
+        long dataStart = loc + 30 + nameLen + extraLen;
+        if (dataStart + entry.getCompressedSize() > buffer.capacity()) {
+            throw new IOException("条目数据超出归档范围: " + entry.getName());
+        }
+        ByteBuffer data = buffer.slice((int) dataStart, (int) entry.getCompressedSize()).asReadOnlyBuffer();
+
+        if (entry.getMethod() == STORED) {
+            return data;
+        }
+        if (entry.getMethod() != DEFLATED) {
+            throw new IOException("不支持的压缩方法 " + entry.getMethod() + ": " + entry.getName());
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            ByteBuffer out = ByteBuffer.allocate((int) entry.getSize());
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            out.flip();
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("解压条目失败: " + entry.getName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 中央目录中的一个条目
+     */
+    public static final class Entry {
+        private final String name;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+    }
+}
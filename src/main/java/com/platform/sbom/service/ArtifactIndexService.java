@@ -0,0 +1,90 @@
+package com.platform.sbom.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.platform.sbom.model.Component;
+import com.platform.sbom.mongo.ArtifactIndexDocument;
+import com.platform.sbom.mongo.ArtifactIndexDocumentRepository;
+import com.platform.sbom.scanner.ArtifactIndex;
+import com.platform.sbom.scanner.JarInspector;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 归档SHA-256索引：内存LRU在前，MongoDB持久化在后
+ * 内存中保存组件列表的JSON（filePath为相对归档的后缀），每次命中都反序列化出新对象并补上当前路径
+ */
+@Log4j2
+@Service
+public class ArtifactIndexService implements ArtifactIndex {
+
+    private static final TypeReference<List<Component>> COMPONENT_LIST = new TypeReference<>() {};
+
+    private final ArtifactIndexDocumentRepository indexRepo;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> memory;
+
+    public ArtifactIndexService(ArtifactIndexDocumentRepository indexRepo, ObjectMapper objectMapper,
+                                @Value("${scanner.artifact-index.memory-entries:10000}") int memoryEntries) {
+        this.indexRepo = indexRepo;
+        this.objectMapper = objectMapper;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+    }
+
+    @Override
+    public Optional<List<Component>> find(String sha256, String filePath) {
+        String json = memory.get(sha256);
+        if (json == null) {
+            try {
+                Optional<ArtifactIndexDocument> doc = indexRepo.findById(sha256);
+                if (doc.isEmpty() || doc.get().getInspectorVersion() != JarInspector.VERSION) {
+                    return Optional.empty();
+                }
+                json = doc.get().getComponentsJson();
+                memory.put(sha256, json);
+            } catch (RuntimeException e) {
+                log.warn("读取制品索引失败: {}", e.getMessage());
+                return Optional.empty();
+            }
+        }
+        try {
+            List<Component> components = objectMapper.readValue(json, COMPONENT_LIST);
+            for (Component c : components) {
+                c.setFilePath(filePath + (c.getFilePath() != null ? c.getFilePath() : ""));
+            }
+            return Optional.of(components);
+        } catch (JsonProcessingException e) {
+            log.warn("制品索引条目 {} 无法解析: {}", sha256, e.getMessage());
+            memory.remove(sha256);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void store(String sha256, String filePath, List<Component> components) {
+        try {
+            ArrayNode relative = objectMapper.valueToTree(components);
+            for (JsonNode node : relative) {
+                String path = node.path("filePath").asText("");
+                ((ObjectNode) node).put("filePath", path.startsWith(filePath) ? path.substring(filePath.length()) : "");
+            }
+            String json = objectMapper.writeValueAsString(relative);
+            memory.put(sha256, json);
+            indexRepo.save(new ArtifactIndexDocument(sha256, JarInspector.VERSION, json));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("写入制品索引失败: {}", e.getMessage());
+        }
+    }
+}
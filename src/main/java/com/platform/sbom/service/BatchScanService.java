@@ -0,0 +1,201 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.SBOM;
+import com.platform.sbom.model.ScanBatch;
+import com.platform.sbom.model.ScanBatch.ImageResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量扫描容器镜像
+ * 先并发把所有引用解析为内容摘要，摘要相同的引用归为一组只扫描一次；各组在并行度受限的线程池中扫描，
+ * 整批耗时接近最慢的几个镜像而不是所有镜像之和。标签在解析时固定为 repo@sha256:摘要，扫描的正是记录的摘要。
+ * 线程池的等待队列有容量上限，剩余容量不足以容纳整批镜像时拒绝提交。
+ * docker-archive:引用只能指向配置的镜像tar目录中的文件。
+ */
+@Log4j2
+@Service
+public class BatchScanService {
+
+    private final SBOMService sbomService;
+    private final SyftService syftService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ScanBatch> batches = new ConcurrentHashMap<>();
+    private final Path archiveDir;
+    private final int maxImages;
+    private final int maxRetainedBatches;
+
+    public BatchScanService(SBOMService sbomService, SyftService syftService,
+                            @Value("${sbom.batch.parallelism:4}") int parallelism,
+                            @Value("${sbom.batch.queue-capacity:400}") int queueCapacity,
+                            @Value("${sbom.batch.max-images:200}") int maxImages,
+                            @Value("${sbom.batch.max-retained:100}") int maxRetainedBatches,
+                            @Value("${sbom.batch.archive-dir:}") String archiveDir) {
+        this.sbomService = sbomService;
+        this.syftService = syftService;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "sbom-batch-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxImages = maxImages;
+        this.maxRetainedBatches = maxRetainedBatches;
+        this.archiveDir = archiveDir.isBlank() ? null : Paths.get(archiveDir).toAbsolutePath().normalize();
+        log.info("批量镜像扫描并行度: {}，队列容量: {}", parallelism, queueCapacity);
+    }
+
+    /**
+     * 提交一批镜像
+     * @param name 批次名称，作为各SBOM名称的前缀，可为null
+     * @param references 镜像引用：registry/本地docker引用，或 docker-archive:相对镜像tar目录的文件名
+     * @param format 请求的格式
+     * @return 已提交的批次，通过find查询各镜像的进度
+     * @throws IllegalArgumentException 引用为空、超过数量上限或docker-archive路径非法时抛出
+     * @throws RejectedExecutionException 等待队列的剩余容量不足以容纳这批镜像时抛出
+     */
+    public ScanBatch submit(String name, List<String> references, String format) {
+        if (references == null || references.isEmpty()) {
+            throw new IllegalArgumentException("镜像列表为空");
+        }
+        if (references.size() > maxImages) {
+            throw new IllegalArgumentException("一批最多 " + maxImages + " 个镜像");
+        }
+        List<String> normalized = new ArrayList<>(references.size());
+        for (String reference : references) {
+            if (reference == null || reference.isBlank()) {
+                throw new IllegalArgumentException("镜像引用不能为空");
+            }
+            normalized.add(normalizeReference(reference));
+        }
+
+        if (executor.getQueue().remainingCapacity() < normalized.size()) {
+            log.warn("批量扫描队列已满，拒绝 {} 个镜像", normalized.size());
+            throw new RejectedExecutionException("批量扫描队列已满");
+        }
+
+        evictFinishedBatches();
+        ScanBatch batch = new ScanBatch(name, references, normalized);
+        batches.put(batch.getId(), batch);
+
+        // 摘要解析（docker inspect、tar哈希）也在受限线程池中并发执行，全部完成后再分组调度扫描
+        CompletableFuture<?>[] resolves = new CompletableFuture[batch.getImages().size()];
+        try {
+            for (int i = 0; i < resolves.length; i++) {
+                ImageResult image = batch.getImages().get(i);
+                resolves[i] = CompletableFuture.runAsync(() -> resolve(image), executor);
+            }
+        } catch (RejectedExecutionException e) {
+            // 与其他批次并发提交时队列可能在检查之后被占满
+            batches.remove(batch.getId());
+            throw e;
+        }
+        CompletableFuture.allOf(resolves).whenComplete((v, e) -> schedule(batch, format));
+        log.info("批量扫描 {} 已提交: {} 个镜像引用", batch.getId(), normalized.size());
+        return batch;
+    }
+
+    public Optional<ScanBatch> find(String id) {
+        return Optional.ofNullable(batches.get(id));
+    }
+
+    /**
+     * 把引用固定到摘要并记录摘要；摘要从固定后的引用解析，保证去重用的摘要就是之后扫描的内容
+     */
+    private void resolve(ImageResult image) {
+        String pinned = syftService.pinImageReference(image.getTarget());
+        if (pinned == null) {
+            log.info("镜像 {} 没有仓库摘要，按原引用扫描", image.getReference());
+        }
+        String scanTarget = pinned != null ? pinned : image.getTarget();
+        image.markResolved(syftService.resolveImageDigest(scanTarget), pinned);
+    }
+
+    /**
+     * 按摘要分组（无法解析摘要的按引用本身），每组提交一个扫描
+     */
+    private void schedule(ScanBatch batch, String format) {
+        Map<String, List<ImageResult>> groups = new LinkedHashMap<>();
+        for (ImageResult image : batch.getImages()) {
+            String key = image.getDigest() != null ? image.getDigest() : image.getTarget();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(image);
+        }
+        for (List<ImageResult> group : groups.values()) {
+            ImageResult primary = group.get(0);
+            for (ImageResult duplicate : group.subList(1, group.size())) {
+                duplicate.markDuplicateOf(primary.getReference());
+            }
+            try {
+                executor.execute(() -> scan(batch, group, format));
+            } catch (RejectedExecutionException e) {
+                log.warn("批量扫描 {} 队列已满，镜像 {} 未能调度", batch.getId(), primary.getReference());
+                group.forEach(image -> image.markFailed("批量扫描队列已满"));
+            }
+        }
+        log.info("批量扫描 {}: {} 个引用对应 {} 个不同镜像", batch.getId(), batch.getImages().size(), groups.size());
+    }
+
+    private void scan(ScanBatch batch, List<ImageResult> group, String format) {
+        ImageResult primary = group.get(0);
+        group.forEach(ImageResult::markRunning);
+        String sbomName = batch.getName() != null && !batch.getName().isBlank()
+                ? batch.getName() + "/" + primary.getReference()
+                : primary.getReference();
+        try {
+            SBOM saved = sbomService.generateForContainerImage(sbomName, primary.getScanTarget(), format);
+            group.forEach(image -> image.markSucceeded(saved.getId()));
+        } catch (Exception e) {
+            log.error("批量扫描 {} 中的镜像 {} 失败", batch.getId(), primary.getReference(), e);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            group.forEach(image -> image.markFailed(error));
+        }
+    }
+
+    /**
+     * docker-archive:引用解析为镜像tar目录中的绝对路径，其他引用原样返回
+     */
+    private String normalizeReference(String reference) {
+        String ref = reference.trim();
+        if (!ref.startsWith(SyftService.DOCKER_ARCHIVE_PREFIX)) {
+            return ref;
+        }
+        if (archiveDir == null) {
+            throw new IllegalArgumentException("未配置镜像tar目录，不能使用docker-archive引用: " + ref);
+        }
+        Path file = archiveDir.resolve(ref.substring(SyftService.DOCKER_ARCHIVE_PREFIX.length())).normalize();
+        if (!file.startsWith(archiveDir) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("镜像tar不存在或不在镜像tar目录中: " + ref);
+        }
+        return SyftService.DOCKER_ARCHIVE_PREFIX + file;
+    }
+
+    /**
+     * 只保留最近的若干个已结束批次
+     */
+    private void evictFinishedBatches() {
+        int excess = batches.size() - maxRetainedBatches;
+        if (excess <= 0) return;
+        batches.values().stream()
+                .filter(ScanBatch::isFinished)
+                .sorted(Comparator.comparing(ScanBatch::getFinishedAt))
+                .limit(excess)
+                .forEach(b -> batches.remove(b.getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,207 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.SBOM;
+import com.platform.sbom.model.ScanJob;
+import com.platform.sbom.model.UploadSession;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可续传的分块上传
+ * 客户端先创建会话，再按偏移逐块PUT，每块通过FileChannel定位写入会话文件；连接中断后查询会话
+ * 得到已连续写入的字节数，从该偏移继续上传即可。上传完成后整个文件交给扫描任务：
+ * 镜像tar按镜像扫描，目录归档先解压再按系统目录扫描。
+ * 会话只保存在内存中，长时间没有写入的会话在创建新会话时清理。
+ */
+@Log4j2
+@Service
+public class ChunkedUploadService {
+
+    private static final int WRITE_BUFFER_BYTES = 1024 * 1024;
+
+    private final SBOMService sbomService;
+    private final ScanJobService scanJobService;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final Path uploadDir;
+    private final long maxChunkBytes;
+    private final long expireHours;
+
+    public ChunkedUploadService(SBOMService sbomService, ScanJobService scanJobService,
+                                @Value("${sbom.upload.dir:}") String uploadDir,
+                                @Value("${sbom.upload.max-chunk-bytes:67108864}") long maxChunkBytes,
+                                @Value("${sbom.upload.expire-hours:24}") long expireHours) throws IOException {
+        this.sbomService = sbomService;
+        this.scanJobService = scanJobService;
+        this.uploadDir = uploadDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "sbom-uploads")
+                : Paths.get(uploadDir);
+        this.maxChunkBytes = maxChunkBytes;
+        this.expireHours = expireHours;
+        Files.createDirectories(this.uploadDir);
+    }
+
+    /**
+     * 创建上传会话
+     * @param totalBytes 声明的总大小，可为null
+     */
+    public UploadSession create(UploadSession.Kind kind, String fileName, Long totalBytes) throws IOException {
+        evictExpired();
+        if (totalBytes != null && totalBytes < 0) {
+            throw new IllegalArgumentException("总大小不能为负数");
+        }
+        Path file = Files.createTempFile(uploadDir, "upload", kind == UploadSession.Kind.IMAGE ? ".tar" : ".part");
+        UploadSession session = new UploadSession(kind, fileName, totalBytes, file);
+        sessions.put(session.getId(), session);
+        log.info("创建上传会话 {}: {} ({}，{} 字节)", session.getId(), fileName, kind, totalBytes);
+        return session;
+    }
+
+    public Optional<UploadSession> find(String id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    /**
+     * 从指定偏移写入一个分块
+     * 每写出一段就推进会话的已接收字节数，连接中途断开时已写入的部分仍然有效。
+     * 会话锁只在校验偏移和写出每一段时持有，从请求体读取数据时不持有：连接断开后客户端的重试
+     * 不必等待旧请求的套接字超时，而是直接接管会话，旧请求随后的写入被拒绝
+     * @param offset 分块在文件中的偏移，不能大于已接收的字节数（允许与已写入部分重叠，用于重传）
+     * @param body 分块内容，不会被关闭
+     * @throws IllegalStateException 偏移越过已接收的字节数、会话已提交或已被新的请求接管时抛出
+     * @throws IllegalArgumentException 分块超过上限或超出声明的总大小时抛出
+     */
+    public UploadSession writeChunk(UploadSession session, long offset, InputStream body) throws IOException {
+        long token;
+        synchronized (session) {
+            checkWritable(session, offset);
+            token = session.takeOverWriter();
+        }
+        ReadableByteChannel in = Channels.newChannel(body);
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        long position = offset;
+        try (FileChannel out = FileChannel.open(session.getFile(), StandardOpenOption.WRITE)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                if (position + buffer.remaining() - offset > maxChunkBytes) {
+                    throw new IllegalArgumentException("分块超过 " + maxChunkBytes + " 字节上限");
+                }
+                if (session.getTotalBytes() != null && position + buffer.remaining() > session.getTotalBytes()) {
+                    throw new IllegalArgumentException("分块超出声明的总大小 " + session.getTotalBytes());
+                }
+                synchronized (session) {
+                    if (!session.isWriter(token)) {
+                        throw new IllegalStateException("上传会话已被新的写入请求接管");
+                    }
+                    if (session.getJobId() != null) {
+                        throw new IllegalStateException("上传已完成并提交扫描");
+                    }
+                    while (buffer.hasRemaining()) {
+                        position += out.write(buffer, position);
+                    }
+                    session.advanceTo(position);
+                }
+                buffer.clear();
+            }
+        }
+        log.debug("上传会话 {} 写入 [{}, {})，已接收 {} 字节", session.getId(), offset, position, session.getReceivedBytes());
+        return session;
+    }
+
+    private void checkWritable(UploadSession session, long offset) {
+        if (session.getJobId() != null) {
+            throw new IllegalStateException("上传已完成并提交扫描");
+        }
+        if (offset < 0 || offset > session.getReceivedBytes()) {
+            throw new IllegalStateException("偏移 " + offset + " 与已接收的 " + session.getReceivedBytes() + " 字节不连续");
+        }
+    }
+
+    /**
+     * 上传完成，提交扫描任务；任务接管上传文件，结束后删除
+     * @throws IllegalStateException 尚未收齐声明的字节数或已提交过时抛出
+     * @throws java.util.concurrent.RejectedExecutionException 扫描队列已满时抛出，会话保留以便重试
+     */
+    public ScanJob complete(UploadSession session, String name, String format, boolean incremental,
+                            ScanEngine engine) {
+        synchronized (session) {
+            if (session.getJobId() != null) {
+                throw new IllegalStateException("上传已提交扫描，任务: " + session.getJobId());
+            }
+            if (!session.isComplete()) {
+                throw new IllegalStateException("上传未完成：已接收 " + session.getReceivedBytes()
+                        + " / " + session.getTotalBytes() + " 字节");
+            }
+            File file = session.getFile().toFile();
+            Callable<SBOM> task;
+            if (session.getKind() == UploadSession.Kind.IMAGE) {
+                task = () -> sbomService.generateForImageArchive(name, file, session.getFileName(), format, engine);
+            } else {
+                task = () -> {
+                    File tmpF;
+                    try (InputStream in = Files.newInputStream(file.toPath())) {
+                        tmpF = sbomService.stageArchive(in);
+                    } finally {
+                        Files.deleteIfExists(file.toPath());
+                    }
+                    return sbomService.generate(name, tmpF, null, null, format, incremental, engine);
+                };
+            }
+            ScanJob job = scanJobService.submit(session.getKind() == UploadSession.Kind.IMAGE ? "image" : "system", name,
+                    task, () -> deleteFile(session));
+            session.markSubmitted(job.getId());
+            sessions.remove(session.getId());
+            log.info("上传会话 {} 完成（{} 字节），已提交扫描任务 {}", session.getId(), session.getReceivedBytes(), job.getId());
+            return job;
+        }
+    }
+
+    /**
+     * 放弃上传并删除已写入的数据
+     */
+    public void abort(UploadSession session) {
+        synchronized (session) {
+            sessions.remove(session.getId());
+            // 使仍在读取请求体的写入者失效
+            session.takeOverWriter();
+            if (session.getJobId() == null) {
+                deleteFile(session);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expireHours);
+        sessions.values().stream()
+                .filter(s -> s.getUpdatedAt().isBefore(cutoff))
+                .forEach(s -> {
+                    log.info("上传会话 {} 超过 {} 小时未更新，已清理", s.getId(), expireHours);
+                    abort(s);
+                });
+    }
+
+    private void deleteFile(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.getFile());
+        } catch (IOException e) {
+            log.warn("无法删除上传文件 {}: {}", session.getFile(), e.getMessage());
+        }
+    }
+}
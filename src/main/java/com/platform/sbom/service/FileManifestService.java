@@ -0,0 +1,143 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.mongo.FileManifestDocument;
+import com.platform.sbom.mongo.FileManifestDocument.FileFingerprint;
+import com.platform.sbom.mongo.FileManifestDocumentRepository;
+import com.platform.sbom.util.ContentDigests;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 系统文件指纹清单服务
+ * 每个系统保存最近一次扫描的文件清单（路径、大小、修改时间、SHA-256），
+ * 下次上传时与之比较，得出需要重新扫描的文件
+ */
+@Log4j2
+@Service
+public class FileManifestService {
+
+    private final FileManifestDocumentRepository manifestRepo;
+
+    public FileManifestService(FileManifestDocumentRepository manifestRepo) {
+        this.manifestRepo = manifestRepo;
+    }
+
+    public Optional<FileManifestDocument> find(String systemName) {
+        return manifestRepo.findById(systemName);
+    }
+
+    /**
+     * 计算目录下所有文件的指纹
+     * 每个文件都计算SHA-256：文件夹上传落盘时所有文件都获得新的修改时间，归档的修改时间也可能被
+     * 构建工具固定，大小加修改时间不足以判断内容未变。计算出的哈希同时用作扫描缓存的Merkle键，
+     * 每个文件只读取一次
+     *
+     * @param root 扫描根目录
+     * @return 按路径排序的指纹列表
+     */
+    public List<FileFingerprint> fingerprint(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        List<FileFingerprint> result = new ArrayList<>(files.size());
+        for (Path file : files) {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            result.add(new FileFingerprint(relativePath(root, file), attrs.size(),
+                    attrs.lastModifiedTime().toMillis(), ContentDigests.sha256(file)));
+        }
+        log.info("计算文件指纹：共 {} 个文件", result.size());
+        return result;
+    }
+
+    /**
+     * 比较两份清单
+     * @param previous 上次清单中以路径为键的指纹
+     * @param current 本次的指纹
+     * @return 变化情况
+     */
+    public ManifestDiff diff(Map<String, FileFingerprint> previous, List<FileFingerprint> current) {
+        ManifestDiff diff = new ManifestDiff();
+        Set<String> seen = new HashSet<>();
+        for (FileFingerprint fp : current) {
+            seen.add(fp.getPath());
+            FileFingerprint old = previous.get(fp.getPath());
+            if (old != null && old.getSize() == fp.getSize() && Objects.equals(old.getSha256(), fp.getSha256())) {
+                diff.unchanged.add(fp.getPath());
+            } else {
+                diff.changed.add(fp.getPath());
+            }
+        }
+        for (String path : previous.keySet()) {
+            if (!seen.contains(path)) {
+                diff.removed++;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * 保存系统的最新清单，覆盖上一份
+     */
+    public void save(String systemName, Long sbomId, List<FileFingerprint> files) {
+        manifestRepo.save(new FileManifestDocument(systemName, sbomId, files));
+        log.info("已保存系统 {} 的文件清单（{} 个文件），关联SBOM ID: {}", systemName, files.size(), sbomId);
+    }
+
+    /**
+     * SBOM被删除时移除指向它的清单，下次上传时全量扫描
+     */
+    public void deleteForSbom(Long sbomId) {
+        manifestRepo.deleteBySbomId(sbomId);
+    }
+
+    /**
+     * 将Syft报告的组件位置规范化为清单中的路径形式
+     * 嵌套归档的位置（如 /lib/app.jar:BOOT-INF/lib/x.jar）归属于最外层文件
+     */
+    public static String normalizePath(String location) {
+        if (location == null || location.isEmpty()) {
+            return null;
+        }
+        String path = location.replace('\\', '/');
+        int nested = path.indexOf(':');
+        if (nested > 0) {
+            path = path.substring(0, nested);
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    private String relativePath(Path root, Path file) {
+        return "/" + root.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * 两份清单的比较结果
+     */
+    public static class ManifestDiff {
+        private final Set<String> unchanged = new HashSet<>();
+        // 新增或内容变化的文件
+        private final List<String> changed = new ArrayList<>();
+        private int removed;
+
+        public Set<String> getUnchanged() {
+            return unchanged;
+        }
+
+        public List<String> getChanged() {
+            return changed;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+    }
+}
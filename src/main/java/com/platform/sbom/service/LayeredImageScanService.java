@@ -0,0 +1,361 @@
+package com.platform.sbom.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import com.platform.sbom.scanner.OsPackageParser;
+import com.platform.sbom.util.DependencyAdjacency;
+import com.platform.sbom.util.LayerOverlay;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 按层扫描docker-archive镜像tar
+ * 每一层以其未压缩内容的摘要（config中的rootfs.diff_ids）为键缓存扫描结果，
+ * 只有未见过的层才会解包并交给Syft扫描；最终结果按overlay语义（whiteout、不透明目录、上层覆盖下层）
+ * 从各层结果中组装，组件是否保留取决于其所在文件在最终文件系统中是否仍由该层提供。
+ * 单独扫描的层看不到下层的 /etc/os-release，操作系统包的PURL在组装时按最终文件系统中的os-release补上发行版。
+ * 不同镜像共享的基础层（distroless、temurin等）因此只需编目一次。
+ */
+@Log4j2
+@Service
+public class LayeredImageScanService {
+
+    // 第一遍读取时保存在内存中的小条目（manifest.json、config及空层）的大小上限
+    private static final long SMALL_ENTRY_BYTES = 256 * 1024;
+    // LayerScan中增加了os-release，旧格式的缓存条目不再使用
+    private static final String LAYER_CACHE_KIND = "layer-v2";
+    private static final OsPackageParser OS_PACKAGE_PARSER = new OsPackageParser();
+
+    private final SyftService syftService;
+    private final ScanResultCache scanResultCache;
+    private final ObjectMapper objectMapper;
+
+    public LayeredImageScanService(SyftService syftService, ScanResultCache scanResultCache, ObjectMapper objectMapper) {
+        this.syftService = syftService;
+        this.scanResultCache = scanResultCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 扫描docker-archive镜像tar
+     * 缓存未启用或Redis无法连接（无法复用任何层的结果，按层扫描只会多运行几次Syft）、
+     * 或tar不是可识别的docker save格式时，退回到整体交给Syft扫描
+     *
+     * @param archive 镜像tar文件
+     * @return 以格式名为键的扫描结果，与SyftService.scanContainerImageFromFile一致
+     */
+    public Map<String, Map<String, Object>> scanDockerArchive(File archive) {
+        if (!scanResultCache.isAvailable() || syftService.getSyftVersion() == null) {
+            return syftService.scanContainerImageFromFile(archive);
+        }
+        try {
+            return scanByLayer(archive);
+        } catch (IOException e) {
+            log.warn("按层扫描镜像失败，改为整体扫描: {}", e.getMessage());
+            return syftService.scanContainerImageFromFile(archive);
+        }
+    }
+
+    private Map<String, Map<String, Object>> scanByLayer(File archive) throws IOException {
+        // 第一遍：读取manifest.json、config等小条目，并记录层之间的符号链接（旧版docker save对重复层使用链接）
+        Map<String, byte[]> smallEntries = new HashMap<>();
+        Map<String, String> links = new HashMap<>();
+        readEntries(archive, (entry, in) -> {
+            if (entry.isSymbolicLink()) {
+                links.put(entry.getName(), LayerOverlay.resolveLink(entry.getName(), entry.getLinkName()));
+            } else if (entry.isFile() && entry.getSize() <= SMALL_ENTRY_BYTES) {
+                smallEntries.put(entry.getName(), in.readAllBytes());
+            }
+        });
+
+        byte[] manifestBytes = smallEntries.get("manifest.json");
+        if (manifestBytes == null) {
+            throw new IOException("不是docker-archive格式：缺少manifest.json");
+        }
+        JsonNode manifest = objectMapper.readTree(manifestBytes);
+        if (!manifest.isArray() || manifest.isEmpty()) {
+            throw new IOException("manifest.json中没有镜像");
+        }
+        if (manifest.size() > 1) {
+            log.info("镜像tar包含 {} 个镜像，只扫描第一个", manifest.size());
+        }
+        JsonNode image = manifest.get(0);
+        byte[] configBytes = smallEntries.get(image.path("Config").asText());
+        if (configBytes == null) {
+            throw new IOException("缺少镜像config: " + image.path("Config").asText());
+        }
+        List<String> layerNames = new ArrayList<>();
+        image.path("Layers").forEach(n -> layerNames.add(links.getOrDefault(n.asText(), n.asText())));
+        List<String> diffIds = new ArrayList<>();
+        objectMapper.readTree(configBytes).path("rootfs").path("diff_ids").forEach(n -> diffIds.add(n.asText()));
+        if (layerNames.isEmpty() || layerNames.size() != diffIds.size()) {
+            throw new IOException("层列表与diff_ids数量不一致: " + layerNames.size() + " / " + diffIds.size());
+        }
+
+        // 查找已缓存的层，相同摘要的层只处理一次
+        Map<String, LayerScan> scans = new HashMap<>();
+        Map<String, String> pending = new LinkedHashMap<>();
+        for (int i = 0; i < diffIds.size(); i++) {
+            String diffId = diffIds.get(i);
+            if (scans.containsKey(diffId) || pending.containsValue(diffId)) {
+                continue;
+            }
+            Optional<LayerScan> cached = scanResultCache.get(layerCacheKey(diffId), new TypeReference<LayerScan>() {});
+            if (cached.isPresent()) {
+                scans.put(diffId, cached.get());
+            } else {
+                pending.put(layerNames.get(i), diffId);
+            }
+        }
+        log.info("镜像共 {} 层，缓存命中 {} 层，需要扫描 {} 层", diffIds.size(), scans.size(), pending.size());
+
+        // 已在内存中的小层直接扫描
+        for (Iterator<Map.Entry<String, String>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, String> layer = it.next();
+            byte[] bytes = smallEntries.get(layer.getKey());
+            if (bytes != null) {
+                scans.put(layer.getValue(), scanLayer(new ByteArrayInputStream(bytes), layer.getValue()));
+                it.remove();
+            }
+        }
+        // 第二遍：只解包并扫描未缓存的层
+        if (!pending.isEmpty()) {
+            readEntries(archive, (entry, in) -> {
+                String diffId = pending.remove(entry.getName());
+                if (diffId != null) {
+                    scans.put(diffId, scanLayer(in, diffId));
+                }
+            });
+            if (!pending.isEmpty()) {
+                throw new IOException("镜像tar中缺少层: " + pending.keySet());
+            }
+        }
+
+        return assemble(diffIds, scans);
+    }
+
+    /**
+     * 按overlay语义组装各层的结果：组件所在文件被上层覆盖或删除时，该组件不出现在最终结果中
+     * 同一摘要的层在层列表中出现多次时，每次都参与overlay，但组件和依赖只在最后一次出现时输出一次
+     * （此时该层的文件归它所有）。scans中的LayerScan可能来自缓存，组件以副本输出，不修改原对象。
+     * 操作系统包的PURL按最终文件系统中可见的os-release补上发行版
+     */
+    static Map<String, Map<String, Object>> assemble(List<String> diffIds, Map<String, LayerScan> scans) {
+        LayerOverlay overlay = new LayerOverlay();
+        Map<String, Integer> lastIndex = new HashMap<>();
+        for (int layer = 0; layer < diffIds.size(); layer++) {
+            LayerScan scan = scans.get(diffIds.get(layer));
+            overlay.apply(scan.getOpaqueDirs(), scan.getWhiteouts(), scan.getPaths());
+            lastIndex.put(diffIds.get(layer), layer);
+        }
+        Map<String, String> osRelease = Collections.emptyMap();
+        for (int layer = 0; layer < diffIds.size(); layer++) {
+            for (Map.Entry<String, Map<String, String>> release : scans.get(diffIds.get(layer)).getOsReleases().entrySet()) {
+                if (overlay.isVisible(release.getKey(), layer)) {
+                    osRelease = release.getValue();
+                }
+            }
+        }
+
+        Set<String> formats = new LinkedHashSet<>();
+        scans.values().forEach(scan -> formats.addAll(scan.getComponents().keySet()));
+
+        Map<String, Map<String, Object>> views = new LinkedHashMap<>();
+        for (String format : formats) {
+            List<Component> components = new ArrayList<>();
+            DependencyAdjacency dependencies = new DependencyAdjacency();
+            int hidden = 0;
+            for (int layer = 0; layer < diffIds.size(); layer++) {
+                if (lastIndex.get(diffIds.get(layer)) != layer) {
+                    continue;
+                }
+                LayerScan scan = scans.get(diffIds.get(layer));
+                for (Component comp : scan.getComponents().getOrDefault(format, Collections.emptyList())) {
+                    String path = FileManifestService.normalizePath(comp.getFilePath());
+                    if (path != null && !overlay.isVisible(path, layer)) {
+                        hidden++;
+                        continue;
+                    }
+                    Component copy = comp.copy();
+                    copy.setSourceRepo("container-image-archive");
+                    components.add(copy);
+                }
+                // 各层的依赖按引用合并，指向已隐藏组件的边由后续的一致性检查过滤
+                dependencies.addAll(scan.getDependencies().getOrDefault(format, Collections.emptyList()));
+            }
+            OS_PACKAGE_PARSER.applyDistro(components, osRelease);
+            log.info("{} 按层组装得到 {} 个组件，{} 个组件被上层覆盖或删除", format, components.size(), hidden);
+
+            Map<String, Object> view = new HashMap<>();
+            view.put("components", components);
+            view.put("dependencies", dependencies.toDependencies());
+            views.put(format, view);
+        }
+        return views;
+    }
+
+    /**
+     * 解包一层到临时目录并用Syft扫描，结果连同层内的文件、whiteout和不透明目录一起缓存
+     * 符号链接只记录路径不在磁盘上创建，避免指向宿主机路径；层内的os-release解析后随层一起缓存，供组装时补充发行版
+     */
+    @SuppressWarnings("unchecked")
+    private LayerScan scanLayer(InputStream layerStream, String diffId) throws IOException {
+        Path dir = Files.createTempDirectory("layer");
+        LayerScan scan = new LayerScan();
+        try {
+            // 层本身的流不关闭，它是外层tar的当前条目
+            TarArchiveInputStream tais = new TarArchiveInputStream(maybeGunzip(layerStream));
+            TarArchiveEntry entry;
+            while ((entry = tais.getNextTarEntry()) != null) {
+                String path = LayerOverlay.normalize(entry.getName());
+                if (path == null) {
+                    continue;
+                }
+                if (LayerOverlay.collectMarker(path, scan.getOpaqueDirs(), scan.getWhiteouts())
+                        || entry.isDirectory()) {
+                    continue;
+                }
+                Path target = dir.resolve(path.substring(1));
+                if (entry.isSymbolicLink()) {
+                    scan.getPaths().add(path);
+                } else if (entry.isLink()) {
+                    // 硬链接：复制层内已解包的目标文件
+                    String linked = LayerOverlay.normalize(entry.getLinkName());
+                    Path source = linked != null ? dir.resolve(linked.substring(1)) : null;
+                    if (source != null && Files.isRegularFile(source)) {
+                        Files.createDirectories(target.getParent());
+                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    scan.getPaths().add(path);
+                } else if (entry.isFile()) {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(tais, target, StandardCopyOption.REPLACE_EXISTING);
+                    scan.getPaths().add(path);
+                    if (OsPackageParser.OS_RELEASE.contains(path)) {
+                        try (InputStream in = Files.newInputStream(target)) {
+                            scan.getOsReleases().put(path, OS_PACKAGE_PARSER.parseOsRelease(in));
+                        }
+                    }
+                }
+            }
+
+            log.info("扫描镜像层 {}（{} 个文件）", diffId, scan.getPaths().size());
+            for (Map.Entry<String, Map<String, Object>> view : syftService.scanLayerDirectory(dir.toString()).entrySet()) {
+                scan.getComponents().put(view.getKey(), (List<Component>) view.getValue().get("components"));
+                scan.getDependencies().put(view.getKey(), (List<Dependency>) view.getValue().get("dependencies"));
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+        scanResultCache.put(layerCacheKey(diffId), scan);
+        return scan;
+    }
+
+    private String layerCacheKey(String diffId) {
+        return syftService.scanCacheKey(LAYER_CACHE_KIND, diffId);
+    }
+
+    private InputStream maybeGunzip(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GzipCompressorInputStream(buffered);
+        }
+        return buffered;
+    }
+
+    private void readEntries(File archive, EntryHandler handler) throws IOException {
+        try (TarArchiveInputStream tais = new TarArchiveInputStream(
+                new BufferedInputStream(new FileInputStream(archive)))) {
+            TarArchiveEntry entry;
+            while ((entry = tais.getNextTarEntry()) != null) {
+                handler.handle(entry, tais);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryHandler {
+        void handle(TarArchiveEntry entry, InputStream in) throws IOException;
+    }
+
+    /**
+     * 单层的扫描结果，以层摘要为键缓存
+     */
+    public static class LayerScan {
+        private Map<String, List<Component>> components = new LinkedHashMap<>();
+        private Map<String, List<Dependency>> dependencies = new LinkedHashMap<>();
+        // 层内的文件路径（含符号链接，不含目录）
+        private List<String> paths = new ArrayList<>();
+        // 本层删除的下层路径
+        private List<String> whiteouts = new ArrayList<>();
+        // 本层标记为不透明的目录
+        private List<String> opaqueDirs = new ArrayList<>();
+        // 层内os-release文件（/etc/os-release、/usr/lib/os-release）的内容，以路径为键
+        private Map<String, Map<String, String>> osReleases = new LinkedHashMap<>();
+
+        public Map<String, List<Component>> getComponents() {
+            return components;
+        }
+
+        public void setComponents(Map<String, List<Component>> components) {
+            this.components = components;
+        }
+
+        public Map<String, List<Dependency>> getDependencies() {
+            return dependencies;
+        }
+
+        public void setDependencies(Map<String, List<Dependency>> dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getWhiteouts() {
+            return whiteouts;
+        }
+
+        public void setWhiteouts(List<String> whiteouts) {
+            this.whiteouts = whiteouts;
+        }
+
+        public List<String> getOpaqueDirs() {
+            return opaqueDirs;
+        }
+
+        public void setOpaqueDirs(List<String> opaqueDirs) {
+            this.opaqueDirs = opaqueDirs;
+        }
+
+        public Map<String, Map<String, String>> getOsReleases() {
+            return osReleases;
+        }
+
+        public void setOsReleases(Map<String, Map<String, String>> osReleases) {
+            this.osReleases = osReleases;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.platform.sbom.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.platform.sbom.model.MavenArtifactMetadata;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 离线读取本地Maven仓库（默认 ~/.m2/repository）中的POM，不启动Maven，也不访问网络
+ * - 内存中用有界LRU缓存解析后的POM
+ * - 解析结果追加写入磁盘索引（每行一个JSON记录），重启后按POM的修改时间和大小校验后直接复用，不再解析XML
+ * - 查询时沿父POM链补全可继承的字段
+ * - 仓库中没有的POM只在一段时间内记为缺失，之后下载到本地仓库的POM仍会被读取
+ * POM路径由PURL中的坐标拼出，规范化后必须仍在仓库目录内
+ */
+@Log4j2
+@Service
+public class LocalMavenRepositoryMetadataProvider implements MavenMetadataProvider {
+
+    private static final int MAX_PARENT_DEPTH = 10;
+    private static final Pattern PROJECT_EXPRESSION = Pattern.compile("\\$\\{(?:project|pom)\\.(groupId|artifactId|version)}");
+
+    private final Path repository;
+    private final Path indexFile;
+    private final ObjectMapper objectMapper;
+    private final Map<String, MavenArtifactMetadata> cache;
+    // 仓库中没有（或无法解析）的POM，值为记录时的System.nanoTime()，超过missingTtlNanos后重新查找
+    private final Map<String, Long> missing;
+    private final long missingTtlNanos;
+    // 坐标到索引记录 {偏移, 长度} 的映射
+    private final Map<String, long[]> indexRecords = new ConcurrentHashMap<>();
+    private final Object indexLock = new Object();
+    private final ThreadLocal<DocumentBuilder> documentBuilders = ThreadLocal.withInitial(this::newDocumentBuilder);
+    private RandomAccessFile index;
+
+    public LocalMavenRepositoryMetadataProvider(ObjectMapper objectMapper,
+                                                @Value("${maven.local-repository:}") String repository,
+                                                @Value("${maven.metadata.index-file:}") String indexFile,
+                                                @Value("${maven.metadata.cache-entries:5000}") int cacheEntries,
+                                                @Value("${maven.metadata.missing-ttl-seconds:300}") long missingTtlSeconds) {
+        this.objectMapper = objectMapper;
+        Path repo = repository.isBlank()
+                ? Paths.get(System.getProperty("user.home"), ".m2", "repository")
+                : Paths.get(repository);
+        this.repository = Files.isDirectory(repo) ? repo.toAbsolutePath().normalize() : null;
+        this.indexFile = indexFile.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "sbom-maven-index.jsonl")
+                : Paths.get(indexFile);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MavenArtifactMetadata> eldest) {
+                return size() > cacheEntries;
+            }
+        });
+        this.missing = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheEntries;
+            }
+        });
+        this.missingTtlNanos = TimeUnit.SECONDS.toNanos(missingTtlSeconds);
+        if (this.repository == null) {
+            log.info("本地Maven仓库 {} 不存在，不提供构件元数据", repo);
+            return;
+        }
+        openIndex();
+    }
+
+    @Override
+    public Optional<MavenArtifactMetadata> find(String groupId, String artifactId, String version) {
+        if (repository == null || isBlank(groupId) || isBlank(artifactId) || isBlank(version)) {
+            return Optional.empty();
+        }
+        MavenArtifactMetadata own = load(groupId, artifactId, version);
+        return own != null ? Optional.of(resolve(own)) : Optional.empty();
+    }
+
+    /**
+     * 复制本POM的字段，再沿父POM链补全可继承的字段，最后替换 ${project.*} 表达式
+     */
+    private MavenArtifactMetadata resolve(MavenArtifactMetadata own) {
+        MavenArtifactMetadata result = copy(own);
+        Set<String> visited = new HashSet<>();
+        String parent = own.getParent();
+        for (int depth = 0; parent != null && depth < MAX_PARENT_DEPTH && visited.add(parent); depth++) {
+            String[] gav = parent.split(":");
+            MavenArtifactMetadata p = gav.length == 3 ? load(gav[0], gav[1], gav[2]) : null;
+            if (p == null) {
+                break;
+            }
+            if (result.getDescription() == null) result.setDescription(p.getDescription());
+            if (result.getUrl() == null) result.setUrl(p.getUrl());
+            if (result.getScmUrl() == null) result.setScmUrl(p.getScmUrl());
+            if (result.getLicenses().isEmpty()) result.setLicenses(new ArrayList<>(p.getLicenses()));
+            parent = p.getParent();
+        }
+        if (result.getPackaging() == null) {
+            result.setPackaging("jar");
+        }
+        result.setName(interpolate(result.getName(), result));
+        result.setDescription(interpolate(result.getDescription(), result));
+        result.setUrl(interpolate(result.getUrl(), result));
+        result.setScmUrl(interpolate(result.getScmUrl(), result));
+        return result;
+    }
+
+    /**
+     * 读取一个POM自身的字段：先查LRU，再查磁盘索引，最后解析POM文件
+     * @return 仓库中没有该POM或坐标指向仓库之外时返回null
+     */
+    private MavenArtifactMetadata load(String groupId, String artifactId, String version) {
+        String key = groupId + ":" + artifactId + ":" + version;
+        MavenArtifactMetadata cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Long missingSince = missing.get(key);
+        if (missingSince != null) {
+            if (System.nanoTime() - missingSince < missingTtlNanos) {
+                return null;
+            }
+            missing.remove(key);
+        }
+
+        Path pom;
+        try {
+            pom = repository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version)
+                    .resolve(artifactId + "-" + version + ".pom").normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        // 坐标来自PURL，含 .. 或绝对路径时可能指向仓库之外
+        if (!pom.startsWith(repository)) {
+            log.warn("拒绝仓库之外的POM路径: {}", key);
+            return null;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(pom, BasicFileAttributes.class);
+        } catch (IOException e) {
+            missing.put(key, System.nanoTime());
+            return null;
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        MavenArtifactMetadata metadata = readIndex(key, lastModified, attrs.size());
+        if (metadata == null) {
+            try (InputStream in = Files.newInputStream(pom)) {
+                metadata = parsePom(in);
+            } catch (Exception e) {
+                log.debug("无法解析POM {}: {}", pom, e.getMessage());
+                missing.put(key, System.nanoTime());
+                return null;
+            }
+            writeIndex(key, lastModified, attrs.size(), metadata);
+        }
+        cache.put(key, metadata);
+        return metadata;
+    }
+
+    /**
+     * 解析POM中project的直接子元素，groupId和version缺省时取自parent
+     */
+    private MavenArtifactMetadata parsePom(InputStream in) throws Exception {
+        DocumentBuilder builder = documentBuilders.get();
+        builder.reset();
+        Document doc = builder.parse(in);
+        Element project = doc.getDocumentElement();
+        Element parent = child(project, "parent");
+
+        MavenArtifactMetadata m = new MavenArtifactMetadata();
+        m.setGroupId(firstNonBlank(text(project, "groupId"), text(parent, "groupId")));
+        m.setArtifactId(text(project, "artifactId"));
+        m.setVersion(firstNonBlank(text(project, "version"), text(parent, "version")));
+        m.setPackaging(text(project, "packaging"));
+        m.setName(text(project, "name"));
+        m.setDescription(collapseWhitespace(text(project, "description")));
+        m.setUrl(text(project, "url"));
+        Element licenses = child(project, "licenses");
+        if (licenses != null) {
+            for (Node n = licenses.getFirstChild(); n != null; n = n.getNextSibling()) {
+                if (n instanceof Element && "license".equals(localName(n))) {
+                    String name = firstNonBlank(text((Element) n, "name"), text((Element) n, "url"));
+                    if (name != null) {
+                        m.getLicenses().add(name);
+                    }
+                }
+            }
+        }
+        Element scm = child(project, "scm");
+        m.setScmUrl(firstNonBlank(text(scm, "url"), text(scm, "connection")));
+        if (parent != null && text(parent, "groupId") != null && text(parent, "artifactId") != null
+                && text(parent, "version") != null) {
+            m.setParent(text(parent, "groupId") + ":" + text(parent, "artifactId") + ":" + text(parent, "version"));
+        }
+        return m;
+    }
+
+    // ---- 磁盘索引 ----
+
+    /**
+     * 打开索引并记录每个坐标最新一条记录的位置；末尾不完整的记录（写入时中断）被截掉，
+     * 被覆盖的旧记录多于有效记录时重写索引
+     */
+    private void openIndex() {
+        try {
+            Files.createDirectories(indexFile.toAbsolutePath().getParent());
+            int records = 0;
+            long valid = 0;
+            if (Files.exists(indexFile)) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile), 64 * 1024)) {
+                    ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+                    long offset = 0;
+                    int b;
+                    while ((b = in.read()) != -1) {
+                        if (b != '\n') {
+                            line.write(b);
+                            continue;
+                        }
+                        int length = line.size();
+                        try {
+                            JsonNode node = objectMapper.readTree(line.toByteArray());
+                            indexRecords.put(node.path("key").asText(), new long[]{offset, length});
+                            records++;
+                        } catch (IOException e) {
+                            break;
+                        }
+                        offset += length + 1;
+                        valid = offset;
+                        line.reset();
+                    }
+                }
+            }
+            index = new RandomAccessFile(indexFile.toFile(), "rw");
+            if (index.length() > valid) {
+                index.setLength(valid);
+            }
+            if (records > 2 * indexRecords.size() && records > 1000) {
+                compactIndex();
+            }
+            log.info("Maven元数据索引 {}：{} 个构件", indexFile, indexRecords.size());
+        } catch (IOException e) {
+            log.warn("无法打开Maven元数据索引 {}，仅使用内存缓存: {}", indexFile, e.getMessage());
+            closeIndex();
+        }
+    }
+
+    private MavenArtifactMetadata readIndex(String key, long lastModified, long size) {
+        long[] record = indexRecords.get(key);
+        if (record == null) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) record[1]];
+        synchronized (indexLock) {
+            if (index == null) {
+                return null;
+            }
+            try {
+                index.seek(record[0]);
+                index.readFully(bytes);
+            } catch (IOException e) {
+                log.debug("读取Maven元数据索引失败: {}", e.getMessage());
+                return null;
+            }
+        }
+        try {
+            JsonNode node = objectMapper.readTree(bytes);
+            if (node.path("lastModified").asLong() != lastModified || node.path("size").asLong() != size) {
+                return null;
+            }
+            return objectMapper.treeToValue(node.get("metadata"), MavenArtifactMetadata.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeIndex(String key, long lastModified, long size, MavenArtifactMetadata metadata) {
+        byte[] bytes;
+        try {
+            bytes = record(key, lastModified, size, metadata);
+        } catch (IOException e) {
+            return;
+        }
+        synchronized (indexLock) {
+            if (index == null) {
+                return;
+            }
+            try {
+                long offset = index.length();
+                index.seek(offset);
+                index.write(bytes);
+                index.write('\n');
+                indexRecords.put(key, new long[]{offset, bytes.length});
+            } catch (IOException e) {
+                log.warn("写入Maven元数据索引失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private byte[] record(String key, long lastModified, long size, MavenArtifactMetadata metadata) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("key", key);
+        node.put("lastModified", lastModified);
+        node.put("size", size);
+        node.set("metadata", objectMapper.valueToTree(metadata));
+        // 记录以换行分隔，序列化结果本身不含换行
+        return objectMapper.writeValueAsString(node).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 只保留每个坐标最新的记录，写入临时文件后原子替换
+     */
+    private void compactIndex() throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Map<String, long[]> compacted = new HashMap<>();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            long offset = 0;
+            for (Map.Entry<String, long[]> entry : indexRecords.entrySet()) {
+                byte[] bytes = new byte[(int) entry.getValue()[1]];
+                index.seek(entry.getValue()[0]);
+                index.readFully(bytes);
+                out.write(bytes);
+                out.write('\n');
+                compacted.put(entry.getKey(), new long[]{offset, bytes.length});
+                offset += bytes.length + 1;
+            }
+        }
+        index.close();
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = new RandomAccessFile(indexFile.toFile(), "rw");
+        indexRecords.clear();
+        indexRecords.putAll(compacted);
+    }
+
+    @PreDestroy
+    public void closeIndex() {
+        synchronized (indexLock) {
+            if (index != null) {
+                try {
+                    index.close();
+                } catch (IOException ignored) {
+                }
+                index = null;
+            }
+        }
+    }
+
+    // ---- 辅助方法 ----
+
+    private DocumentBuilder newDocumentBuilder() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setExpandEntityReferences(false);
+            factory.setXIncludeAware(false);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MavenArtifactMetadata copy(MavenArtifactMetadata m) {
+        MavenArtifactMetadata c = new MavenArtifactMetadata();
+        c.setGroupId(m.getGroupId());
+        c.setArtifactId(m.getArtifactId());
+        c.setVersion(m.getVersion());
+        c.setPackaging(m.getPackaging());
+        c.setName(m.getName());
+        c.setDescription(m.getDescription());
+        c.setUrl(m.getUrl());
+        c.setLicenses(new ArrayList<>(m.getLicenses()));
+        c.setScmUrl(m.getScmUrl());
+        c.setParent(m.getParent());
+        return c;
+    }
+
+    private static String interpolate(String value, MavenArtifactMetadata m) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        Matcher matcher = PROJECT_EXPRESSION.matcher(value);
+        StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+            String replacement = switch (matcher.group(1)) {
+                case "groupId" -> m.getGroupId();
+                case "artifactId" -> m.getArtifactId();
+                default -> m.getVersion();
+            };
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static Element child(Element parent, String name) {
+        if (parent == null) {
+            return null;
+        }
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element && name.equals(localName(n))) {
+                return (Element) n;
+            }
+        }
+        return null;
+    }
+
+    private static String text(Element parent, String name) {
+        Element e = child(parent, name);
+        if (e == null) {
+            return null;
+        }
+        String text = e.getTextContent().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String localName(Node n) {
+        return n.getLocalName() != null ? n.getLocalName() : n.getNodeName();
+    }
+
+    private static String collapseWhitespace(String s) {
+        return s == null ? null : s.replaceAll("\\s+", " ");
+    }
+
+    private static String firstNonBlank(String a, String b) {
+        return a != null ? a : b;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
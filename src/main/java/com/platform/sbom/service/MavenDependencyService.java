@@ -1,5 +1,6 @@
 package com.platform.sbom.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.BufferedReader;
 import java.io.File;
@@ -7,6 +8,7 @@ import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,6 +24,22 @@ import org.w3c.dom.NodeList;
 @Service
 public class MavenDependencyService {
     private static final Logger logger = Logger.getLogger(MavenDependencyService.class.getName());
+    private static final Set<String> SCOPES = Set.of("compile", "provided", "runtime", "test", "system", "import");
+
+    private final ProcessSupervisor processSupervisor;
+    private final MavenMetadataProvider metadataProvider;
+
+    @Value("${maven.timeout-minutes:10}")
+    private long timeoutMinutes;
+
+    public MavenDependencyService(ProcessSupervisor processSupervisor, MavenMetadataProvider metadataProvider) {
+        this.processSupervisor = processSupervisor;
+        this.metadataProvider = metadataProvider;
+    }
+
+    private Duration mavenTimeout() {
+        return Duration.ofMinutes(timeoutMinutes);
+    }
 
     /**
      * 执行Maven依赖树命令并解析结果
@@ -64,41 +82,19 @@ public class MavenDependencyService {
         
         // 首先运行mvn help:evaluate命令来测试Maven是否可用和项目是否有效
         try {
-            ProcessBuilder testBuilder = new ProcessBuilder(mvnCommand, "help:evaluate", "-Dexpression=project.groupId", "-q", "-DforceStdout");
-            testBuilder.directory(new File(projectPath));
-            testBuilder.redirectErrorStream(true);
-            
-            Process testProcess = testBuilder.start();
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(testProcess.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-            
-            int exitCode = testProcess.waitFor();
-            if (exitCode != 0) {
-                logger.warning("Maven命令测试失败，尝试使用系统Maven: " + output.toString());
+            ProcessSupervisor.Result test = processSupervisor.run(
+                    List.of(mvnCommand, "help:evaluate", "-Dexpression=project.groupId", "-q", "-DforceStdout"),
+                    new File(projectPath), mavenTimeout());
+            if (!test.isSuccess()) {
+                logger.warning("Maven命令测试失败，尝试使用系统Maven: " + test.getStdout() + test.getStderr());
                 // 尝试使用系统安装的Maven
                 mvnCommand = isWindows() ? "mvn.cmd" : "mvn";
                 
                 // 重新测试
-                testBuilder = new ProcessBuilder(mvnCommand, "help:evaluate", "-Dexpression=project.groupId", "-q", "-DforceStdout");
-                testBuilder.directory(new File(projectPath));
-                testBuilder.redirectErrorStream(true);
-                
-                testProcess = testBuilder.start();
-                output = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(testProcess.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                    }
-                }
-                
-                exitCode = testProcess.waitFor();
-                if (exitCode != 0) {
+                test = processSupervisor.run(
+                        List.of(mvnCommand, "help:evaluate", "-Dexpression=project.groupId", "-q", "-DforceStdout"),
+                        new File(projectPath), mavenTimeout());
+                if (!test.isSuccess()) {
                     logger.warning("Maven命令仍然失败，返回简单依赖图");
                     return createEmptyDependencyGraph(pomFile);
                 }
@@ -111,23 +107,18 @@ public class MavenDependencyService {
         }
         
         // 运行dependency:tree命令获取依赖树
-        ProcessBuilder processBuilder = new ProcessBuilder(mvnCommand, "dependency:tree", "-DoutputType=dot");
-        processBuilder.directory(new File(projectPath));
+        List<String> treeCommand = List.of(mvnCommand, "dependency:tree", "-DoutputType=dot");
         
         try {
-            logger.info("执行命令: " + String.join(" ", processBuilder.command()));
-            processBuilder.redirectErrorStream(true); // 合并标准输出和错误输出
-            Process process = processBuilder.start();
-            
-            StringBuilder fullOutput = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            logger.info("执行命令: " + String.join(" ", treeCommand));
+            // 在读取标准输出的同时解析依赖图，完整输出只保留最后一段用于错误诊断
+            ProcessSupervisor.Result treeResult = processSupervisor.run(treeCommand, new File(projectPath), mavenTimeout(), stdout -> {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stdout, StandardCharsets.UTF_8));
                 String line;
                 boolean inDigraph = false;
                 String rootNodeId = null;
                 
                 while ((line = reader.readLine()) != null) {
-                    fullOutput.append(line).append("\n");
-                    
                     // 标记是否进入了依赖图定义部分
                     if (line.trim().startsWith("digraph")) {
                         logger.info("找到依赖图开始标记");
@@ -180,15 +171,21 @@ public class MavenDependencyService {
                         node.put("size", 10);
                     }
                 }
+            });
+            String fullOutput = treeResult.getStdout() + treeResult.getStderr();
+            
+            if (treeResult.isTimedOut()) {
+                logger.warning("Maven依赖树命令超时，返回基本依赖图");
+                return createEmptyDependencyGraph(pomFile);
             }
             
-            int exitCode = process.waitFor();
+            int exitCode = treeResult.getExitCode();
             if (exitCode != 0) {
                 logger.warning("Maven命令执行失败，退出码: " + exitCode);
-                logger.warning("完整输出: " + fullOutput.toString());
+                logger.warning("完整输出: " + fullOutput);
                 
                 // 检查是否包含常见错误模式
-                String output = fullOutput.toString().toLowerCase();
+                String output = fullOutput.toLowerCase();
                 if (output.contains("could not resolve dependencies") || output.contains("non-resolvable parent pom")) {
                     return createEmptyDependencyGraph(pomFile);
                 } else if (output.contains("invalid content was found starting with element")) {
@@ -203,14 +200,14 @@ public class MavenDependencyService {
             
             // 如果没有发现依赖节点，可能是依赖树命令没有产生预期的输出
             if (nodes.isEmpty()) {
-                logger.warning("未检测到任何依赖节点，可能是命令未产生预期输出。完整输出: " + fullOutput.toString());
+                logger.warning("未检测到任何依赖节点，可能是命令未产生预期输出。完整输出: " + fullOutput);
                 return createEmptyDependencyGraph(pomFile);
             }
             
             logger.info("成功解析到 " + nodes.size() + " 个依赖节点和 " + links.size() + " 个依赖关系");
             
-            // 获取更详细的依赖信息（依赖范围等）
-            enrichDependencyInfo(projectPath, nodes);
+            // 获取更详细的依赖信息（依赖范围、打包类型、描述等）
+            enrichDependencyInfo(nodes);
             
             Map<String, Object> result = new HashMap<>();
             result.put("nodes", nodes);
@@ -549,75 +546,55 @@ public class MavenDependencyService {
     
     /**
      * 获取更详细的依赖信息
+     * 依赖范围和打包类型来自依赖树中的坐标（groupId:artifactId:type[:classifier]:version[:scope]），
+     * 名称、描述、许可证等来自本地仓库中的POM，不再额外运行Maven
      */
-    private void enrichDependencyInfo(String projectPath, List<Map<String, Object>> nodes) {
-        try {
-            ProcessBuilder processBuilder = new ProcessBuilder(getMavenCommand(projectPath), "dependency:list", "-DoutputFile=dependencies.txt");
-            processBuilder.directory(new File(projectPath));
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+    private void enrichDependencyInfo(List<Map<String, Object>> nodes) {
+        for (Map<String, Object> node : nodes) {
+            String[] coordinates = String.valueOf(node.get("artifactId")).split(":");
+            if (coordinates.length < 4) {
+                continue;
             }
-            
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                // 解析依赖列表文件
-                File depFile = new File(projectPath, "dependencies.txt");
-                if (depFile.exists()) {
-                    try (BufferedReader reader = new BufferedReader(new java.io.FileReader(depFile))) {
-                        String line;
-                        Pattern depPattern = Pattern.compile("\\s+(\\S+):(\\S+):(\\S+):(\\S+):(\\S+)\\s*");
-                        
-                        while ((line = reader.readLine()) != null) {
-                            Matcher matcher = depPattern.matcher(line);
-                            if (matcher.find()) {
-                                String groupId = matcher.group(1);
-                                String artifactId = matcher.group(2);
-                                String type = matcher.group(3);
-                                String version = matcher.group(4);
-                                String scope = matcher.group(5);
-                                
-                                // 更新节点信息
-                                String fullArtifactId = groupId + ":" + artifactId;
-                                for (Map<String, Object> node : nodes) {
-                                    if (node.get("artifactId").equals(fullArtifactId)) {
-                                        node.put("scope", scope);
-                                        node.put("packaging", type);
-                                        node.put("description", getArtifactDescription(groupId, artifactId, version));
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    
-                    // 清理临时文件
-                    depFile.delete();
-                } else {
-                    logger.warning("依赖列表文件未生成: " + depFile.getAbsolutePath());
-                }
-            } else {
-                logger.warning("依赖列表命令执行失败: " + output.toString());
+            String groupId = coordinates[0];
+            String artifactId = coordinates[1];
+            String packaging = coordinates[2];
+            String scope = null;
+            int last = coordinates.length;
+            if (SCOPES.contains(coordinates[last - 1])) {
+                scope = coordinates[--last];
             }
-        } catch (Exception e) {
-            // 即使获取额外信息失败，也不应影响主要功能
-            logger.warning("无法获取详细依赖信息: " + e.getMessage());
+            // 剩余部分为 groupId:artifactId:type:version 或 groupId:artifactId:type:classifier:version
+            String version = coordinates[last - 1];
+
+            if (scope != null) {
+                node.put("scope", scope);
+            }
+            node.put("packaging", packaging);
+            node.put("description", getArtifactDescription(groupId, artifactId, version));
+            metadataProvider.find(groupId, artifactId, version).ifPresent(metadata -> {
+                if (metadata.getName() != null) {
+                    node.put("displayName", metadata.getName());
+                }
+                if (!metadata.getLicenses().isEmpty()) {
+                    node.put("licenses", metadata.getLicenses());
+                }
+                if (metadata.getUrl() != null) {
+                    node.put("url", metadata.getUrl());
+                }
+                if (metadata.getScmUrl() != null) {
+                    node.put("scm", metadata.getScmUrl());
+                }
+            });
         }
     }
     
     /**
-     * 获取构件描述（可以扩展为从Maven中央仓库获取）
+     * 获取构件描述：优先使用本地仓库POM中的description，找不到时返回坐标
      */
     private String getArtifactDescription(String groupId, String artifactId, String version) {
-        // 这里可以实现从Maven仓库元数据获取描述的逻辑
-        // 简单起见，返回一个基本描述
-        return groupId + ":" + artifactId + " " + version;
+        return metadataProvider.find(groupId, artifactId, version)
+                .map(metadata -> metadata.getDescription() != null ? metadata.getDescription() : metadata.getName())
+                .orElse(groupId + ":" + artifactId + " " + version);
     }
     
     /**
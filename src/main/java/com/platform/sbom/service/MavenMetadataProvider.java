@@ -0,0 +1,16 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.MavenArtifactMetadata;
+
+import java.util.Optional;
+
+/**
+ * Maven构件元数据来源
+ */
+public interface MavenMetadataProvider {
+
+    /**
+     * @return 构件元数据（已合并父POM链），找不到时为空
+     */
+    Optional<MavenArtifactMetadata> find(String groupId, String artifactId, String version);
+}
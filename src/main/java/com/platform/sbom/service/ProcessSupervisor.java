@@ -0,0 +1,347 @@
+package com.platform.sbom.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 外部进程（Syft、Maven、docker）的监管执行
+ * - 每次执行都有墙钟时间上限，超时后杀死整个进程树
+ * - stdout/stderr并发读取到有界环形缓冲区，进程不会因管道写满而挂起
+ * - 在扫描任务线程中启动的进程按任务ID登记，可通过cancel(jobId)取消；不启动进程的阶段通过checkCancelled()响应取消
+ */
+@Log4j2
+@Service
+public class ProcessSupervisor {
+
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * 消费进程标准输出的处理器，在调用线程中执行
+     */
+    @FunctionalInterface
+    public interface StdoutHandler {
+        void handle(InputStream stdout) throws IOException;
+    }
+
+    private static final ThreadLocal<String> CURRENT_JOB = new ThreadLocal<>();
+
+    private final Map<String, Set<Process>> jobProcesses = new ConcurrentHashMap<>();
+    // 当前绑定到线程的任务及其是否已被取消；任务结束解绑后移除，已结束任务的取消请求不会留下记录
+    private final Map<String, Boolean> boundJobs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "process-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService drainers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "process-drainer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 将当前线程绑定到扫描任务，之后在该线程启动的进程都归属于此任务
+     */
+    public void bindJob(String jobId) {
+        CURRENT_JOB.set(jobId);
+        boundJobs.put(jobId, Boolean.FALSE);
+    }
+
+    public void unbindJob() {
+        String jobId = CURRENT_JOB.get();
+        CURRENT_JOB.remove();
+        if (jobId != null) {
+            jobProcesses.remove(jobId);
+            boundJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 取消任务：杀死该任务所有正在运行的进程，并拒绝该任务之后再启动进程
+     * 只对仍绑定在线程上的任务生效；尚未开始或已结束的任务由调用方处理
+     * @return 是否有进程被杀死
+     */
+    public boolean cancel(String jobId) {
+        if (boundJobs.computeIfPresent(jobId, (k, cancelled) -> Boolean.TRUE) == null) {
+            return false;
+        }
+        Set<Process> processes = jobProcesses.get(jobId);
+        if (processes == null || processes.isEmpty()) {
+            return false;
+        }
+        for (Process process : processes) {
+            log.info("取消任务 {}，终止进程 {}", jobId, process.pid());
+            killTree(process);
+        }
+        return true;
+    }
+
+    /**
+     * 当前线程绑定的任务已被取消时抛出CancellationException
+     * 不启动外部进程的阶段（原生引擎扫描、缓存命中、合并、增强、保存）无法被cancel()打断，由调用方在阶段之间检查
+     */
+    public void checkCancelled() {
+        String jobId = CURRENT_JOB.get();
+        if (isCancelled(jobId)) {
+            throw new CancellationException("任务已取消: " + jobId);
+        }
+    }
+
+    /**
+     * 执行命令，标准输出和错误输出均读入环形缓冲区
+     */
+    public Result run(List<String> command, File workDir, Duration timeout) throws IOException {
+        return run(command, workDir, timeout, null);
+    }
+
+    /**
+     * 执行命令
+     *
+     * @param command 命令及参数
+     * @param workDir 工作目录，可为null
+     * @param timeout 墙钟时间上限
+     * @param stdoutHandler 在调用线程中消费标准输出，为null时标准输出直接读入缓冲区；
+     *                      处理器读到的数据同样会保留最后一段在结果中
+     * @return 执行结果
+     */
+    public Result run(List<String> command, File workDir, Duration timeout, StdoutHandler stdoutHandler) throws IOException {
+        String jobId = CURRENT_JOB.get();
+        if (isCancelled(jobId)) {
+            throw new CancellationException("任务已取消: " + jobId);
+        }
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (workDir != null) {
+            pb.directory(workDir);
+        }
+        long start = System.nanoTime();
+        Process process = pb.start();
+        if (jobId != null) {
+            jobProcesses.computeIfAbsent(jobId, k -> ConcurrentHashMap.newKeySet()).add(process);
+            // 取消可能发生在上面的检查与登记之间，此时cancel()没有找到这个进程
+            if (isCancelled(jobId)) {
+                killTree(process);
+                jobProcesses.get(jobId).remove(process);
+                throw new CancellationException("任务已取消: " + jobId);
+            }
+        }
+
+        RingBuffer stdout = new RingBuffer(OUTPUT_BUFFER_BYTES);
+        RingBuffer stderr = new RingBuffer(OUTPUT_BUFFER_BYTES);
+        Result result = new Result();
+        ScheduledFuture<?> timer = watchdog.schedule(() -> {
+            if (process.isAlive()) {
+                result.timedOut = true;
+                log.warn("进程超时（{} 秒），终止进程树: {}", timeout.getSeconds(), command.get(0));
+                killTree(process);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            Future<?> stderrDrain = drainers.submit(() -> drain(process.getErrorStream(), stderr));
+            if (stdoutHandler != null) {
+                try (InputStream in = new TeeInputStream(process.getInputStream(), stdout)) {
+                    stdoutHandler.handle(in);
+                }
+                // 处理器可能没有读完输出，继续排空，避免进程阻塞在写管道上
+                drain(process.getInputStream(), stdout);
+            } else {
+                drain(process.getInputStream(), stdout);
+            }
+
+            long remaining = timeout.toNanos() - (System.nanoTime() - start);
+            if (!process.waitFor(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                result.timedOut = true;
+                killTree(process);
+                process.waitFor(10, TimeUnit.SECONDS);
+            }
+            waitQuietly(stderrDrain);
+            result.exitCode = process.isAlive() ? -1 : process.exitValue();
+        } catch (InterruptedException e) {
+            killTree(process);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("等待进程时被中断");
+        } catch (IOException | RuntimeException e) {
+            killTree(process);
+            // 进程因超时或取消被终止导致处理器读取失败时，通过结果标志返回，而不是当作处理器错误
+            if (!result.timedOut && !isCancelled(jobId)) {
+                throw e;
+            }
+        } finally {
+            timer.cancel(false);
+            if (jobId != null) {
+                Set<Process> processes = jobProcesses.get(jobId);
+                if (processes != null) {
+                    processes.remove(process);
+                }
+                result.cancelled = isCancelled(jobId);
+            }
+            result.stdout = stdout.toString();
+            result.stderr = stderr.toString();
+            result.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private boolean isCancelled(String jobId) {
+        return jobId != null && Boolean.TRUE.equals(boundJobs.get(jobId));
+    }
+
+    private void killTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private void drain(InputStream in, RingBuffer buffer) {
+        byte[] buf = new byte[8192];
+        try {
+            int r;
+            while ((r = in.read(buf)) != -1) {
+                buffer.write(buf, 0, r);
+            }
+        } catch (IOException ignored) {
+            // 进程被杀死时管道关闭
+        }
+    }
+
+    private void waitQuietly(Future<?> future) {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        drainers.shutdownNow();
+    }
+
+    /**
+     * 进程执行结果
+     */
+    public static class Result {
+        private int exitCode = -1;
+        private volatile boolean timedOut;
+        private boolean cancelled;
+        private String stdout;
+        private String stderr;
+        private long durationMillis;
+
+        public boolean isSuccess() {
+            return exitCode == 0 && !timedOut && !cancelled;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * 标准输出的最后一段（最多64KB）
+         */
+        public String getStdout() {
+            return stdout;
+        }
+
+        /**
+         * 错误输出的最后一段（最多64KB）
+         */
+        public String getStderr() {
+            return stderr;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * 只保留最后capacity个字节的输出缓冲区
+     */
+    static class RingBuffer {
+        private final byte[] data;
+        private long written;
+
+        RingBuffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        synchronized void write(byte[] b, int off, int len) {
+            if (len >= data.length) {
+                off += len - data.length;
+                len = data.length;
+            }
+            int pos = (int) (written % data.length);
+            int first = Math.min(len, data.length - pos);
+            System.arraycopy(b, off, data, pos, first);
+            System.arraycopy(b, off + first, data, 0, len - first);
+            written += len;
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (written <= data.length) {
+                return new String(data, 0, (int) written, StandardCharsets.UTF_8);
+            }
+            int pos = (int) (written % data.length);
+            byte[] ordered = new byte[data.length];
+            System.arraycopy(data, pos, ordered, 0, data.length - pos);
+            System.arraycopy(data, 0, ordered, data.length - pos, pos);
+            return new String(ordered, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 读取时同时把数据写入环形缓冲区；关闭时不关闭底层流，由监管方继续排空
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final RingBuffer copy;
+
+        TeeInputStream(InputStream in, RingBuffer copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                copy.write(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int r = super.read(b, off, len);
+            if (r > 0) {
+                copy.write(b, off, r);
+            }
+            return r;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import com.platform.sbom.model.SBOM;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SBOM的批量JDBC写入
+ * JPA级联保存时每个组件、依赖关系和dependsOn字符串都是一条INSERT，且IDENTITY主键使Hibernate无法批处理。
+ * 这里先从SBOMIdAllocator一次预留组件和依赖关系的编号，再用JdbcTemplate.batchUpdate分批写入
+ * （连接参数rewriteBatchedStatements=true时驱动将每批改写为多行INSERT），往返次数与批大小成反比。
+ * 在调用方的事务中执行，写入后实体上的编号与数据库一致，JPA只用于读取
+ */
+@Log4j2
+@Service
+public class SBOMBulkWriter {
+
+    private static final String INSERT_SBOM = "INSERT INTO sbom (id, sbom_id, version, name, timestamp, namespace, "
+            + "tool_name, tool_version, spec_version, component_count, dependency_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_COMPONENT = "INSERT INTO component (id, sbom_id, sbom_ref, name, version, type, "
+            + "license, purl, cpe, source_repo, vendor, home_page, description, file_path, sha256) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DEPENDENCY = "INSERT INTO dependency (id, sbom_id, ref) VALUES (?, ?, ?)";
+    private static final String INSERT_DEPENDS_ON = "INSERT INTO dependency_depends_on (dependency_id, depends_on) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SBOMIdAllocator idAllocator;
+    private final int batchSize;
+
+    public SBOMBulkWriter(JdbcTemplate jdbcTemplate, SBOMIdAllocator idAllocator,
+                          @Value("${sbom.persistence.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 写入SBOM及其组件、依赖关系
+     * @param sbom 已分配编号的SBOM，组件和依赖关系的编号在写入时分配并回填
+     * @return 传入的SBOM
+     */
+    public SBOM insert(SBOM sbom) {
+        long start = System.nanoTime();
+        List<Component> components = sbom.getComponents() != null ? sbom.getComponents() : Collections.emptyList();
+        List<Dependency> dependencies = sbom.getDependencies() != null ? sbom.getDependencies() : Collections.emptyList();
+        Long sbomId = sbom.getId();
+        sbom.setComponentCount(components.size());
+        sbom.setDependencyCount(dependencies.size());
+
+        jdbcTemplate.update(INSERT_SBOM, sbomId, sbom.getSbomId(), sbom.getVersion(), sbom.getName(),
+                sbom.getTimestamp() != null ? Timestamp.valueOf(sbom.getTimestamp()) : null,
+                sbom.getNamespace(), sbom.getToolName(), sbom.getToolVersion(), sbom.getSpecVersion(),
+                sbom.getComponentCount(), sbom.getDependencyCount());
+
+        if (!components.isEmpty()) {
+            long firstId = idAllocator.reserve(SBOMIdAllocator.COMPONENT, components.size());
+            for (int i = 0; i < components.size(); i++) {
+                components.get(i).setId(firstId + i);
+            }
+            jdbcTemplate.batchUpdate(INSERT_COMPONENT, components, batchSize, (ps, c) -> {
+                ps.setLong(1, c.getId());
+                ps.setLong(2, sbomId);
+                ps.setString(3, c.getSbomRef());
+                ps.setString(4, c.getName());
+                ps.setString(5, c.getVersion());
+                ps.setString(6, c.getType());
+                ps.setString(7, c.getLicense());
+                ps.setString(8, c.getPurl());
+                ps.setString(9, c.getCpe());
+                ps.setString(10, c.getSourceRepo());
+                ps.setString(11, c.getVendor());
+                ps.setString(12, c.getHomePage());
+                ps.setString(13, c.getDescription());
+                ps.setString(14, c.getFilePath());
+                ps.setString(15, c.getSha256());
+            });
+        }
+
+        int edges = 0;
+        if (!dependencies.isEmpty()) {
+            long firstId = idAllocator.reserve(SBOMIdAllocator.DEPENDENCY, dependencies.size());
+            List<Object[]> dependsOn = new ArrayList<>();
+            for (int i = 0; i < dependencies.size(); i++) {
+                Dependency dep = dependencies.get(i);
+                dep.setId(firstId + i);
+                if (dep.getDependsOn() != null) {
+                    for (String target : dep.getDependsOn()) {
+                        dependsOn.add(new Object[]{dep.getId(), target});
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_DEPENDENCY, dependencies, batchSize, (ps, d) -> {
+                ps.setLong(1, d.getId());
+                ps.setLong(2, sbomId);
+                ps.setString(3, d.getRef());
+            });
+            jdbcTemplate.batchUpdate(INSERT_DEPENDS_ON, dependsOn, batchSize, (ps, row) -> {
+                ps.setLong(1, (Long) row[0]);
+                ps.setString(2, (String) row[1]);
+            });
+            edges = dependsOn.size();
+        }
+
+        log.info("批量写入SBOM {}：{} 个组件，{} 个依赖关系，{} 条依赖边，耗时 {} ms", sbomId, components.size(),
+                dependencies.size(), edges, (System.nanoTime() - start) / 1_000_000);
+        return sbom;
+    }
+
+    /**
+     * 按SBOM删除组件、依赖关系和SBOM本身，每张表一条DELETE
+     */
+    public void delete(Long sbomId) {
+        jdbcTemplate.update("DELETE FROM dependency_depends_on WHERE dependency_id IN "
+                + "(SELECT id FROM dependency WHERE sbom_id = ?)", sbomId);
+        jdbcTemplate.update("DELETE FROM dependency WHERE sbom_id = ?", sbomId);
+        jdbcTemplate.update("DELETE FROM component WHERE sbom_id = ?", sbomId);
+        jdbcTemplate.update("DELETE FROM sbom WHERE id = ?", sbomId);
+    }
+}
@@ -0,0 +1,152 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.graph.ReachabilityIndex;
+import com.platform.sbom.model.SBOM;
+import com.platform.sbom.repository.SBOMRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * SBOM依赖图查询：哪些顶层组件引入了某个包、经由哪些路径，以及反向依赖
+ * 可达性索引在SBOM入库时构建并放入内存LRU，未命中（如重启后）时从数据库加载SBOM重建
+ */
+@Log4j2
+@Service
+public class SBOMGraphService {
+
+    private final SBOMRepository repo;
+    private final long closureBudgetBytes;
+    private final Map<Long, ReachabilityIndex> cache;
+
+    public SBOMGraphService(SBOMRepository repo,
+                            @Value("${sbom.graph.cache-entries:16}") int cacheEntries,
+                            @Value("${sbom.graph.closure-budget-bytes:67108864}") long closureBudgetBytes) {
+        this.repo = repo;
+        this.closureBudgetBytes = closureBudgetBytes;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ReachabilityIndex> eldest) {
+                return size() > cacheEntries;
+            }
+        });
+    }
+
+    /**
+     * 入库时构建索引，事务提交后放入缓存
+     */
+    public void index(SBOM sbom) {
+        ReachabilityIndex index = build(sbom);
+        Long id = sbom.getId();
+        afterCommit(() -> cache.put(id, index));
+    }
+
+    /**
+     * SBOM删除时移除缓存的索引
+     */
+    public void evict(Long id) {
+        cache.remove(id);
+        afterCommit(() -> cache.remove(id));
+    }
+
+    public Optional<ReachabilityIndex> get(Long id) {
+        ReachabilityIndex index = cache.get(id);
+        if (index != null) {
+            return Optional.of(index);
+        }
+        Optional<SBOM> sbom = repo.findById(id);
+        if (sbom.isEmpty()) {
+            return Optional.empty();
+        }
+        index = build(sbom.get());
+        cache.put(id, index);
+        return Optional.of(index);
+    }
+
+    /**
+     * 哪些顶层组件传递依赖了目标组件，以及每个顶层组件到目标的一条最短路径
+     * @param targets ReachabilityIndex.find的结果
+     * @param maxPaths 最多返回的路径数
+     */
+    public Map<String, Object> reachability(ReachabilityIndex index, int[] targets, int maxPaths) {
+        int[] tops = index.topLevelReaching(targets);
+        Map<Integer, int[]> paths = index.paths(targets, tops, maxPaths);
+
+        List<Map<String, Object>> topLevel = new ArrayList<>();
+        for (int top : tops) {
+            Map<String, Object> entry = describe(index, top);
+            int[] path = paths.get(top);
+            if (path != null) {
+                List<String> refs = new ArrayList<>(path.length);
+                for (int v : path) {
+                    refs.add(index.ref(v));
+                }
+                entry.put("path", refs);
+            }
+            topLevel.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targets", describeAll(index, targets));
+        result.put("topLevelCount", tops.length);
+        result.put("topLevel", topLevel);
+        return result;
+    }
+
+    /**
+     * 依赖目标组件的组件
+     * @param transitive false时只返回直接依赖方
+     */
+    public Map<String, Object> dependents(ReachabilityIndex index, int[] targets, boolean transitive) {
+        int[] dependents = index.dependents(targets, transitive);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targets", describeAll(index, targets));
+        result.put("transitive", transitive);
+        result.put("count", dependents.length);
+        result.put("dependents", describeAll(index, dependents));
+        return result;
+    }
+
+    private ReachabilityIndex build(SBOM sbom) {
+        long start = System.currentTimeMillis();
+        ReachabilityIndex index = ReachabilityIndex.build(sbom.getComponents(), sbom.getDependencies(), closureBudgetBytes);
+        log.info("SBOM {} 可达性索引构建完成：{} 个组件，{} 条边，{} 个强连通分量，{} 个顶层组件，预计算闭包: {}，耗时 {} ms",
+                sbom.getId(), index.componentCount(), index.edgeCount(), index.sccCount(), index.topLevelCount(),
+                index.hasClosures(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private List<Map<String, Object>> describeAll(ReachabilityIndex index, int[] ids) {
+        List<Map<String, Object>> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(describe(index, id));
+        }
+        return result;
+    }
+
+    private Map<String, Object> describe(ReachabilityIndex index, int id) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("ref", index.ref(id));
+        entry.put("name", index.name(id));
+        entry.put("version", index.version(id));
+        entry.put("purl", index.purl(id));
+        return entry;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.platform.sbom.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * SBOM数据编号的hi/lo分配器
+ * 每张表（sbom、component、dependency）的下一个可用编号保存在 sbom_id_allocator 表中：
+ * 在独立的短事务里用 SELECT ... FOR UPDATE 一次预留一段连续编号，预留只锁分配器的一行，与正在进行的扫描事务无关。
+ * SBOM编号按段（block-size个）预留后在内存中逐个分配；组件和依赖关系在批量写入时按实际数量一次预留。
+ * 多个实例各自持有不相交的编号段，互不冲突；实例重启时未用完的编号被跳过，编号可能不连续但不会重复。
+ * 预留发生在扫描事务内，每个扫描同时占用两个连接，因此启动时检查连接池大于扫描工作线程总数
+ */
+@Log4j2
+@Service
+public class SBOMIdAllocator {
+
+    public static final String SBOM = "sbom";
+    public static final String COMPONENT = "component";
+    public static final String DEPENDENCY = "dependency";
+    private static final Set<String> SEQUENCES = Set.of(SBOM, COMPONENT, DEPENDENCY);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTx;
+    private final int blockSize;
+    private final Set<String> initialized = Collections.synchronizedSet(new HashSet<>());
+    private long next;
+    private long limit;
+
+    /**
+     * @throws IllegalStateException 连接池不大于扫描工作线程总数时抛出：扫描事务在整个扫描期间占用一个连接，
+     *                               预留编号的独立事务还需要第二个，所有工作线程同时进入预留时会互相等待直到连接池超时
+     */
+    public SBOMIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           @Value("${sbom.id.block-size:50}") int blockSize,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                           @Value("${sbom.scan.pool-size:2}") int scanPoolSize,
+                           @Value("${sbom.batch.parallelism:4}") int batchParallelism) {
+        int workers = scanPoolSize + batchParallelism;
+        if (connectionPoolSize <= workers) {
+            throw new IllegalStateException("数据库连接池大小 " + connectionPoolSize + " 必须大于扫描工作线程总数 " + workers
+                    + "（sbom.scan.pool-size + sbom.batch.parallelism），请调大 spring.datasource.hikari.maximum-pool-size");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.reserveTx = new TransactionTemplate(transactionManager);
+        this.reserveTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * @return 新的SBOM编号
+     */
+    public synchronized long nextId() {
+        if (next >= limit) {
+            next = reserve(SBOM, blockSize);
+            limit = next + blockSize;
+            log.debug("预留SBOM编号段 [{}, {})", next, limit);
+        }
+        return next++;
+    }
+
+    /**
+     * 为一张表预留一段连续编号
+     * @param sequence 表名：sbom、component 或 dependency
+     * @param count 编号数量
+     * @return 第一个编号，预留的范围为 [返回值, 返回值 + count)
+     */
+    public long reserve(String sequence, int count) {
+        if (!SEQUENCES.contains(sequence)) {
+            throw new IllegalArgumentException("未知的编号序列: " + sequence);
+        }
+        if (!initialized.contains(sequence)) {
+            initialize(sequence);
+        }
+        return reserveTx.execute(status -> {
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT next_value FROM sbom_id_allocator WHERE name = ? FOR UPDATE", Long.class, sequence);
+            jdbcTemplate.update("UPDATE sbom_id_allocator SET next_value = ? WHERE name = ?", current + count, sequence);
+            return current;
+        });
+    }
+
+    /**
+     * 创建分配器表；序列首次使用时从对应表现有的最大编号之后开始（多个实例同时初始化时只有一行生效）
+     */
+    private void initialize(String sequence) {
+        reserveTx.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS sbom_id_allocator ("
+                    + "name VARCHAR(64) NOT NULL PRIMARY KEY, next_value BIGINT NOT NULL)");
+            // 表名来自SEQUENCES白名单
+            jdbcTemplate.update("INSERT IGNORE INTO sbom_id_allocator (name, next_value) "
+                    + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + sequence, sequence);
+        });
+        initialized.add(sequence);
+    }
+}
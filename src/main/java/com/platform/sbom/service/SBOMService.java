@@ -1,19 +1,34 @@
 package com.platform.sbom.service;
 
 import com.platform.sbom.converter.SBOMConverter;
+import com.platform.sbom.enrichment.EnrichmentPipeline;
+import com.platform.sbom.graph.DependencyGraph;
+import com.platform.sbom.merge.ComponentMergeEngine;
 import com.platform.sbom.model.*;
+import com.platform.sbom.mongo.FileManifestDocument;
+import com.platform.sbom.mongo.FileManifestDocument.FileFingerprint;
 import com.platform.sbom.mongo.SBOMDocument;
 import com.platform.sbom.mongo.SBOMDocumentRepository;
+import com.platform.sbom.parser.ScanResultCollector;
 import com.platform.sbom.repository.SBOMRepository;
+import com.platform.sbom.util.ArchiveExtractor;
+import com.platform.sbom.util.ContentDigests;
+import com.platform.sbom.util.DependencyAdjacency;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Log4j2
 @Service
@@ -22,35 +37,47 @@ public class SBOMService {
     private final SBOMDocumentRepository docRepo;
     private final SyftService syftService;
     private final SBOMConverter converter;
-    private final JdbcTemplate jdbcTemplate;
-    
+    private final SBOMIdAllocator idAllocator;
+    private final SBOMBulkWriter bulkWriter;
+    private final FileManifestService fileManifestService;
+    private final LayeredImageScanService layeredImageScanService;
+    private final ScannerService scannerService;
+    private final SBOMGraphService graphService;
+    private final EnrichmentPipeline enrichmentPipeline;
+    private final ProcessSupervisor processSupervisor;
+    private final ComponentMergeEngine mergeEngine = new ComponentMergeEngine();
+    private final long maxExtractedBytes;
+    private final int maxArchiveEntries;
+
 
     public SBOMService(SBOMRepository repo, SBOMDocumentRepository docRepo, SyftService syftService,
-                       SBOMConverter converter, JdbcTemplate jdbcTemplate) {
+                       SBOMConverter converter, SBOMIdAllocator idAllocator, SBOMBulkWriter bulkWriter,
+                       FileManifestService fileManifestService,
+                       LayeredImageScanService layeredImageScanService, ScannerService scannerService,
+                       SBOMGraphService graphService, EnrichmentPipeline enrichmentPipeline,
+                       ProcessSupervisor processSupervisor,
+                       @Value("${sbom.upload.max-extracted-bytes:21474836480}") long maxExtractedBytes,
+                       @Value("${sbom.upload.max-entries:1000000}") int maxArchiveEntries) {
         this.repo = repo;
         this.docRepo = docRepo;
         this.syftService = syftService;
         this.converter = converter;
-        this.jdbcTemplate = jdbcTemplate;
-        
+        this.idAllocator = idAllocator;
+        this.bulkWriter = bulkWriter;
+        this.fileManifestService = fileManifestService;
+        this.layeredImageScanService = layeredImageScanService;
+        this.scannerService = scannerService;
+        this.graphService = graphService;
+        this.enrichmentPipeline = enrichmentPipeline;
+        this.processSupervisor = processSupervisor;
+        this.maxExtractedBytes = maxExtractedBytes;
+        this.maxArchiveEntries = maxArchiveEntries;
     }
 
     public boolean existsById(Long id) {
         return repo.existsById(id);
     }
 
-    public List<SBOM> listAll() {
-        return repo.findAll();
-    }
-
-    /**
-     * 获取所有SBOM列表
-     * @return SBOM列表
-     */
-    public List<SBOM> getAllSBOMs() {
-        return listAll();
-    }
-
     /**
      * 根据ID获取SBOM
      * @param id SBOM的ID
@@ -69,76 +96,161 @@ public class SBOMService {
      */
     @Transactional
     public SBOM generate(String name, MultipartFile[] folder, MultipartFile img, String format) throws Exception {
-        // Save files to temp directory
-        File tmpF = Files.createTempDirectory("sys").toFile();
-        Map<String, String> originalPaths = new HashMap<>();
+        File tmpF = stageUpload(folder);
+        File tmpI = stageImage(img);
+        return generate(name, tmpF, tmpI, img != null ? img.getOriginalFilename() : null, format);
+    }
 
+    /**
+     * 将上传的系统文件夹保存到临时目录
+     * 上传文件只在请求期间有效，异步扫描前必须先调用此方法落盘
+     * @param folder 上传的文件
+     * @return 临时目录
+     */
+    public File stageUpload(MultipartFile[] folder) throws IOException {
+        File tmpF = Files.createTempDirectory("sys").toFile();
         for (MultipartFile mf : folder) {
             String originalName = mf.getOriginalFilename();
             File dest = new File(tmpF, originalName);
             dest.getParentFile().mkdirs();
             mf.transferTo(dest);
+        }
+        return tmpF;
+    }
 
-            if (originalName != null) {
-                originalPaths.put(dest.getAbsolutePath(), originalName);
-            }
+    /**
+     * 将请求体中的tar、tar.gz或zip边接收边解压到临时目录，每个字节只写盘一次
+     * @param archive 归档流，不会被关闭
+     * @return 临时目录
+     * @throws IOException 归档格式不支持、条目路径非法或超出解压大小/条目数上限时抛出，此时已删除临时目录
+     */
+    public File stageArchive(InputStream archive) throws IOException {
+        File tmpF = Files.createTempDirectory("sys").toFile();
+        try {
+            int files = ArchiveExtractor.extract(archive, tmpF.toPath(), maxExtractedBytes, maxArchiveEntries);
+            log.info("归档已解压到 {}，共 {} 个文件", tmpF, files);
+            return tmpF;
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(tmpF);
+            throw e;
         }
+    }
 
-        // 同时使用SPDX和CycloneDX格式生成SBOM
-        log.info("同时使用SPDX和CycloneDX格式生成SBOM，以获取最全面的组件信息");
-        
-        // 使用SPDX格式扫描
-        Map<String, Object> spdxData = syftService.scanFileSystemSPDX(tmpF.getAbsolutePath());
-        List<Component> spdxComponents = (List<Component>) spdxData.get("components");
-        List<Dependency> spdxDependencies = (List<Dependency>) spdxData.get("dependencies");
-        log.info("SPDX格式扫描发现 {} 个组件和 {} 个依赖关系", 
-                spdxComponents.size(), spdxDependencies.size());
-        
-        // 使用CycloneDX格式扫描
-        Map<String, Object> cdxData = syftService.scanFileSystemCycloneDX(tmpF.getAbsolutePath());
-        List<Component> cdxComponents = (List<Component>) cdxData.get("components");
-        List<Dependency> cdxDependencies = (List<Dependency>) cdxData.get("dependencies");
-        log.info("CycloneDX格式扫描发现 {} 个组件和 {} 个依赖关系", 
-                cdxComponents.size(), cdxDependencies.size());
-                
-        // 统计组件属性情况，用于调试
-        countNonEmptyProperties(spdxComponents, "SPDX组件");
-        countNonEmptyProperties(cdxComponents, "CycloneDX组件");
-                
-        // 合并两种格式的结果
-        List<Component> mergedComponents = mergeComponents(spdxComponents, cdxComponents);
-        List<Dependency> mergedDependencies = mergeDependencies(spdxDependencies, cdxDependencies);
-        log.info("合并后有 {} 个组件和 {} 个依赖关系", 
-                mergedComponents.size(), mergedDependencies.size());
-        
-        // 统计合并后的情况
-        countNonEmptyProperties(mergedComponents, "合并后组件");
+    /**
+     * 将上传的容器镜像tar保存到临时文件
+     * @param img 上传的镜像文件，可为null
+     * @return 临时文件，未上传镜像时返回null
+     */
+    public File stageImage(MultipartFile img) throws IOException {
+        if (img == null || img.isEmpty()) {
+            return null;
+        }
+        File tmpI = File.createTempFile("img", ".tar");
+        img.transferTo(tmpI);
+        return tmpI;
+    }
 
-        // 增强组件元数据
-        enrichMavenMetadata(mergedComponents);
-        enhanceCpeInfo(mergedComponents);
-        enhanceLicenseInfo(mergedComponents);
+    /**
+     * 删除已落盘的上传文件
+     */
+    public void discardStaged(File tmpF, File tmpI) {
+        if (tmpF != null) {
+            FileSystemUtils.deleteRecursively(tmpF);
+        }
+        if (tmpI != null) {
+            tmpI.delete();
+        }
+    }
+
+    /**
+     * 对已落盘的系统目录（及可选的镜像tar）生成SBOM，结束后清理这些临时文件
+     * @param name SBOM名称
+     * @param tmpF 系统文件所在的临时目录，只扫描镜像时为null
+     * @param tmpI 容器镜像tar临时文件，可为null
+     * @param imageFileName 镜像文件的原始文件名
+     * @param format 请求的格式（目前总是生成增强格式）
+     * @return 已保存的SBOM
+     */
+    @Transactional
+    public SBOM generate(String name, File tmpF, File tmpI, String imageFileName, String format) throws Exception {
+        return generate(name, tmpF, tmpI, imageFileName, format, true);
+    }
+
+    /**
+     * 对已落盘的系统目录（及可选的镜像tar）生成SBOM，结束后清理这些临时文件
+     * @param incremental 是否与该系统上次的文件清单比较，只扫描新增或变化的文件
+     */
+    @Transactional
+    public SBOM generate(String name, File tmpF, File tmpI, String imageFileName, String format,
+                         boolean incremental) throws Exception {
+        return generate(name, tmpF, tmpI, imageFileName, format, incremental, ScanEngine.SYFT);
+    }
+
+    /**
+     * 对已落盘的系统目录（及可选的镜像tar）生成SBOM，结束后清理这些临时文件
+     * @param incremental 是否与该系统上次的文件清单比较，只扫描新增或变化的文件
+     * @param engine 扫描引擎
+     */
+    @Transactional
+    public SBOM generate(String name, File tmpF, File tmpI, String imageFileName, String format,
+                         boolean incremental, ScanEngine engine) throws Exception {
+        try {
+            return generateStaged(name, tmpF, tmpI, imageFileName, incremental, engine);
+        } finally {
+            discardStaged(tmpF, tmpI);
+        }
+    }
+
+    /**
+     * 只对已落盘的容器镜像tar生成SBOM，结束后删除该文件
+     * @param tmpI 镜像tar
+     * @param imageFileName 镜像文件的原始文件名
+     */
+    @Transactional
+    public SBOM generateForImageArchive(String name, File tmpI, String imageFileName, String format,
+                                        ScanEngine engine) throws Exception {
+        return generate(name, null, tmpI, imageFileName, format, false, engine);
+    }
+
+    private SBOM generateStaged(String name, File tmpF, File tmpI, String imageFileName, boolean incremental,
+                                ScanEngine engine) throws Exception {
+        Map<String, Object> merged = null;
+        List<FileFingerprint> fingerprints = null;
+        if (tmpF != null) {
+            // 计算本次上传的文件指纹；这些哈希同时用作Syft扫描缓存的Merkle键，目录中的文件只读取一次
+            Optional<FileManifestDocument> manifest = fileManifestService.find(name);
+            Map<String, FileFingerprint> previousFiles = manifest
+                    .map(m -> m.getFiles().stream().collect(Collectors.toMap(FileFingerprint::getPath, Function.identity(), (a, b) -> a)))
+                    .orElse(Collections.emptyMap());
+            fingerprints = fileManifestService.fingerprint(tmpF.toPath());
+
+            if (incremental && manifest.isPresent()) {
+                merged = scanIncrementally(tmpF, manifest.get(), previousFiles, fingerprints, engine);
+            }
+            if (merged == null) {
+                merged = scanDirectory(engine, tmpF.getAbsolutePath(), "文件系统", fileHashes(fingerprints, null));
+            }
+        } else {
+            // 只上传了镜像
+            merged = new HashMap<>();
+            merged.put("components", new ArrayList<Component>());
+            merged.put("dependencies", new ArrayList<Dependency>());
+        }
+        List<Component> mergedComponents = (List<Component>) merged.get("components");
+        List<Dependency> mergedDependencies = (List<Dependency>) merged.get("dependencies");
 
         // 处理容器镜像（如果提供）
-        if (img != null && !img.isEmpty()) {
-            File tmpI = File.createTempFile("img", ".tar");
-            img.transferTo(tmpI);
-
-            // 同时使用两种格式扫描容器镜像
-            // SPDX格式
-            Map<String, Object> spdxImageData = syftService.scanContainerImageFromFileSPDX(tmpI);
-            List<Component> spdxImageComps = (List<Component>) spdxImageData.get("components");
-            List<Dependency> spdxImageDeps = (List<Dependency>) spdxImageData.get("dependencies");
-            
-            // CycloneDX格式
-            Map<String, Object> cdxImageData = syftService.scanContainerImageFromFileCycloneDX(tmpI);
-            List<Component> cdxImageComps = (List<Component>) cdxImageData.get("components");
-            List<Dependency> cdxImageDeps = (List<Dependency>) cdxImageData.get("dependencies");
-            
-            // 合并容器镜像扫描结果
-            List<Component> mergedImageComps = mergeComponents(spdxImageComps, cdxImageComps);
-            List<Dependency> mergedImageDeps = mergeDependencies(spdxImageDeps, cdxImageDeps);
-            
+        if (tmpI != null) {
+            Map<String, Object> mergedImage;
+            if (engine == ScanEngine.NATIVE) {
+                mergedImage = nativeResult(scannerService.scanContainerImageFromFile(tmpI));
+            } else {
+                // 按层扫描容器镜像（已缓存的层不再扫描），并合并各格式的结果
+                mergedImage = mergeScanViews(layeredImageScanService.scanDockerArchive(tmpI), "容器镜像文件");
+            }
+            List<Component> mergedImageComps = (List<Component>) mergedImage.get("components");
+            List<Dependency> mergedImageDeps = (List<Dependency>) mergedImage.get("dependencies");
+
             log.info("Syft在容器镜像中发现 {} 个组件和 {} 个依赖关系", 
                     mergedImageComps.size(), mergedImageDeps.size());
 
@@ -152,30 +264,34 @@ public class SBOMService {
             // 添加镜像中的组件和依赖关系
             mergedComponents.addAll(mergedImageComps);
             mergedDependencies.addAll(mergedImageDeps);
-            
-            tmpI.delete();
         }
 
+        // 原生引擎和缓存命中不启动进程，取消请求只能在阶段之间响应
+        processSupervisor.checkCancelled();
+        // 增强组件元数据（包括镜像中的组件，与容器镜像扫描一致）
+        enrich(mergedComponents);
+
         // 创建基于扫描源的SourceInfo
         SourceInfo sourceInfo = new SourceInfo();
-        FileSystemInfo fsInfo = new FileSystemInfo(tmpF.getAbsolutePath(), true);
-        sourceInfo.setFilesystem(fsInfo);
+        if (tmpF != null) {
+            FileSystemInfo fsInfo = new FileSystemInfo(tmpF.getAbsolutePath(), true);
+            sourceInfo.setFilesystem(fsInfo);
+        }
 
-        if (img != null && !img.isEmpty()) {
-            ImageInfo imgInfo = new ImageInfo(img.getOriginalFilename(), "local-upload");
+        if (tmpI != null) {
+            ImageInfo imgInfo = new ImageInfo(imageFileName, "local-upload");
             sourceInfo.setImage(imgInfo);
         }
 
         // 构建SBOM对象
         SBOM sb = new SBOM();
-        // 手动设置ID
-        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sbom", Long.class);
-        sb.setId(maxId + 1);
+        // 由hi/lo分配器分配ID，并发扫描和多实例之间不会冲突
+        sb.setId(idAllocator.nextId());
         sb.setName(name);
         sb.setNamespace("urn:sbom:" + UUID.randomUUID());
         
         // 设置工具名称和版本
-        sb.setToolName("SBOMPlatform-Syft-Enhanced");
+        sb.setToolName(engine.getToolName());
         sb.setToolVersion("1.0.0");
         
         // 确保依赖关系引用的组件ID与实际组件一致
@@ -188,14 +304,163 @@ public class SBOMService {
         // 设置所使用的规范标准（标记为自定义格式）
         sb.setSpecVersion("CUSTOM-ENHANCED-1.0");
 
+        // 保存前最后一次响应取消，抛出的异常使事务回滚
+        processSupervisor.checkCancelled();
         // 保存到数据库
-        SBOM saved = repo.save(sb);
+        SBOM saved = bulkWriter.insert(sb);
         String json = converter.toCustomJson(saved);
         docRepo.save(new SBOMDocument(saved.getId(), json));
+        graphService.index(saved);
+        if (fingerprints != null) {
+            fileManifestService.save(name, saved.getId(), fingerprints);
+        }
 
         return saved;
     }
 
+    /**
+     * 增量扫描：与上次清单比较，只对新增或变化的文件运行Syft，未变化文件的组件从上次的SBOM沿用
+     * @param tmpF 本次上传的系统目录
+     * @param manifest 该系统上次的文件清单
+     * @param previousFiles 上次清单中以路径为键的指纹
+     * @param fingerprints 本次的文件指纹
+     * @return 合并后的组件和依赖关系；无法增量时返回null，由调用方全量扫描
+     */
+    private Map<String, Object> scanIncrementally(File tmpF, FileManifestDocument manifest,
+                                                  Map<String, FileFingerprint> previousFiles,
+                                                  List<FileFingerprint> fingerprints, ScanEngine engine) throws IOException {
+        Optional<SBOM> previous = manifest.getSbomId() != null ? repo.findById(manifest.getSbomId()) : Optional.empty();
+        if (previous.isEmpty()) {
+            log.info("系统 {} 上次的SBOM已不存在，执行全量扫描", manifest.getSystemName());
+            return null;
+        }
+        if (!engine.getToolName().equals(previous.get().getToolName())) {
+            log.info("系统 {} 上次的SBOM由其他扫描引擎生成，执行全量扫描", manifest.getSystemName());
+            return null;
+        }
+
+        FileManifestService.ManifestDiff diff = fileManifestService.diff(previousFiles, fingerprints);
+        if (diff.getUnchanged().isEmpty()) {
+            log.info("系统 {} 没有未变化的文件，执行全量扫描", manifest.getSystemName());
+            return null;
+        }
+
+        // 只有带文件位置的组件才能按文件沿用，上次SBOM中存在无位置的文件系统组件时（如旧版本生成）全量扫描
+        String currentRepo = "filesystem:" + tmpF.getAbsolutePath();
+        List<Component> carried = new ArrayList<>();
+        for (Component comp : previous.get().getComponents()) {
+            if ("container-image".equals(comp.getSourceRepo())) {
+                continue;
+            }
+            String path = FileManifestService.normalizePath(comp.getFilePath());
+            if (path == null) {
+                log.info("上次SBOM中的组件 {} 缺少文件位置，执行全量扫描", comp.getName());
+                return null;
+            }
+            if (diff.getUnchanged().contains(path)) {
+                Component copy = comp.copy();
+                if (copy.getSourceRepo() != null && copy.getSourceRepo().startsWith("filesystem:")) {
+                    copy.setSourceRepo(currentRepo);
+                }
+                carried.add(copy);
+            }
+        }
+        Set<String> carriedRefs = carried.stream().map(Component::getSbomRef).collect(Collectors.toSet());
+        List<Dependency> carriedDeps = new ArrayList<>();
+        for (Dependency dep : previous.get().getDependencies()) {
+            if (carriedRefs.contains(dep.getRef()) || "system".equals(dep.getRef())) {
+                Dependency copy = new Dependency();
+                copy.setRef(dep.getRef());
+                copy.setDependsOn(dep.getDependsOn() != null ? new ArrayList<>(dep.getDependsOn()) : new ArrayList<>());
+                carriedDeps.add(copy);
+            }
+        }
+        log.info("增量扫描：未变化 {} 个文件（沿用 {} 个组件），新增或变化 {} 个文件，删除 {} 个文件",
+                diff.getUnchanged().size(), carried.size(), diff.getChanged().size(), diff.getRemoved());
+
+        if (diff.getChanged().isEmpty()) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("components", carried);
+            result.put("dependencies", carriedDeps);
+            return result;
+        }
+
+        // 把变化的文件按相同的相对路径放入单独目录，只扫描这部分，组件位置与全量扫描时一致
+        Path delta = Files.createTempDirectory("sys-delta");
+        try {
+            for (String path : diff.getChanged()) {
+                Path src = tmpF.toPath().resolve(path.substring(1));
+                Path dest = delta.resolve(path.substring(1));
+                Files.createDirectories(dest.getParent());
+                try {
+                    Files.createLink(dest, src);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(src, dest);
+                }
+            }
+            Map<String, Object> scanned = scanDirectory(engine, delta.toString(), "变化文件",
+                    fileHashes(fingerprints, new HashSet<>(diff.getChanged())));
+            List<Component> deltaComponents = (List<Component>) scanned.get("components");
+            for (Component comp : deltaComponents) {
+                if (comp.getSourceRepo() != null && comp.getSourceRepo().startsWith("filesystem:")) {
+                    comp.setSourceRepo(currentRepo);
+                }
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("components", mergeComponents(carried, deltaComponents));
+            result.put("dependencies", mergeDependencies(carriedDeps, (List<Dependency>) scanned.get("dependencies")));
+            return result;
+        } finally {
+            FileSystemUtils.deleteRecursively(delta);
+        }
+    }
+
+    /**
+     * 用指定引擎扫描目录
+     * @param fileHashes 目录中全部文件以相对路径为键的SHA-256，用于计算扫描缓存键
+     * @return 包含组件列表和依赖关系列表的Map
+     */
+    private Map<String, Object> scanDirectory(ScanEngine engine, String directory, String label,
+                                              Map<String, String> fileHashes) {
+        if (engine == ScanEngine.NATIVE) {
+            List<Component> components = scannerService.scanFileSystem(directory);
+            for (Component comp : components) {
+                if (comp.getSourceRepo() == null) {
+                    comp.setSourceRepo("filesystem:" + directory);
+                }
+            }
+            log.info("{} 原生引擎发现 {} 个组件", label, components.size());
+            return nativeResult(components);
+        }
+        // 单次运行Syft，同时获得SPDX和CycloneDX两种视图
+        log.info("单次运行Syft同时输出SPDX和CycloneDX格式，以获取最全面的组件信息");
+        return mergeScanViews(syftService.scanFileSystem(directory, ContentDigests.merkleRoot(fileHashes)), label);
+    }
+
+    /**
+     * 从文件指纹中取出以相对路径为键的SHA-256
+     * @param paths 只取这些路径的哈希，为null时取全部
+     */
+    private Map<String, String> fileHashes(List<FileFingerprint> fingerprints, Set<String> paths) {
+        Map<String, String> hashes = new HashMap<>();
+        for (FileFingerprint fp : fingerprints) {
+            if (paths == null || paths.contains(fp.getPath())) {
+                hashes.put(fp.getPath(), fp.getSha256());
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * 原生引擎不产生依赖关系，与Syft结果一样以system为根列出所有组件
+     */
+    private Map<String, Object> nativeResult(List<Component> components) {
+        ScanResultCollector collector = new ScanResultCollector();
+        components.forEach(collector::component);
+        return collector.toResult();
+    }
+
     /**
      * 为兼容旧接口的包装方法，使用增强版生成SBOM
      */
@@ -209,49 +474,23 @@ public class SBOMService {
      */
     @Transactional
     public SBOM generateForContainerImage(String name, String imageName, String format) throws Exception {
-        // 同时使用SPDX和CycloneDX格式生成SBOM
-        log.info("同时使用SPDX和CycloneDX格式为容器镜像生成SBOM");
-        
-        // 使用SPDX格式扫描
-        Map<String, Object> spdxData = syftService.scanContainerImageSPDX(imageName);
-        List<Component> spdxComponents = (List<Component>) spdxData.get("components");
-        List<Dependency> spdxDependencies = (List<Dependency>) spdxData.get("dependencies");
-        log.info("SPDX格式扫描容器镜像 {} 发现 {} 个组件和 {} 个依赖关系", 
-                imageName, spdxComponents.size(), spdxDependencies.size());
-        
-        // 使用CycloneDX格式扫描
-        Map<String, Object> cdxData = syftService.scanContainerImageCycloneDX(imageName);
-        List<Component> cdxComponents = (List<Component>) cdxData.get("components");
-        List<Dependency> cdxDependencies = (List<Dependency>) cdxData.get("dependencies");
-        log.info("CycloneDX格式扫描容器镜像 {} 发现 {} 个组件和 {} 个依赖关系", 
-                imageName, cdxComponents.size(), cdxDependencies.size());
-                
-        // 统计组件属性情况，用于调试
-        countNonEmptyProperties(spdxComponents, "SPDX容器镜像组件");
-        countNonEmptyProperties(cdxComponents, "CycloneDX容器镜像组件");
-                
-        // 合并两种格式的结果
-        List<Component> mergedComponents = mergeComponents(spdxComponents, cdxComponents);
-        List<Dependency> mergedDependencies = mergeDependencies(spdxDependencies, cdxDependencies);
-        log.info("合并后有 {} 个组件和 {} 个依赖关系", 
-                mergedComponents.size(), mergedDependencies.size());
-                
-        // 统计合并后的情况
-        countNonEmptyProperties(mergedComponents, "合并后容器镜像组件");
+        // 单次运行Syft，同时获得SPDX和CycloneDX两种视图
+        log.info("单次运行Syft同时输出SPDX和CycloneDX格式，为容器镜像生成SBOM");
+        Map<String, Object> merged = mergeScanViews(syftService.scanContainerImage(imageName), "容器镜像 " + imageName);
+        List<Component> mergedComponents = (List<Component>) merged.get("components");
+        List<Dependency> mergedDependencies = (List<Dependency>) merged.get("dependencies");
 
+        processSupervisor.checkCancelled();
         // 增强组件元数据
-        enrichMavenMetadata(mergedComponents);
-        enhanceCpeInfo(mergedComponents);
-        enhanceLicenseInfo(mergedComponents);
+        enrich(mergedComponents);
 
         // 创建source info
         SourceInfo sourceInfo = syftService.createSourceInfo(null, imageName, null);
 
         // 构建SBOM对象
         SBOM sb = new SBOM();
-        // 手动设置ID
-        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sbom", Long.class);
-        sb.setId(maxId + 1);
+        // 由hi/lo分配器分配ID，并发扫描和多实例之间不会冲突
+        sb.setId(idAllocator.nextId());
         sb.setName(name);
         sb.setNamespace("urn:sbom:" + UUID.randomUUID());
         
@@ -269,10 +508,13 @@ public class SBOMService {
         // 设置所使用的规范标准（标记为自定义格式）
         sb.setSpecVersion("CUSTOM-ENHANCED-1.0");
 
+        // 保存前最后一次响应取消，抛出的异常使事务回滚
+        processSupervisor.checkCancelled();
         // 保存到数据库
-        SBOM saved = repo.save(sb);
+        SBOM saved = bulkWriter.insert(sb);
         String json = converter.toCustomJson(saved);
         docRepo.save(new SBOMDocument(saved.getId(), json));
+        graphService.index(saved);
 
         return saved;
     }
@@ -288,78 +530,61 @@ public class SBOMService {
     @Transactional
     public void delete(Long id) {
         docRepo.deleteBySbomId(id);
-        repo.deleteById(id);
-
-        // Reset auto-increment
-        Integer maxId = jdbcTemplate.queryForObject(
-                "SELECT COALESCE(MAX(id), 0) FROM sbom", Integer.class);
-        int next = (maxId == null ? 1 : maxId + 1);
-        jdbcTemplate.execute("ALTER TABLE sbom AUTO_INCREMENT = " + next);
+        fileManifestService.deleteForSbom(id);
+        bulkWriter.delete(id);
+        graphService.evict(id);
     }
 
-    //扫描syft生成json中的license字段，如果为空，则设置为unknown
-    private void enhanceLicenseInfo(List<Component> components) {
-        for (Component comp : components) {
-            if (comp.getLicense() == null || comp.getLicense().isEmpty()) {
-                comp.setLicense("unknown");
-            }
-        }
+    /**
+     * 一次遍历执行所有增强阶段（Maven元数据、CPE、许可证等），并记录各阶段耗时
+     */
+    private void enrich(List<Component> components) {
+        long start = System.nanoTime();
+        Map<String, Long> timings = enrichmentPipeline.run(components);
+        StringJoiner stages = new StringJoiner(", ");
+        timings.forEach((stage, nanos) -> stages.add(stage + "=" + nanos / 1_000_000 + "ms"));
+        log.info("增强 {} 个组件，耗时 {} ms（{}）", components.size(), (System.nanoTime() - start) / 1_000_000, stages);
     }
-    
-    // Enhance Maven metadata
-    private void enrichMavenMetadata(List<Component> components) {
-        for (Component comp : components) {
-            // If PURL exists, parse and supplement information
-            if (comp.getPurl() != null && comp.getPurl().startsWith("pkg:maven/")) {
-                // Example: pkg:maven/group/artifact@version
-                String purl = comp.getPurl();
-                String[] parts = purl.substring("pkg:maven/".length()).split("@");
-                if (parts.length == 2) {
-                    String[] groupArtifact = parts[0].split("/");
-                    if (groupArtifact.length == 2) {
-                        String groupId = groupArtifact[0];
-                        String artifactId = groupArtifact[1];
-
-                        // Use groupId as vendor if not present
-                        if (comp.getVendor() == null) {
-                            comp.setVendor(groupId);
-                        }
-
-                        // Construct potential Maven Central URL if homepage not present
-                        if (comp.getHomePage() == null) {
-                            comp.setHomePage("https://search.maven.org/artifact/" +
-                                    groupId + "/" + artifactId);
-                        }
-                    }
-                }
+
+    /**
+     * 合并同一次Syft运行产出的各格式视图（SPDX、CycloneDX），取各自的优势
+     * @param views 以格式名为键的扫描结果，每个值包含components和dependencies
+     * @param label 日志中使用的扫描对象描述
+     * @return 包含合并后组件列表和依赖关系列表的Map
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mergeScanViews(Map<String, Map<String, Object>> views, String label) {
+        List<List<Component>> componentViews = new ArrayList<>();
+        DependencyAdjacency adjacency = new DependencyAdjacency();
+
+        for (Map.Entry<String, Map<String, Object>> view : views.entrySet()) {
+            List<Component> components = (List<Component>) view.getValue().get("components");
+            List<Dependency> dependencies = (List<Dependency>) view.getValue().get("dependencies");
+            log.info("{} {}视图包含 {} 个组件和 {} 个依赖关系",
+                    label, view.getKey(), components.size(), dependencies.size());
+
+            // 统计组件属性情况，仅用于调试
+            if (log.isDebugEnabled()) {
+                countNonEmptyProperties(components, label + " " + view.getKey());
             }
+
+            componentViews.add(components);
+            adjacency.addAll(dependencies);
         }
-    }
+        List<Dependency> mergedDependencies = adjacency.toDependencies();
+        // 所有视图的组件单遍合并
+        List<Component> mergedComponents = mergeEngine.merge(componentViews);
 
-    // 添加 enhanceCpeInfo 方法
-    private void enhanceCpeInfo(List<Component> components) {
-        for (Component comp : components) {
-            if (comp.getCpe() == null || comp.getCpe().isEmpty()) {
-                if (comp.getPurl() != null) {
-                    // 假设 PURL 格式为 pkg:type/group/name@version
-                    String purl = comp.getPurl();
-                    String[] parts = purl.split(":");
-                    if (parts.length > 2) {
-                        String[] groupName = parts[2].split("/");
-                        if (groupName.length > 1) {
-                            String vendor = groupName[0];
-                            String product = groupName[1];
-                            String version = comp.getVersion() != null ? comp.getVersion() : "unknown";
-                            // 生成 CPE 字段
-                            comp.setCpe(String.format("cpe:2.3:a:%s:%s:%s:*:*:*:*:*:*:*", vendor, product, version));
-                        }
-                    }
-                } else {
-                    // 如果 PURL 缺失，设置默认值或提示
-                    comp.setCpe("UNKNOWN");
-                }
-            }
+        log.info("{} 合并后有 {} 个组件和 {} 个依赖关系",
+                label, mergedComponents.size(), mergedDependencies.size());
+        if (log.isDebugEnabled()) {
+            countNonEmptyProperties(mergedComponents, label + " 合并后");
         }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("components", mergedComponents);
+        result.put("dependencies", mergedDependencies);
+        return result;
     }
 
     /**
@@ -369,200 +594,26 @@ public class SBOMService {
      * @return 合并后的组件列表
      */
     private List<Component> mergeComponents(List<Component> spdxComponents, List<Component> cdxComponents) {
-        if (spdxComponents == null || spdxComponents.isEmpty()) {
-            return cdxComponents != null ? new ArrayList<>(cdxComponents) : new ArrayList<>();
-        }
-        
-        if (cdxComponents == null || cdxComponents.isEmpty()) {
-            return new ArrayList<>(spdxComponents);
-        }
-        
-        // 使用更精确的唯一标识符
-        Map<String, Component> mergedMap = new HashMap<>();
-        Map<String, Component> spdxMap = new HashMap<>();
-        Map<String, Component> cdxMap = new HashMap<>();
-        
-        // 添加所有SPDX组件到结果和映射表
-        for (Component comp : spdxComponents) {
-            String key = generateComponentKey(comp);
-            mergedMap.put(key, comp);
-            spdxMap.put(key, comp);
-        }
-        
-        // 处理CycloneDX组件
-        for (Component cdxComp : cdxComponents) {
-            String key = generateComponentKey(cdxComp);
-            cdxMap.put(key, cdxComp);
-            
-            Component existing = mergedMap.get(key);
-            if (existing == null) {
-                // 如果SPDX中没有此组件，直接添加CycloneDX组件
-                mergedMap.put(key, cdxComp);
-            } else {
-                // 合并两种组件信息，优先使用非空值
-                mergeComponentProperties(existing, cdxComp);
-            }
-        }
-        
-        // 检查是否有组件被错误合并，使用更多属性进行比较
-        for (Component cdxComp : cdxComponents) {
-            // 检查是否有错误合并的情况（如果存在相同名称和版本但其他关键属性不同的组件）
-            String key = generateComponentKey(cdxComp);
-            if (!mergedMap.containsKey(key)) continue; // 已经处理过或无匹配项
-            
-            Component existingComp = mergedMap.get(key);
-            // 检查关键属性是否有显著差异
-            if (hasMajorDifferences(existingComp, cdxComp)) {
-                // 关键属性差异大，应该是不同组件，生成新的唯一键
-                String uniqueKey = key + "-" + cdxComp.hashCode();
-                mergedMap.put(uniqueKey, cdxComp);
-            }
-        }
-        
-        log.info("合并组件 - SPDX: {}, CycloneDX: {}, 合并后: {}", 
-                spdxComponents.size(), cdxComponents.size(), mergedMap.size());
-        
-        return new ArrayList<>(mergedMap.values());
-    }
-    
-    /**
-     * 生成组件的唯一标识键
-     */
-    private String generateComponentKey(Component comp) {
-        String baseKey = (comp.getName() + ":" + comp.getVersion()).toLowerCase();
-        
-        // 如果有更精确的标识符如purl，优先使用
-        if (comp.getPurl() != null && !comp.getPurl().isEmpty()) {
-            return "purl:" + comp.getPurl().toLowerCase();
-        } else if (comp.getSbomRef() != null && !comp.getSbomRef().isEmpty() && !comp.getSbomRef().equals("system")) {
-            return "ref:" + comp.getSbomRef().toLowerCase();
-        }
-        
-        // 如果类型可用，添加到键中增加唯一性
-        if (comp.getType() != null && !comp.getType().isEmpty()) {
-            baseKey = comp.getType().toLowerCase() + ":" + baseKey;
-        }
-        
-        return baseKey;
+        List<Component> merged = mergeEngine.merge(Arrays.asList(spdxComponents, cdxComponents));
+        log.info("合并组件 - SPDX: {}, CycloneDX: {}, 合并后: {}",
+                spdxComponents != null ? spdxComponents.size() : 0,
+                cdxComponents != null ? cdxComponents.size() : 0, merged.size());
+        return merged;
     }
-    
-    /**
-     * 检查两个组件是否有显著差异
-     */
-    private boolean hasMajorDifferences(Component comp1, Component comp2) {
-        // 如果存在purl且不同，则认为是不同组件
-        if (comp1.getPurl() != null && comp2.getPurl() != null && 
-            !comp1.getPurl().isEmpty() && !comp2.getPurl().isEmpty() && 
-            !comp1.getPurl().equalsIgnoreCase(comp2.getPurl())) {
-            return true;
-        }
-        
-        // 检查来源和路径差异
-        if (comp1.getSourceRepo() != null && comp2.getSourceRepo() != null &&
-            !comp1.getSourceRepo().isEmpty() && !comp2.getSourceRepo().isEmpty() &&
-            !comp1.getSourceRepo().equalsIgnoreCase(comp2.getSourceRepo())) {
-            return true;
-        }
-        
-        return false;
-    }
-    
-    /**
-     * 合并组件属性，优先使用非空值
-     */
-    private void mergeComponentProperties(Component target, Component source) {
-        if (isEmpty(target.getLicense()) && !isEmpty(source.getLicense())) {
-            target.setLicense(source.getLicense());
-        }
-        
-        if (isEmpty(target.getPurl()) && !isEmpty(source.getPurl())) {
-            target.setPurl(source.getPurl());
-        }
-        
-        if (isEmpty(target.getCpe()) && !isEmpty(source.getCpe())) {
-            target.setCpe(source.getCpe());
-        }
-        
-        if (isEmpty(target.getVendor()) && !isEmpty(source.getVendor())) {
-            target.setVendor(source.getVendor());
-        }
-        
-        if (isEmpty(target.getHomePage()) && !isEmpty(source.getHomePage())) {
-            target.setHomePage(source.getHomePage());
-        }
-        
-        if (isEmpty(target.getDescription()) && !isEmpty(source.getDescription())) {
-            target.setDescription(source.getDescription());
-        }
-    }
-    
+
     /**
-     * 合并两个依赖列表
+     * 合并两个依赖列表，同一引用的目标合并去重，保持第一次出现的顺序
      * @param spdxDeps SPDX格式的依赖列表
      * @param cdxDeps CycloneDX格式的依赖列表
      * @return 合并后的依赖列表
      */
     private List<Dependency> mergeDependencies(List<Dependency> spdxDeps, List<Dependency> cdxDeps) {
-        if (spdxDeps == null || spdxDeps.isEmpty()) {
-            return cdxDeps != null ? new ArrayList<>(cdxDeps) : new ArrayList<>();
-        }
-        
-        if (cdxDeps == null || cdxDeps.isEmpty()) {
-            return new ArrayList<>(spdxDeps);
-        }
-        
-        // 使用Map来存储合并的依赖
-        Map<String, Dependency> mergedDeps = new HashMap<>();
-        
-        // 首先添加所有SPDX依赖
-        for (Dependency dep : spdxDeps) {
-            mergedDeps.put(dep.getRef(), dep);
-        }
-        
-        // 然后处理CycloneDX依赖
-        for (Dependency cdxDep : cdxDeps) {
-            String ref = cdxDep.getRef();
-            if (mergedDeps.containsKey(ref)) {
-                // 合并依赖关系
-                Dependency existingDep = mergedDeps.get(ref);
-                mergeDependsOn(existingDep, cdxDep);
-            } else {
-                // 添加新的依赖
-                mergedDeps.put(ref, cdxDep);
-            }
-        }
-        
-        log.info("合并依赖 - SPDX: {}, CycloneDX: {}, 合并后: {}", 
-                spdxDeps.size(), cdxDeps.size(), mergedDeps.size());
-        
-        return new ArrayList<>(mergedDeps.values());
-    }
-    
-    /**
-     * 合并依赖关系的dependsOn列表
-     */
-    private void mergeDependsOn(Dependency target, Dependency source) {
-        if (source.getDependsOn() == null || source.getDependsOn().isEmpty()) {
-            return;
-        }
-        
-        if (target.getDependsOn() == null) {
-            target.setDependsOn(new ArrayList<>());
-        }
-        
-        // 合并依赖，避免重复
-        for (String dependency : source.getDependsOn()) {
-            if (!target.getDependsOn().contains(dependency)) {
-                target.getDependsOn().add(dependency);
-            }
-        }
-    }
-    
-    /**
-     * 辅助方法：检查字符串是否为空
-     */
-    private boolean isEmpty(String str) {
-        return str == null || str.trim().isEmpty();
+        DependencyAdjacency adjacency = new DependencyAdjacency();
+        adjacency.addAll(spdxDeps);
+        adjacency.addAll(cdxDeps);
+        log.info("合并依赖 - SPDX: {}, CycloneDX: {}, 合并后: {}",
+                spdxDeps != null ? spdxDeps.size() : 0, cdxDeps != null ? cdxDeps.size() : 0, adjacency.size());
+        return adjacency.toDependencies();
     }
 
     private void countNonEmptyProperties(List<Component> components, String prefix) {
@@ -579,7 +630,7 @@ public class SBOMService {
             if (comp.getLicense() != null && !comp.getLicense().isEmpty()) count++;
             if (comp.getCpe() != null && !comp.getCpe().isEmpty()) count++;
         }
-        log.info("{} 组件中非空属性数量: {}", prefix, count);
+        log.debug("{} 组件中非空属性数量: {}", prefix, count);
     }
 
     /**
@@ -591,45 +642,19 @@ public class SBOMService {
         if (components == null || dependencies == null || components.isEmpty() || dependencies.isEmpty()) {
             return;
         }
-        
-        // 为所有组件创建映射，优先使用sbomRef作为标识
-        Map<String, Component> componentMap = new HashMap<>();
-        for (Component comp : components) {
-            if (comp.getSbomRef() != null && !comp.getSbomRef().isEmpty()) {
-                componentMap.put(comp.getSbomRef(), comp);
-            }
-        }
-        
-        // 检查每个依赖关系，确保引用的组件存在
-        Set<String> validRefs = componentMap.keySet();
-        List<Dependency> validDependencies = new ArrayList<>();
-        
-        for (Dependency dep : dependencies) {
-            // 检查依赖关系的引用是否存在于组件中
-            if (dep.getRef() != null && (validRefs.contains(dep.getRef()) || dep.getRef().equals("system"))) {
-                // 检查dependsOn列表
-                if (dep.getDependsOn() != null && !dep.getDependsOn().isEmpty()) {
-                    List<String> validDependsOn = new ArrayList<>();
-                    for (String dependsOnRef : dep.getDependsOn()) {
-                        if (validRefs.contains(dependsOnRef)) {
-                            validDependsOn.add(dependsOnRef);
-                        }
-                    }
-                    dep.setDependsOn(validDependsOn);
-                }
-                
-                if (dep.getDependsOn() == null || !dep.getDependsOn().isEmpty()) {
-                    validDependencies.add(dep);
-                }
-            }
-        }
-        
+
+        // 依赖方必须是组件或system，目标必须是组件；重复的边只保留一条
+        DependencyGraph graph = DependencyGraph.of(components, dependencies);
+        int system = graph.id("system");
+        List<Dependency> validDependencies = graph.toDependencies(
+                id -> graph.isComponent(id) || id == system, graph::isComponent);
+
         // 如果有无效的依赖关系，记录并替换
         if (validDependencies.size() < dependencies.size()) {
-            log.info("过滤了 {} 个无效的依赖关系（引用了不存在的组件）", 
+            log.info("过滤了 {} 个无效的依赖关系（引用了不存在的组件）",
                     dependencies.size() - validDependencies.size());
-            dependencies.clear();
-            dependencies.addAll(validDependencies);
         }
+        dependencies.clear();
+        dependencies.addAll(validDependencies);
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.SBOMSummary;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * SBOM列表查询
+ * 只读sbom表的摘要列（组件数和依赖关系数由SBOMBulkWriter写入时维护），不触发组件和依赖关系的EAGER加载。
+ * 分页使用键集（keyset）：游标记录上一页最后一行的排序值和编号，下一页从 (排序列, id) 之后继续，
+ * 借助 (timestamp, id) 和 (name, id) 索引，翻到任何位置的代价都与页大小成正比，而不是与偏移量成正比
+ */
+@Log4j2
+@Service
+public class SBOMSummaryService {
+
+    private static final String SELECT_SUMMARY = "SELECT id, name, timestamp, tool_name, tool_version, spec_version, "
+            + "component_count, dependency_count FROM sbom";
+
+    private static final RowMapper<SBOMSummary> SUMMARY_MAPPER = (rs, rowNum) -> {
+        SBOMSummary summary = new SBOMSummary();
+        summary.setId(rs.getLong("id"));
+        summary.setName(rs.getString("name"));
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        summary.setTimestamp(timestamp != null ? timestamp.toLocalDateTime() : null);
+        summary.setToolName(rs.getString("tool_name"));
+        summary.setToolVersion(rs.getString("tool_version"));
+        summary.setSpecVersion(rs.getString("spec_version"));
+        summary.setComponentCount(rs.getInt("component_count"));
+        summary.setDependencyCount(rs.getInt("dependency_count"));
+        return summary;
+    };
+
+    /**
+     * 可排序的列
+     */
+    private enum SortKey {
+        TIMESTAMP("timestamp"), NAME("name"), ID("id");
+
+        private final String column;
+
+        SortKey(String column) {
+            this.column = column;
+        }
+
+        static SortKey from(String value) {
+            for (SortKey key : values()) {
+                if (key.column.equalsIgnoreCase(value)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("不支持的排序字段: " + value);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxPageSize;
+
+    public SBOMSummaryService(JdbcTemplate jdbcTemplate,
+                              @Value("${sbom.list.max-page-size:500}") int maxPageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxPageSize = Math.max(1, maxPageSize);
+    }
+
+    /**
+     * 为计数列加入之前写入的SBOM补齐组件数和依赖关系数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCounts() {
+        try {
+            int updated = jdbcTemplate.update("UPDATE sbom s SET "
+                    + "component_count = (SELECT COUNT(*) FROM component c WHERE c.sbom_id = s.id), "
+                    + "dependency_count = (SELECT COUNT(*) FROM dependency d WHERE d.sbom_id = s.id) "
+                    + "WHERE s.component_count IS NULL OR s.dependency_count IS NULL");
+            if (updated > 0) {
+                log.info("已为 {} 个SBOM补齐组件数和依赖关系数", updated);
+            }
+        } catch (DataAccessException e) {
+            log.warn("补齐SBOM组件数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 分页查询SBOM摘要
+     * @param name 名称包含的文本，为空时不过滤
+     * @param from 起始时间（含），yyyy-MM-dd 或 yyyy-MM-ddTHH:mm:ss，为空时不过滤
+     * @param to 截止时间（不含），只给日期时包含当天，为空时不过滤
+     * @param sort 排序字段：timestamp、name 或 id
+     * @param direction asc 或 desc
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param limit 每页条数，不超过 sbom.list.max-page-size
+     * @return 包含 items、nextCursor 和 hasMore 的Map
+     */
+    public Map<String, Object> list(String name, String from, String to, String sort, String direction,
+                                    String cursor, int limit) {
+        SortKey key = SortKey.from(sort);
+        boolean descending = parseDirection(direction);
+        int pageSize = Math.min(Math.max(1, limit), maxPageSize);
+
+        StringBuilder sql = new StringBuilder(SELECT_SUMMARY).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (name != null && !name.isBlank()) {
+            sql.append(" AND name LIKE ? ESCAPE '!'");
+            args.add("%" + name.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        if (from != null && !from.isBlank()) {
+            sql.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(parseTime(from, false)));
+        }
+        if (to != null && !to.isBlank()) {
+            sql.append(" AND timestamp < ?");
+            args.add(Timestamp.valueOf(parseTime(to, true)));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            appendAfter(sql, args, key, descending, cursor);
+        }
+        String order = descending ? " DESC" : " ASC";
+        if (key == SortKey.ID) {
+            sql.append(" ORDER BY id").append(order);
+        } else {
+            sql.append(" ORDER BY ").append(key.column).append(order).append(", id").append(order);
+        }
+        // 多取一行用于判断是否还有下一页
+        sql.append(" LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<SBOMSummary> items = jdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray());
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", items);
+        result.put("nextCursor", hasMore ? encodeCursor(key, items.get(items.size() - 1)) : null);
+        result.put("hasMore", hasMore);
+        return result;
+    }
+
+    /**
+     * 追加键集条件：(排序列, id) 严格位于游标之后
+     */
+    private void appendAfter(StringBuilder sql, List<Object> args, SortKey key, boolean descending, String cursor) {
+        String[] parts = decodeCursor(cursor);
+        if (!parts[2].equals(key.column)) {
+            throw new IllegalArgumentException("分页游标与排序字段不一致");
+        }
+        String cmp = descending ? " < ?" : " > ?";
+        long lastId;
+        try {
+            lastId = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (key == SortKey.ID) {
+            sql.append(" AND id").append(cmp);
+            args.add(lastId);
+            return;
+        }
+        Object lastValue;
+        if (key == SortKey.TIMESTAMP) {
+            try {
+                lastValue = Timestamp.valueOf(LocalDateTime.parse(parts[0]));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        } else {
+            lastValue = parts[0];
+        }
+        sql.append(" AND (").append(key.column).append(cmp)
+                .append(" OR (").append(key.column).append(" = ? AND id").append(cmp).append("))");
+        args.add(lastValue);
+        args.add(lastValue);
+        args.add(lastId);
+    }
+
+    /**
+     * 游标格式：base64url(排序字段 \n 排序值 \n 编号)，排序字段不一致的游标视为无效
+     */
+    private static String encodeCursor(SortKey key, SBOMSummary last) {
+        String value;
+        if (key == SortKey.TIMESTAMP) {
+            value = last.getTimestamp() != null ? last.getTimestamp().toString() : "";
+        } else if (key == SortKey.NAME) {
+            value = last.getName() != null ? last.getName() : "";
+        } else {
+            value = "";
+        }
+        String raw = key.column + "\n" + value + "\n" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        int first = raw.indexOf('\n');
+        int last = raw.lastIndexOf('\n');
+        if (first < 0 || first == last) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return new String[]{raw.substring(first + 1, last), raw.substring(last + 1), raw.substring(0, first)};
+    }
+
+    private static boolean parseDirection(String direction) {
+        if (direction == null || direction.isBlank() || direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        if (direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        throw new IllegalArgumentException("不支持的排序方向: " + direction);
+    }
+
+    /**
+     * 解析时间过滤条件；只给日期时，截止时间取次日零点（不含），即包含当天
+     */
+    private static LocalDateTime parseTime(String value, boolean exclusiveEnd) {
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                LocalDate date = LocalDate.parse(text);
+                return exclusiveEnd ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的时间: " + value);
+        }
+    }
+}
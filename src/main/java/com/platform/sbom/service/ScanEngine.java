@@ -0,0 +1,39 @@
+package com.platform.sbom.service;
+
+/**
+ * 生成SBOM时使用的扫描引擎
+ */
+public enum ScanEngine {
+    // Syft，覆盖所有生态，需要外部进程
+    SYFT("SBOMPlatform-Syft-Enhanced"),
+    // 原生JVM制品扫描（ScannerService），只识别jar/war/ear，不启动外部进程
+    NATIVE("SBOMPlatform-Native");
+
+    private final String toolName;
+
+    ScanEngine(String toolName) {
+        this.toolName = toolName;
+    }
+
+    /**
+     * 写入SBOM的工具名称，增量扫描时用于判断上次的SBOM是否由同一引擎生成
+     */
+    public String getToolName() {
+        return toolName;
+    }
+
+    /**
+     * 解析请求参数，为空时使用Syft
+     * @throws IllegalArgumentException 不支持的引擎名称
+     */
+    public static ScanEngine from(String value) {
+        if (value == null || value.isBlank()) {
+            return SYFT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的扫描引擎: " + value);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.SBOM;
+import com.platform.sbom.model.ScanJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步扫描任务调度服务
+ * 扫描在有界线程池中执行，等待队列有容量上限，超出时拒绝提交，避免扫描请求占满Web线程
+ */
+@Log4j2
+@Service
+public class ScanJobService {
+
+    private final ThreadPoolExecutor executor;
+    private final ProcessSupervisor processSupervisor;
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+    // 尚未开始执行的任务，取消时从队列中移除以释放队列容量
+    private final Map<String, Runnable> queued = new ConcurrentHashMap<>();
+    // 任务结束（完成、失败、取消或随服务关闭被丢弃）时释放其临时文件的动作，只执行一次
+    private final Map<String, Runnable> cleanups = new ConcurrentHashMap<>();
+    private final int maxRetainedJobs;
+
+    public ScanJobService(ProcessSupervisor processSupervisor,
+                          @Value("${sbom.scan.pool-size:2}") int poolSize,
+                          @Value("${sbom.scan.queue-capacity:20}") int queueCapacity,
+                          @Value("${sbom.scan.max-retained-jobs:500}") int maxRetainedJobs) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "sbom-scan-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.processSupervisor = processSupervisor;
+        this.maxRetainedJobs = maxRetainedJobs;
+        log.info("扫描线程池已创建，线程数: {}，队列容量: {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * 提交一个扫描任务
+     * @param type 任务类型
+     * @param name SBOM名称
+     * @param task 实际执行扫描并返回已保存SBOM的任务
+     * @return 已排队的任务
+     * @throws RejectedExecutionException 队列已满时抛出
+     */
+    public ScanJob submit(String type, String name, Callable<SBOM> task) {
+        return submit(type, name, task, null);
+    }
+
+    /**
+     * 提交一个扫描任务，任务占用的临时文件由cleanup释放
+     * @param cleanup 任务以任何方式结束时执行一次（包括排队中被取消、开始前被取消），可为null；
+     *                提交被拒绝时不执行，由调用方决定是否保留文件以便重试
+     * @return 已排队的任务
+     * @throws RejectedExecutionException 队列已满时抛出
+     */
+    public ScanJob submit(String type, String name, Callable<SBOM> task, Runnable cleanup) {
+        evictFinishedJobs();
+
+        ScanJob job = new ScanJob(type, name);
+        jobs.put(job.getId(), job);
+        if (cleanup != null) {
+            cleanups.put(job.getId(), cleanup);
+        }
+        Runnable runnable = () -> run(job, task);
+        queued.put(job.getId(), runnable);
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            queued.remove(job.getId());
+            cleanups.remove(job.getId());
+            jobs.remove(job.getId());
+            log.warn("扫描队列已满，拒绝任务: {} ({})", name, type);
+            throw e;
+        }
+        log.info("扫描任务 {} 已提交: {} ({})，当前排队: {}", job.getId(), name, type, executor.getQueue().size());
+        return job;
+    }
+
+    public Optional<ScanJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * 取消任务：排队中的任务直接移出队列；运行中的任务终止其外部进程，不启动进程的阶段在下一个检查点
+     * （扫描结束后、保存前）停止，事务回滚，任务随后以CANCELLED结束。已开始保存的任务仍会成功完成
+     * @return 任务存在且尚未结束时返回true
+     */
+    public boolean cancel(String id) {
+        ScanJob job = jobs.get(id);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.requestCancel();
+        Runnable runnable = queued.remove(id);
+        if (runnable != null && executor.remove(runnable)) {
+            job.markCancelled();
+            cleanup(id);
+            log.info("排队中的扫描任务 {} 已取消", id);
+        } else {
+            processSupervisor.cancel(id);
+            log.info("已请求取消运行中的扫描任务 {}", id);
+        }
+        return true;
+    }
+
+    private void run(ScanJob job, Callable<SBOM> task) {
+        queued.remove(job.getId());
+        processSupervisor.bindJob(job.getId());
+        try {
+            if (job.isCancelRequested()) {
+                job.markCancelled();
+                return;
+            }
+            job.markRunning();
+            SBOM saved = task.call();
+            job.markSucceeded(saved != null ? saved.getId() : null);
+            log.info("扫描任务 {} 完成，SBOM ID: {}，耗时 {} ms", job.getId(), job.getSbomId(), job.getRunMillis());
+        } catch (Exception e) {
+            if (job.isCancelRequested()) {
+                log.info("扫描任务 {} 已取消", job.getId());
+                job.markCancelled();
+            } else {
+                log.error("扫描任务 {} 失败", job.getId(), e);
+                job.markFailed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        } finally {
+            processSupervisor.unbindJob();
+            cleanup(job.getId());
+        }
+    }
+
+    private void cleanup(String id) {
+        Runnable cleanup = cleanups.remove(id);
+        if (cleanup == null) {
+            return;
+        }
+        try {
+            cleanup.run();
+        } catch (RuntimeException e) {
+            log.warn("扫描任务 {} 的临时文件清理失败: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * 只保留最近的若干个已结束任务，防止任务表无限增长
+     */
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - maxRetainedJobs;
+        if (excess <= 0) return;
+        jobs.values().stream()
+                .filter(ScanJob::isFinished)
+                .sorted(Comparator.comparing(ScanJob::getFinishedAt))
+                .limit(excess)
+                .forEach(j -> jobs.remove(j.getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> pending = executor.shutdownNow();
+        // 未开始执行的任务不会再运行，释放它们的临时文件
+        queued.forEach((id, runnable) -> {
+            if (pending.contains(runnable)) {
+                cleanup(id);
+            }
+        });
+    }
+}
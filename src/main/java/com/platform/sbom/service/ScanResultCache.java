@@ -0,0 +1,139 @@
+package com.platform.sbom.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 基于Redis的扫描结果缓存
+ * 键由调用方按内容（镜像摘要、目录Merkle哈希、tar摘要等）和Syft版本生成，
+ * 条目带TTL，并通过有序集合索引按写入时间淘汰最旧的条目，使总条目数不超过上限。
+ * Redis不可用时缓存静默失效，不影响扫描本身。
+ */
+@Log4j2
+@Service
+public class ScanResultCache {
+
+    private static final String KEY_PREFIX = "sbom:scan-cache:";
+    private static final String INDEX_KEY = "sbom:scan-cache-index";
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sbom.scan-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sbom.scan-cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${sbom.scan-cache.max-entries:1000}")
+    private long maxEntries;
+
+    @Value("${sbom.scan-cache.max-entry-bytes:67108864}")
+    private long maxEntryBytes;
+
+    public ScanResultCache(StringRedisTemplate redis, ObjectMapper objectMapper) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 缓存已启用且Redis可以连接
+     * 调用方在缓存不可用时需要改变扫描方式（如按层扫描退回整体扫描）时使用，普通读写无需先检查
+     */
+    public boolean isAvailable() {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            redis.hasKey(INDEX_KEY);
+            return true;
+        } catch (Exception e) {
+            log.warn("扫描缓存不可用: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 读取缓存条目
+     * @param key 内容键（不含前缀）
+     * @param type 条目类型
+     * @return 命中时返回反序列化后的新对象
+     */
+    public <T> Optional<T> get(String key, TypeReference<T> type) {
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+        try {
+            String json = redis.opsForValue().get(KEY_PREFIX + key);
+            if (json == null) {
+                return Optional.empty();
+            }
+            log.info("扫描缓存命中: {}", key);
+            return Optional.of(objectMapper.readValue(json, type));
+        } catch (Exception e) {
+            log.warn("读取扫描缓存失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 写入缓存条目，超过单条大小上限的结果不缓存
+     * @param key 内容键（不含前缀）
+     * @param value 要缓存的对象
+     */
+    public void put(String key, Object value) {
+        if (!enabled || key == null) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            long size = json.getBytes(StandardCharsets.UTF_8).length;
+            if (size > maxEntryBytes) {
+                log.info("扫描结果 {} 字节超过缓存上限，不缓存: {}", size, key);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Duration ttl = Duration.ofHours(ttlHours);
+            redis.opsForValue().set(KEY_PREFIX + key, json, ttl);
+            redis.opsForZSet().add(INDEX_KEY, key, now);
+            evict(now, ttl);
+            log.info("扫描结果已缓存: {} ({} 字节)", key, size);
+        } catch (Exception e) {
+            log.warn("写入扫描缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清理索引中已过期的键，并按写入时间淘汰超出条目上限的最旧条目
+     */
+    private void evict(long now, Duration ttl) {
+        redis.opsForZSet().removeRangeByScore(INDEX_KEY, 0, now - ttl.toMillis());
+        Long count = redis.opsForZSet().size(INDEX_KEY);
+        if (count == null || count <= maxEntries) {
+            return;
+        }
+        long excess = count - maxEntries;
+        Set<String> oldest = redis.opsForZSet().range(INDEX_KEY, 0, excess - 1);
+        if (oldest == null || oldest.isEmpty()) {
+            return;
+        }
+        for (String key : oldest) {
+            redis.delete(KEY_PREFIX + key);
+        }
+        redis.opsForZSet().remove(INDEX_KEY, oldest.toArray());
+        log.info("扫描缓存淘汰 {} 个最旧条目", oldest.size());
+    }
+}
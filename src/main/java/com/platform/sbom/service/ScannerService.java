@@ -1,157 +1,148 @@
 package com.platform.sbom.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.platform.sbom.model.Component;
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import com.platform.sbom.model.PackageURL;
+import com.platform.sbom.scanner.ArtifactIndex;
+import com.platform.sbom.scanner.ImageTarAnalyzer;
+import com.platform.sbom.scanner.JarInspector;
+import com.platform.sbom.scanner.OsPackageParser;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.jar.JarFile;
-import java.util.jar.Manifest;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 原生JVM制品扫描引擎，不依赖外部进程
+ * 目录树由ForkJoin任务并行遍历，每个目录中的jar/war/ear在遍历它的工作线程中通过内存映射检查（含嵌套归档），
+ * 每个归档先按内容SHA-256查制品索引，未命中时才解析：
+ * 优先读取 META-INF/maven/.../pom.properties 得到Maven坐标，其次MANIFEST，最后文件名。
+ * 镜像tar以单遍流式方式分析，额外识别dpkg/apk安装的系统包
+ */
+@Log4j2
 @Service
 public class ScannerService {
-    public List<Component> scanFileSystem(String rootDir) {
-        List<Component> list = new ArrayList<>();
-        try {
-            Files.walk(Paths.get(rootDir))
-                    .filter(p -> p.toString().endsWith(".jar"))
-                    .forEach(p -> {
-                        Component c = parseJarManifest(p.toFile());
-                        if (c == null) c = parseJarFilename(p.getFileName().toString());
-                        if (c != null) {
-                            // 记录文件路径
-                            //c.setFilePath(p.toString());
-                            list.add(c);
-                        }
-                    });
-        } catch (IOException ignored) {}
-        return list;
+
+    private final ForkJoinPool pool;
+    private final JarInspector jarInspector;
+    private final ImageTarAnalyzer imageTarAnalyzer;
+
+    public ScannerService(@Value("${scanner.native.parallelism:0}") int parallelism, ArtifactIndex artifactIndex,
+                          ObjectMapper objectMapper) {
+        this.jarInspector = new JarInspector(artifactIndex);
+        this.imageTarAnalyzer = new ImageTarAnalyzer(jarInspector, new OsPackageParser(), objectMapper);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        log.info("原生扫描引擎并行度: {}", threads);
     }
 
-    public List<Component> scanContainerImageFromFile(File tar) {
-        List<Component> list = new ArrayList<>();
-        try {
-            Path tmp = Files.createTempDirectory("img");
-            try (TarArchiveInputStream tais = new TarArchiveInputStream(
-                    new BufferedInputStream(new FileInputStream(tar)))) {
-                TarArchiveEntry e;
-                while ((e = tais.getNextTarEntry()) != null) {
-                    File f = new File(tmp.toFile(), e.getName());
-                    if (e.isDirectory()) f.mkdirs();
-                    else {
-                        f.getParentFile().mkdirs();
-                        try (OutputStream os = new FileOutputStream(f)) {
-                            byte[] buf = new byte[4096]; int r;
-                            while ((r = tais.read(buf)) != -1) os.write(buf,0,r);
-                        }
-                    }
-                }
-            }
-            list.addAll(scanFileSystem(tmp.toString()));
-            // 对容器镜像中发现的组件进行标记
-            list.forEach(c -> {
-                if (c.getSourceRepo() == null) {
-                    c.setSourceRepo("container-image");
-                }
-            });
-            deleteRec(tmp);
-        } catch (IOException ignored) {}
+    /**
+     * 并行扫描目录下的所有JVM归档
+     * @param rootDir 扫描根目录
+     * @return 按文件路径排序的组件列表，组件的filePath为相对根目录的路径
+     */
+    public List<Component> scanFileSystem(String rootDir) {
+        Path root = Paths.get(rootDir);
+        long start = System.nanoTime();
+        List<Component> list = pool.invoke(new DirectoryTask(root, root));
+        intern(list);
+        list.sort(Comparator.comparing(Component::getFilePath, Comparator.nullsLast(Comparator.naturalOrder())));
+        log.info("原生引擎扫描 {} 得到 {} 个组件，耗时 {} ms", rootDir, list.size(),
+                (System.nanoTime() - start) / 1_000_000);
         return list;
     }
 
-    private Component parseJarManifest(File jar) {
-        try (JarFile jf = new JarFile(jar)) {
-            Manifest m = jf.getManifest();
-            if (m != null) {
-                String t = m.getMainAttributes().getValue("Implementation-Title"),
-                        v = m.getMainAttributes().getValue("Implementation-Version");
-                if (t != null && v != null) {
-                    Component c = new Component();
-                    c.setSbomRef("pkg:" + t + "@" + v);
-                    c.setName(t);
-                    c.setVersion(v);
-                    c.setType("library");
-                    c.setDescription("From MANIFEST");
+    /**
+     * 遍历一个目录：子目录分叉为子任务，本目录中的归档直接检查
+     */
+    private class DirectoryTask extends RecursiveTask<List<Component>> {
+        private final Path root;
+        private final Path dir;
 
-                    // 增强的元数据收集
-                    c.setLicense(m.getMainAttributes().getValue("Implementation-License"));
-                    c.setVendor(m.getMainAttributes().getValue("Implementation-Vendor"));
-                    c.setHomePage(m.getMainAttributes().getValue("Implementation-URL"));
-                    c.setSourceRepo(extractSourceRepo(m));
+        DirectoryTask(Path root, Path dir) {
+            this.root = root;
+            this.dir = dir;
+        }
 
-                    // 尝试构建 purl
-                    if (c.getPurl() == null && t != null && v != null) {
-                        c.setPurl("pkg:maven/" + normalizePackageName(t) + "/" + normalizePackageName(t) + "@" + v);
+        @Override
+        protected List<Component> compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            List<Component> found = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                        DirectoryTask task = new DirectoryTask(root, child);
+                        task.fork();
+                        subtasks.add(task);
+                    } else if (JarInspector.isArchive(child.getFileName().toString())
+                            && Files.isRegularFile(child, LinkOption.NOFOLLOW_LINKS)) {
+                        found.addAll(jarInspector.inspect(child, "/" + root.relativize(child).toString().replace('\\', '/')));
                     }
-
-                    return c;
                 }
+            } catch (IOException e) {
+                log.warn("无法读取目录 {}: {}", dir, e.getMessage());
             }
-        } catch (IOException ignored){}
-        return null;
-    }
-
-    private Component parseJarFilename(String filename) {
-        String name = filename.replaceAll("\\.jar$", "");
-        int idx = name.lastIndexOf('-');
-        if (idx > 0) {
-            Component c = new Component();
-            c.setSbomRef("pkg:" + name);
-            c.setName(name.substring(0, idx));
-            c.setVersion(name.substring(idx+1));
-            c.setType("library");
-            c.setDescription("From filename");
-
-            // 尝试检测 Maven 坐标
-            Pattern p = Pattern.compile("(.+)-([0-9].+)");
-            Matcher m = p.matcher(name);
-            if (m.matches()) {
-                String artifactId = m.group(1);
-                String version = m.group(2);
-                // 尝试从文件名猜测 groupId
-                String groupId = guessGroupId(artifactId);
-                c.setPurl("pkg:maven/" + groupId + "/" + artifactId + "@" + version);
+            for (DirectoryTask task : subtasks) {
+                found.addAll(task.join());
             }
-
-            return c;
+            return found;
         }
-        return null;
     }
 
-    // 从 MANIFEST 中提取源代码库信息
-    private String extractSourceRepo(Manifest manifest) {
-        String scm = manifest.getMainAttributes().getValue("SCM-URL");
-        if (scm != null) return scm;
-
-        String url = manifest.getMainAttributes().getValue("Implementation-URL");
-        if (url != null && (url.contains("github.com") || url.contains("gitlab") || url.contains("bitbucket"))) {
-            return url;
+    /**
+     * 单遍流式分析容器镜像tar：层作为嵌套流读取，jar、dpkg/apk数据库直接从流中解析，不落盘
+     * @param tar 镜像tar文件
+     * @return 最终文件系统中可见的组件，读取失败时返回空列表
+     */
+    public List<Component> scanContainerImageFromFile(File tar) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(tar), 256 * 1024)) {
+            return scanContainerImage(in);
+        } catch (IOException e) {
+            log.warn("无法分析镜像tar {}: {}", tar, e.getMessage());
+            return new ArrayList<>();
         }
-
-        return null;
     }
 
-    // normalize package name for purl
-    private String normalizePackageName(String name) {
-        return name.toLowerCase().replace(" ", "-");
+    /**
+     * 分析镜像tar流
+     * @param tar tar内容，由调用方关闭
+     */
+    public List<Component> scanContainerImage(InputStream tar) throws IOException {
+        long start = System.nanoTime();
+        List<Component> list = imageTarAnalyzer.analyze(tar);
+        intern(list);
+        // 对容器镜像中发现的组件进行标记
+        list.forEach(c -> {
+            if (c.getSourceRepo() == null) {
+                c.setSourceRepo("container-image");
+            }
+        });
+        log.info("原生引擎流式分析镜像得到 {} 个组件，耗时 {} ms", list.size(), (System.nanoTime() - start) / 1_000_000);
+        return list;
     }
 
-    // 基于常见命名约定猜测 groupId
-    private String guessGroupId(String artifactId) {
-        // 默认使用 artifactId 作为 groupId
-        return artifactId;
+    /**
+     * 一次扫描内相同的PURL共享同一个实例
+     */
+    private void intern(List<Component> components) {
+        PackageURL.Interner purls = new PackageURL.Interner();
+        components.forEach(purls::intern);
     }
 
-    private void deleteRec(Path p) throws IOException {
-        Files.walk(p).sorted((a,b)->b.compareTo(a))
-                .forEach(q->q.toFile().delete());
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
     }
 }
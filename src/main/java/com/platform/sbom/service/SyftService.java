@@ -1,33 +1,298 @@
 package com.platform.sbom.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.platform.sbom.model.*;
+import com.platform.sbom.parser.SBOMStreamParser;
+import com.platform.sbom.parser.ScanResultCollector;
+import com.platform.sbom.util.ContentDigests;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 
 @Log4j2
 @Service
 public class SyftService {
 
-    private final ObjectMapper objectMapper;
+    public static final String SPDX_JSON = "spdx-json";
+    public static final String CYCLONEDX_JSON = "cyclonedx-json";
+    public static final String SYFT_JSON = "syft-json";
+    public static final String DOCKER_ARCHIVE_PREFIX = "docker-archive:";
+
+    private final SBOMStreamParser streamParser;
+    private final ScanResultCache scanResultCache;
+    private final ProcessSupervisor processSupervisor;
 
     @Value("${syft.path:C:/Users/12135/scoop/apps/syft/current/syft.exe}")
     private String syftPath;
 
-    public SyftService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    @Value("${syft.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    // 为true时Syft以syft-json格式写到标准输出，边扫描边解析，不落临时文件
+    @Value("${syft.stream-output:false}")
+    private boolean streamOutput;
+
+    private volatile String syftVersion;
+
+    // 获取Syft版本失败（如未安装Syft）的时间，在失败缓存期内不再重复执行syft version
+    private volatile long syftVersionFailedAt;
+
+    @Value("${syft.version-failure-ttl-seconds:60}")
+    private long versionFailureTtlSeconds;
+
+    public SyftService(SBOMStreamParser streamParser, ScanResultCache scanResultCache,
+                       ProcessSupervisor processSupervisor) {
+        this.streamParser = streamParser;
+        this.scanResultCache = scanResultCache;
+        this.processSupervisor = processSupervisor;
+    }
+
+    /**
+     * 单次运行Syft扫描文件系统目录，同时产出SPDX和CycloneDX两种视图
+     * （启用syft.stream-output时为单个syft-json视图）
+     *
+     * @param directory 要扫描的目录
+     * @return 以格式名（spdx-json / cyclonedx-json / syft-json）为键、组件和依赖关系结果Map为值
+     */
+    public Map<String, Map<String, Object>> scanFileSystem(String directory) {
+        return scanFileSystem(directory, null);
+    }
+
+    /**
+     * 扫描文件系统目录，缓存键使用调用方已计算的Merkle哈希，不再重新读取目录中的文件
+     *
+     * @param directory 要扫描的目录
+     * @param merkleRoot 目录的Merkle哈希（ContentDigests.merkleRoot），为null时在此计算
+     * @return 以格式名为键、组件和依赖关系结果Map为值
+     */
+    public Map<String, Map<String, Object>> scanFileSystem(String directory, String merkleRoot) {
+        return cachedScan("dir", () -> merkleRoot != null ? merkleRoot : ContentDigests.merkleRoot(Path.of(directory)),
+                directory, null);
+    }
+
+    /**
+     * 单次运行Syft扫描容器镜像，同时产出SPDX和CycloneDX两种视图
+     *
+     * @param imageName 要扫描的镜像名称（例如，alpine:latest）
+     * @return 以格式名为键、组件和依赖关系结果Map为值
+     */
+    public Map<String, Map<String, Object>> scanContainerImage(String imageName) {
+        return cachedScan("image", () -> resolveImageDigest(imageName), null, imageName);
+    }
+
+    /**
+     * 单次运行Syft扫描容器镜像tar文件，同时产出SPDX和CycloneDX两种视图
+     *
+     * @param imageFile 包含容器镜像的tar文件
+     * @return 以格式名为键、组件和依赖关系结果Map为值
+     */
+    public Map<String, Map<String, Object>> scanContainerImageFromFile(File imageFile) {
+        return cachedScan("archive", () -> ContentDigests.sha256(imageFile.toPath()),
+                DOCKER_ARCHIVE_PREFIX + imageFile.getAbsolutePath(), null);
+    }
+
+    /**
+     * 按内容键查找缓存的扫描结果，未命中时运行Syft并缓存成功的结果
+     * 缓存键包含Syft版本，升级Syft后旧条目自然失效
+     *
+     * @param kind 源的类别
+     * @param contentKey 计算内容键的方法，返回null表示该源不可缓存（如无法解析摘要的镜像标签）
+     * @param source 目录路径、docker-archive路径或null
+     * @param imageName 容器镜像名称或null
+     * @return 以格式名为键的扫描结果
+     */
+    private Map<String, Map<String, Object>> cachedScan(String kind, Callable<String> contentKey,
+                                                         String source, String imageName) {
+        String cacheKey = null;
+        if (scanResultCache.isEnabled()) {
+            try {
+                String key = contentKey.call();
+                if (key != null) {
+                    cacheKey = scanCacheKey(kind, key);
+                }
+            } catch (Exception e) {
+                log.warn("计算扫描缓存键失败，跳过缓存: {}", e.getMessage());
+            }
+        }
+
+        String sourceRepo = describeSource(source, imageName);
+        if (cacheKey != null) {
+            Optional<CachedScan> cached = scanResultCache.get(cacheKey, new TypeReference<CachedScan>() {});
+            if (cached.isPresent()) {
+                return cached.get().toViews(sourceRepo);
+            }
+        }
+
+        Map<String, Map<String, Object>> results = runSyft(source, imageName);
+
+        // 只缓存成功的扫描
+        boolean found = results.values().stream()
+                .anyMatch(view -> !((List<?>) view.get("components")).isEmpty());
+        if (cacheKey != null && found) {
+            scanResultCache.put(cacheKey, CachedScan.of(sourceRepo, results));
+        }
+        return withEmptyViews(results);
+    }
+
+    /**
+     * 生成扫描缓存键，包含Syft版本和输出模式
+     * @param kind 源的类别
+     * @param contentKey 内容摘要
+     * @return 缓存键，无法获取Syft版本时返回null
+     */
+    public String scanCacheKey(String kind, String contentKey) {
+        String version = getSyftVersion();
+        if (version == null) {
+            return null;
+        }
+        // 两种输出模式产出的视图不同，分开缓存
+        return "syft:" + version + ":" + (streamOutput ? SYFT_JSON + ":" : "") + kind + ":" + contentKey;
+    }
+
+    /**
+     * 扫描一个已解包的镜像层目录，不使用目录缓存（由调用方按层摘要缓存）
+     *
+     * @param directory 层内容所在目录
+     * @return 以格式名为键的扫描结果
+     * @throws IOException Syft执行失败时抛出，避免把失败当作空层缓存
+     */
+    public Map<String, Map<String, Object>> scanLayerDirectory(String directory) throws IOException {
+        Map<String, Map<String, Object>> results = runSyft(directory, null);
+        if (results.isEmpty()) {
+            throw new IOException("Syft扫描镜像层失败: " + directory);
+        }
+        return results;
+    }
+
+    /**
+     * 按配置的输出模式执行一次Syft
+     * @return 以格式名为键的扫描结果，执行失败时为空Map
+     */
+    private Map<String, Map<String, Object>> runSyft(String source, String imageName) {
+        return streamOutput
+                ? runSyftStreamingScan(source, imageName)
+                : runSyftScan(source, imageName, SPDX_JSON, CYCLONEDX_JSON);
+    }
+
+    /**
+     * 失败或未解析的格式补上空结果，保持调用方的处理逻辑一致
+     */
+    private Map<String, Map<String, Object>> withEmptyViews(Map<String, Map<String, Object>> results) {
+        for (String format : streamOutput ? new String[]{SYFT_JSON} : new String[]{SPDX_JSON, CYCLONEDX_JSON}) {
+            results.computeIfAbsent(format, k -> emptyResult());
+        }
+        return results;
+    }
+
+    /**
+     * 获取Syft版本号，用作扫描缓存键的一部分
+     * @return 版本号，无法获取时返回null
+     */
+    public String getSyftVersion() {
+        if (syftVersion == null) {
+            long failedAt = syftVersionFailedAt;
+            if (failedAt != 0 && System.nanoTime() - failedAt < Duration.ofSeconds(versionFailureTtlSeconds).toNanos()) {
+                return null;
+            }
+            String output = runCommand(List.of(syftPath, "version"));
+            if (output != null) {
+                for (String line : output.split("\\R")) {
+                    if (line.startsWith("Version:")) {
+                        syftVersion = line.substring("Version:".length()).trim();
+                        log.info("检测到Syft版本: {}", syftVersion);
+                        break;
+                    }
+                }
+            }
+            if (syftVersion == null) {
+                // 失败结果只缓存一小段时间，安装Syft后无需重启即可恢复缓存
+                syftVersionFailedAt = System.nanoTime() | 1;
+                log.warn("无法获取Syft版本，{}秒内不再重试", versionFailureTtlSeconds);
+            }
+        }
+        return syftVersion;
+    }
+
+    /**
+     * 将镜像引用解析为内容摘要
+     * 带@sha256:摘要的引用直接使用该摘要；docker-archive:引用使用tar文件内容的摘要；
+     * 标签引用通过本地docker解析为镜像ID，无法解析时返回null，此时不缓存（标签可能随时指向新镜像）
+     */
+    public String resolveImageDigest(String imageName) {
+        if (imageName.startsWith(DOCKER_ARCHIVE_PREFIX)) {
+            try {
+                return "sha256:" + ContentDigests.sha256(Path.of(imageName.substring(DOCKER_ARCHIVE_PREFIX.length())));
+            } catch (IOException e) {
+                log.warn("无法读取镜像tar {}: {}", imageName, e.getMessage());
+                return null;
+            }
+        }
+        int at = imageName.indexOf("@sha256:");
+        if (at >= 0) {
+            return imageName.substring(at + 1);
+        }
+        String output = runCommand(List.of("docker", "image", "inspect", "--format", "{{.Id}}", imageName));
+        if (output != null && output.trim().startsWith("sha256:")) {
+            return output.trim();
+        }
+        return null;
+    }
+
+    /**
+     * 把镜像标签固定为 repo@sha256:摘要 形式的引用，标签在解析之后指向新镜像也不影响扫描的内容
+     * docker-archive:引用和已带摘要的引用原样返回；本地docker中没有该镜像或镜像没有仓库摘要（如本地构建）时返回null
+     */
+    public String pinImageReference(String imageName) {
+        if (imageName.startsWith(DOCKER_ARCHIVE_PREFIX) || imageName.contains("@sha256:")) {
+            return imageName;
+        }
+        String output = runCommand(List.of("docker", "image", "inspect", "--format",
+                "{{range .RepoDigests}}{{println .}}{{end}}", imageName));
+        if (output == null) {
+            return null;
+        }
+        // 优先选择与引用同一仓库的摘要（同一镜像可能被推送到多个仓库）
+        int slash = imageName.lastIndexOf('/');
+        int colon = imageName.lastIndexOf(':');
+        String repository = colon > slash ? imageName.substring(0, colon) : imageName;
+        String first = null;
+        for (String line : output.split("\\R")) {
+            String digest = line.trim();
+            if (!digest.contains("@sha256:")) {
+                continue;
+            }
+            if (digest.substring(0, digest.indexOf('@')).equals(repository)) {
+                return digest;
+            }
+            if (first == null) {
+                first = digest;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * 运行一个短命令并返回其输出
+     * @return 标准输出和错误输出，命令失败时返回null
+     */
+    private String runCommand(List<String> command) {
+        try {
+            ProcessSupervisor.Result result = processSupervisor.run(command, null, Duration.ofSeconds(30));
+            return result.isSuccess() ? result.getStdout() : null;
+        } catch (Exception e) {
+            log.debug("命令执行失败: {}", String.join(" ", command), e);
+            return null;
+        }
     }
 
     /**
@@ -37,7 +302,7 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanFileSystemSPDX(String directory) {
-        return runSyftScan(directory, null, "spdx-json");
+        return runSyftScan(directory, null, SPDX_JSON).getOrDefault(SPDX_JSON, emptyResult());
     }
 
     /**
@@ -47,7 +312,7 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanContainerImageSPDX(String imageName) {
-        return runSyftScan(null, imageName, "spdx-json");
+        return runSyftScan(null, imageName, SPDX_JSON).getOrDefault(SPDX_JSON, emptyResult());
     }
 
     /**
@@ -57,7 +322,7 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanContainerImageFromFileSPDX(File imageFile) {
-        return runSyftScan("docker-archive:" + imageFile.getAbsolutePath(), null, "spdx-json");
+        return runSyftScan("docker-archive:" + imageFile.getAbsolutePath(), null, SPDX_JSON).getOrDefault(SPDX_JSON, emptyResult());
     }
 
     /**
@@ -67,7 +332,7 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanFileSystemCycloneDX(String directory) {
-        return runSyftScan(directory, null, "cyclonedx-json");
+        return runSyftScan(directory, null, CYCLONEDX_JSON).getOrDefault(CYCLONEDX_JSON, emptyResult());
     }
 
     /**
@@ -77,7 +342,7 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanContainerImageCycloneDX(String imageName) {
-        return runSyftScan(null, imageName, "cyclonedx-json");
+        return runSyftScan(null, imageName, CYCLONEDX_JSON).getOrDefault(CYCLONEDX_JSON, emptyResult());
     }
 
     /**
@@ -87,397 +352,255 @@ public class SyftService {
      * @return 包含组件和依赖关系的结果Map
      */
     public Map<String, Object> scanContainerImageFromFileCycloneDX(File imageFile) {
-        return runSyftScan("docker-archive:" + imageFile.getAbsolutePath(), null, "cyclonedx-json");
+        return runSyftScan("docker-archive:" + imageFile.getAbsolutePath(), null, CYCLONEDX_JSON).getOrDefault(CYCLONEDX_JSON, emptyResult());
     }
 
     /**
-     * 执行Syft并生成指定格式的SBOM，然后解析组件和依赖关系
+     * 执行一次Syft并同时生成所有指定格式的SBOM（每种格式通过 "-o 格式=文件" 写入各自的临时文件），
+     * 然后分别解析组件和依赖关系。源只被编目一次，多种格式仅是同一结果的不同输出。
      *
      * @param source 目录路径、docker-archive路径或null
      * @param imageName 容器镜像名称或null
-     * @param format SBOM格式，支持 "spdx-json" 或 "cyclonedx-json"
-     * @return 包含组件列表和依赖关系列表的Map
+     * @param formats SBOM格式，支持 "spdx-json" 和 "cyclonedx-json"
+     * @return 以格式名为键、包含组件列表和依赖关系列表的Map为值；执行失败的格式不在结果中
      */
-    private Map<String, Object> runSyftScan(String source, String imageName, String format) {
-        Map<String, Object> result = new HashMap<>();
-        List<Component> components = new ArrayList<>();
-        List<Dependency> dependencies = new ArrayList<>();
-        String sbomFormat = format.toLowerCase();
-        
+    private Map<String, Map<String, Object>> runSyftScan(String source, String imageName, String... formats) {
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        Map<String, Path> outputFiles = new LinkedHashMap<>();
+
         try {
-            // 创建临时文件用于存储JSON输出
-            Path tempFile = Files.createTempFile("syft-" + sbomFormat + "-", ".json");
-            
-            ProcessBuilder pb = new ProcessBuilder();
-            List<String> command = new ArrayList<>();
-            command.add(syftPath);
-            command.add("packages");
-
-            // 设置源（目录、镜像或存档）
-            if (source != null) {
-                command.add(source);
-            } else if (imageName != null) {
-                command.add(imageName);
-            }
+            List<String> command = syftCommand(source, imageName);
 
-            // 输出为指定JSON格式并保存到临时文件
-            command.add("-o");
-            command.add(sbomFormat);
-            command.add("--file");
-            command.add(tempFile.toString());
-
-            log.info("执行Syft命令生成 {}: {}", sbomFormat, String.join(" ", command));
-            pb.command(command);
-
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode == 0) {
-                // 读取JSON文件
-                String sbomJson = Files.readString(tempFile);
-                
-                // 根据格式解析JSON，提取组件和依赖关系
-                Map<String, Object> parsedData;
-                if (sbomFormat.startsWith("spdx")) {
-                    parsedData = parseSPDXOutput(sbomJson, source, imageName);
-                } else if (sbomFormat.startsWith("cyclonedx")) {
-                    parsedData = parseCycloneDXOutput(sbomJson, source, imageName);
-                } else {
+            // 每种格式输出到各自的临时文件
+            for (String format : formats) {
+                String sbomFormat = format.toLowerCase();
+                if (!sbomFormat.startsWith("spdx") && !sbomFormat.startsWith("cyclonedx")) {
                     throw new IllegalArgumentException("不支持的SBOM格式: " + sbomFormat);
                 }
-                
-                components = (List<Component>) parsedData.get("components");
-                dependencies = (List<Dependency>) parsedData.get("dependencies");
-                
-                log.info("成功从{}解析出 {} 个组件和 {} 个依赖关系", 
-                        sbomFormat, components.size(), dependencies.size());
-            } else {
-                log.error("Syft执行失败，退出代码: {}", exitCode);
-                BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-                StringBuilder errorOutput = new StringBuilder();
-                String line;
-                while ((line = errorReader.readLine()) != null) {
-                    errorOutput.append(line).append("\n");
+                Path tempFile = Files.createTempFile("syft-" + sbomFormat + "-", ".json");
+                outputFiles.put(sbomFormat, tempFile);
+                command.add("-o");
+                command.add(sbomFormat + "=" + tempFile);
+            }
+
+            log.info("执行Syft命令生成 {}: {}", outputFiles.keySet(), String.join(" ", command));
+            ProcessSupervisor.Result run = processSupervisor.run(command, null, Duration.ofMinutes(timeoutMinutes));
+            checkAborted(run);
+
+            if (run.getExitCode() == 0) {
+                for (Map.Entry<String, Path> output : outputFiles.entrySet()) {
+                    String sbomFormat = output.getKey();
+                    // 根据格式流式解析JSON文件，提取组件和依赖关系
+                    Map<String, Object> parsedData = parseOutput(output.getValue(), sbomFormat, source, imageName);
+
+                    log.info("成功从{}解析出 {} 个组件和 {} 个依赖关系", sbomFormat,
+                            ((List<?>) parsedData.get("components")).size(),
+                            ((List<?>) parsedData.get("dependencies")).size());
+                    results.put(sbomFormat, parsedData);
                 }
-                log.error("Syft错误: {}", errorOutput.toString());
+            } else {
+                log.error("Syft执行失败，退出代码: {}", run.getExitCode());
+                log.error("Syft错误: {}", run.getStderr());
             }
-            
-            // 清理临时文件
-            Files.deleteIfExists(tempFile);
-            
+
+        } catch (IllegalStateException e) {
+            // 取消（CancellationException）和超时需要让扫描任务失败，而不是保存一个空的SBOM
+            throw e;
         } catch (Exception e) {
             log.error("执行Syft时出错", e);
+        } finally {
+            // 清理临时文件
+            for (Path tempFile : outputFiles.values()) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除Syft临时文件失败: {}", tempFile);
+                }
+            }
         }
-        
-        result.put("components", components);
-        result.put("dependencies", dependencies);
-        return result;
+
+        return results;
     }
 
     /**
-     * 解析SPDX JSON输出为组件对象和依赖关系
+     * 执行一次Syft，以syft-json格式输出到标准输出，并在Syft仍在运行时流式解析为组件和依赖关系。
+     * 组件对象随输出到达而构建，解析与编目重叠，也不再有临时文件的写入和回读。
      *
-     * @param json SPDX JSON输出
-     * @param source 被扫描的源
-     * @param imageName 被扫描的镜像名称
-     * @return 包含组件列表和依赖关系列表的Map
+     * @param source 目录路径、docker-archive路径或null
+     * @param imageName 容器镜像名称或null
+     * @return 仅包含syft-json一个视图；执行失败时为空Map
      */
-    private Map<String, Object> parseSPDXOutput(String json, String source, String imageName) {
-        List<Component> components = new ArrayList<>();
-        List<Dependency> dependencies = new ArrayList<>();
-        Map<String, Component> componentMap = new HashMap<>();
-        
+    private Map<String, Map<String, Object>> runSyftStreamingScan(String source, String imageName) {
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        String sourceRepo = describeSource(source, imageName);
+        ScanResultCollector collector = new ScanResultCollector();
+
         try {
-            JsonNode root = objectMapper.readTree(json);
-            
-            // 解析SPDX文档信息
-            String documentName = root.path("name").asText("Unknown SBOM");
-            log.info("解析SPDX文档: {}", documentName);
-            
-            // 解析包描述
-            JsonNode packages = root.path("packages");
-            if (packages != null && packages.isArray()) {
-                for (JsonNode pkg : packages) {
-                    // 跳过文档自身包
-                    if (pkg.path("SPDXID").asText().equals("SPDXRef-DOCUMENT")) {
-                        continue;
-                    }
-                    
-                    Component component = new Component();
-                    
-                    // 提取包ID (SPDXID)
-                    String spdxId = pkg.path("SPDXID").asText("").replace("SPDXRef-", "");
-                    component.setSbomRef(spdxId);
-                    
-                    // 提取基本组件信息
-                    component.setName(pkg.path("name").asText(""));
-                    component.setVersion(pkg.path("versionInfo").asText(""));
-                    
-                    // 提取供应商
-                    component.setVendor(pkg.path("supplier").asText(""));
-                    
-                    // 提取许可证
-                    String licenseConcluded = pkg.path("licenseConcluded").asText("");
-                    String licenseDeclared = pkg.path("licenseDeclared").asText("");
-                    component.setLicense(!licenseConcluded.isEmpty() ? licenseConcluded : 
-                                        (!licenseDeclared.isEmpty() ? licenseDeclared : "UNKNOWN"));
-                    
-                    // 提取描述
-                    component.setDescription(pkg.path("description").asText(""));
-                    
-                    // 提取类型
-                    component.setType(pkg.path("primaryPackagePurpose").asText("LIBRARY"));
-                    
-                    // 提取PURL
-                    JsonNode externalRefs = pkg.path("externalRefs");
-                    if (externalRefs != null && externalRefs.isArray()) {
-                        for (JsonNode ref : externalRefs) {
-                            String refType = ref.path("referenceType").asText("");
-                            if (refType.equals("purl")) {
-                                component.setPurl(ref.path("referenceLocator").asText(""));
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // 提取CPE
-                    if (externalRefs != null && externalRefs.isArray()) {
-                        for (JsonNode ref : externalRefs) {
-                            String refType = ref.path("referenceType").asText("");
-                            if (refType.equals("cpe23Type") || refType.equals("cpe22Type")) {
-                                component.setCpe(ref.path("referenceLocator").asText(""));
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // 设置基于源的元数据
-                    if (imageName != null) {
-                        component.setSourceRepo("container-image:" + imageName);
-                    } else if (source != null) {
-                        if (source.startsWith("docker-archive:")) {
-                            component.setSourceRepo("container-image-archive");
-                        } else {
-                            component.setSourceRepo("filesystem:" + source);
-                        }
-                    }
-                    
-                    components.add(component);
-                    componentMap.put(spdxId, component);
+            List<String> command = syftCommand(source, imageName);
+            command.add("-o");
+            command.add(SYFT_JSON);
 
-                    // 如果没有找到许可证信息，设置默认值
-                    if (component.getLicense() == null || component.getLicense().isEmpty()) {
-                        component.setLicense("UNKNOWN");
-                    }
-                }
-            }
-            
-            // 解析依赖关系
-            JsonNode relationships = root.path("relationships");
-            if (relationships != null && relationships.isArray()) {
-                for (JsonNode rel : relationships) {
-                    String relationType = rel.path("relationshipType").asText("");
-                    
-                    // 仅处理DEPENDS_ON关系
-                    if (relationType.equals("DEPENDS_ON")) {
-                        String sourceId = rel.path("spdxElementId").asText("").replace("SPDXRef-", "");
-                        String targetId = rel.path("relatedSpdxElement").asText("").replace("SPDXRef-", "");
-                        
-                        // 检查是否已存在此源的依赖关系
-                        Dependency existingDep = null;
-                        for (Dependency dep : dependencies) {
-                            if (dep.getRef().equals(sourceId)) {
-                                existingDep = dep;
-                                break;
-                            }
-                        }
-                        
-                        if (existingDep == null) {
-                            // 创建新的依赖关系
-                            Dependency dep = new Dependency();
-                            dep.setRef(sourceId);
-                            List<String> dependsOn = new ArrayList<>();
-                            dependsOn.add(targetId);
-                            dep.setDependsOn(dependsOn);
-                            dependencies.add(dep);
-                        } else {
-                            // 向现有依赖关系添加目标
-                            existingDep.getDependsOn().add(targetId);
-                        }
-                    }
-                }
-            }
-            
-            // 如果没有找到依赖关系，创建基于组件的简单依赖树
-            if (dependencies.isEmpty() && !components.isEmpty()) {
-                log.info("未找到依赖关系，创建系统级依赖树");
-                Dependency rootDep = new Dependency();
-                rootDep.setRef("system");
-                
-                List<String> allComponents = new ArrayList<>();
-                for (Component comp : components) {
-                    allComponents.add(comp.getSbomRef());
-                }
-                
-                rootDep.setDependsOn(allComponents);
-                dependencies.add(rootDep);
+            log.info("执行Syft命令（流式解析标准输出）: {}", String.join(" ", command));
+            ProcessSupervisor.Result run = processSupervisor.run(command, null, Duration.ofMinutes(timeoutMinutes),
+                    stdout -> streamParser.parseSyftJson(stdout, sourceRepo, collector));
+            checkAborted(run);
+
+            if (run.getExitCode() == 0) {
+                Map<String, Object> parsedData = collector.toResult();
+                log.info("成功从{}解析出 {} 个组件和 {} 个依赖关系，Syft耗时 {} ms", SYFT_JSON,
+                        ((List<?>) parsedData.get("components")).size(),
+                        ((List<?>) parsedData.get("dependencies")).size(),
+                        run.getDurationMillis());
+                results.put(SYFT_JSON, parsedData);
+            } else {
+                // 进程失败时已解析的部分结果不可信，丢弃
+                log.error("Syft执行失败，退出代码: {}", run.getExitCode());
+                log.error("Syft错误: {}", run.getStderr());
             }
-            
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("解析SPDX输出时出错", e);
+            log.error("执行Syft时出错", e);
+        }
+
+        return results;
+    }
+
+    /**
+     * 构建Syft命令的公共部分：可执行文件、子命令和源（目录、镜像或存档）
+     */
+    private List<String> syftCommand(String source, String imageName) {
+        List<String> command = new ArrayList<>();
+        command.add(syftPath);
+        command.add("packages");
+        if (source != null) {
+            command.add(source);
+        } else if (imageName != null) {
+            command.add(imageName);
+        }
+        return command;
+    }
+
+    /**
+     * 取消和超时需要让扫描任务失败，而不是保存一个空的SBOM
+     */
+    private void checkAborted(ProcessSupervisor.Result run) {
+        if (run.isCancelled()) {
+            throw new CancellationException("Syft扫描已取消");
+        }
+        if (run.isTimedOut()) {
+            throw new IllegalStateException("Syft扫描超过 " + timeoutMinutes + " 分钟未完成，已终止");
         }
-        
+    }
+
+    private Map<String, Object> emptyResult() {
         Map<String, Object> result = new HashMap<>();
-        result.put("components", components);
-        result.put("dependencies", dependencies);
+        result.put("components", new ArrayList<Component>());
+        result.put("dependencies", new ArrayList<Dependency>());
         return result;
     }
 
     /**
-     * 解析CycloneDX JSON输出为组件对象和依赖关系
+     * 流式解析Syft输出文件为组件对象和依赖关系
      *
-     * @param json CycloneDX JSON输出
+     * @param file Syft生成的SBOM文件
+     * @param sbomFormat 文件的格式
      * @param source 被扫描的源
      * @param imageName 被扫描的镜像名称
      * @return 包含组件列表和依赖关系列表的Map
      */
-    private Map<String, Object> parseCycloneDXOutput(String json, String source, String imageName) {
-        List<Component> components = new ArrayList<>();
-        List<Dependency> dependencies = new ArrayList<>();
-        Map<String, Component> componentMap = new HashMap<>();
-        
-        try {
-            JsonNode root = objectMapper.readTree(json);
-            
-            // 解析CycloneDX元数据
-            JsonNode metadata = root.path("metadata");
-            String documentName = metadata.path("component").path("name").asText("Unknown SBOM");
-            log.info("解析CycloneDX文档: {}", documentName);
-            
-            // 解析组件
-            JsonNode cdxComponents = root.path("components");
-            if (cdxComponents != null && cdxComponents.isArray()) {
-                for (JsonNode cdxComp : cdxComponents) {
-                    Component component = new Component();
-                    
-                    // 提取基本组件信息
-                    component.setName(cdxComp.path("name").asText(""));
-                    component.setVersion(cdxComp.path("version").asText(""));
-                    
-                    // 提取类型
-                    component.setType(cdxComp.path("type").asText(""));
-                    
-                    // 提取BOM引用ID
-                    String bomRef = cdxComp.path("bom-ref").asText("");
-                    if (bomRef.isEmpty()) {
-                        // 如果没有bom-ref, 生成一个基于类型/名称/版本的ID
-                        bomRef = "pkg:" + component.getType() + "/" + component.getName() + "@" + component.getVersion();
-                    }
-                    component.setSbomRef(bomRef);
-                    
-                    // 提取供应商
-                    JsonNode supplier = cdxComp.path("publisher");
-                    if (!supplier.isMissingNode()) {
-                        component.setVendor(supplier.asText(""));
-                    }
-                    
-                    // 提取许可证
-                    JsonNode licenses = cdxComp.path("licenses");
-                    if (licenses != null && licenses.isArray() && licenses.size() > 0) {
-                        JsonNode license = licenses.get(0);
-                        if (license.has("license")) {
-                            JsonNode licenseData = license.path("license");
-                            if (licenseData.has("id")) {
-                                component.setLicense(licenseData.path("id").asText(""));
-                            } else if (licenseData.has("name")) {
-                                component.setLicense(licenseData.path("name").asText(""));
-                            }
-                        } else if (license.has("expression")) {
-                            component.setLicense(license.path("expression").asText(""));
-                        }
-                    }
-                    
-                    // 提取描述
-                    component.setDescription(cdxComp.path("description").asText(""));
-                    
-                    // 提取PURL
-                    JsonNode purl = cdxComp.path("purl");
-                    if (!purl.isMissingNode()) {
-                        component.setPurl(purl.asText(""));
-                    }
-                    
-                    // 提取CPE
-                    JsonNode cpe = cdxComp.path("cpe");
-                    if (!cpe.isMissingNode()) {
-                        component.setCpe(cpe.asText(""));
-                    }
-                    
-                    // 设置基于源的元数据
-                    if (imageName != null) {
-                        component.setSourceRepo("container-image:" + imageName);
-                    } else if (source != null) {
-                        if (source.startsWith("docker-archive:")) {
-                            component.setSourceRepo("container-image-archive");
-                        } else {
-                            component.setSourceRepo("filesystem:" + source);
-                        }
-                    }
-                    
-                    components.add(component);
-                    componentMap.put(bomRef, component);
+    private Map<String, Object> parseOutput(Path file, String sbomFormat, String source, String imageName) throws IOException {
+        ScanResultCollector collector = new ScanResultCollector();
+        String sourceRepo = describeSource(source, imageName);
+        try (InputStream in = Files.newInputStream(file)) {
+            if (sbomFormat.startsWith("spdx")) {
+                streamParser.parseSpdx(in, sourceRepo, collector);
+            } else {
+                streamParser.parseCycloneDx(in, sourceRepo, collector);
+            }
+        }
+        if (collector.getComponents().isEmpty()) {
+            log.info("{}输出中未找到组件", sbomFormat);
+        }
+        return collector.toResult();
+    }
 
-                    // 如果没有找到许可证信息，设置默认值
-                    if (component.getLicense() == null || component.getLicense().isEmpty()) {
-                        component.setLicense("UNKNOWN");
-                    }
-                }
+    /**
+     * 生成写入组件的来源描述
+     */
+    private String describeSource(String source, String imageName) {
+        if (imageName != null) {
+            return "container-image:" + imageName;
+        } else if (source != null) {
+            if (source.startsWith("docker-archive:")) {
+                return "container-image-archive";
             }
-            
-            // 解析依赖关系
-            JsonNode cdxDependencies = root.path("dependencies");
-            if (cdxDependencies != null && cdxDependencies.isArray()) {
-                for (JsonNode cdxDep : cdxDependencies) {
-                    String ref = cdxDep.path("ref").asText("");
-                    JsonNode dependsOn = cdxDep.path("dependsOn");
-                    
-                    if (!ref.isEmpty() && dependsOn != null && dependsOn.isArray() && dependsOn.size() > 0) {
-                        Dependency dep = new Dependency();
-                        dep.setRef(ref);
-                        
-                        List<String> deps = new ArrayList<>();
-                        for (JsonNode target : dependsOn) {
-                            deps.add(target.asText());
-                        }
-                        
-                        dep.setDependsOn(deps);
-                        dependencies.add(dep);
+            return "filesystem:" + source;
+        }
+        return null;
+    }
+
+    /**
+     * 扫描缓存中保存的一次Syft运行结果
+     */
+    public static class CachedScan {
+        private String sourceRepo;
+        private Map<String, List<Component>> components = new LinkedHashMap<>();
+        private Map<String, List<Dependency>> dependencies = new LinkedHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        static CachedScan of(String sourceRepo, Map<String, Map<String, Object>> views) {
+            CachedScan scan = new CachedScan();
+            scan.sourceRepo = sourceRepo;
+            views.forEach((format, view) -> {
+                scan.components.put(format, (List<Component>) view.get("components"));
+                scan.dependencies.put(format, (List<Dependency>) view.get("dependencies"));
+            });
+            return scan;
+        }
+
+        /**
+         * 还原为扫描结果，缓存时的来源描述（如临时目录路径）替换为本次扫描的来源
+         */
+        Map<String, Map<String, Object>> toViews(String currentSourceRepo) {
+            Map<String, Map<String, Object>> views = new LinkedHashMap<>();
+            components.forEach((format, comps) -> {
+                for (Component comp : comps) {
+                    if (Objects.equals(comp.getSourceRepo(), sourceRepo)) {
+                        comp.setSourceRepo(currentSourceRepo);
                     }
                 }
-            }
-            
-            // 如果没有找到依赖关系，创建基于组件的简单依赖树
-            if (dependencies.isEmpty() && !components.isEmpty()) {
-                log.info("未找到依赖关系，创建系统级依赖树");
-                Dependency rootDep = new Dependency();
-                rootDep.setRef("system");
-                
-                List<String> allComponents = new ArrayList<>();
-                for (Component comp : components) {
-                    allComponents.add(comp.getSbomRef());
-                }
-                
-                rootDep.setDependsOn(allComponents);
-                dependencies.add(rootDep);
-            }
-            
-        } catch (Exception e) {
-            log.error("解析CycloneDX输出时出错", e);
+                Map<String, Object> view = new HashMap<>();
+                view.put("components", comps);
+                view.put("dependencies", dependencies.getOrDefault(format, new ArrayList<>()));
+                views.put(format, view);
+            });
+            return views;
+        }
+
+        public String getSourceRepo() {
+            return sourceRepo;
+        }
+
+        public void setSourceRepo(String sourceRepo) {
+            this.sourceRepo = sourceRepo;
+        }
+
+        public Map<String, List<Component>> getComponents() {
+            return components;
+        }
+
+        public void setComponents(Map<String, List<Component>> components) {
+            this.components = components;
+        }
+
+        public Map<String, List<Dependency>> getDependencies() {
+            return dependencies;
+        }
+
+        public void setDependencies(Map<String, List<Dependency>> dependencies) {
+            this.dependencies = dependencies;
         }
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("components", components);
-        result.put("dependencies", dependencies);
-        return result;
     }
 
     /**
@@ -0,0 +1,131 @@
+package com.platform.sbom.util;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * 将tar、tar.gz或zip流边读边解压到目录，不先保存归档本身
+ * 格式按内容头部识别；条目路径越出目标目录（zip slip）时拒绝整个归档，符号链接和硬链接不解压。
+ * 解压出的总字节数和条目数有上限，压缩炸弹在写满磁盘之前即被中止
+ */
+public final class ArchiveExtractor {
+
+    private static final int HEADER_BYTES = 512;
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private ArchiveExtractor() {
+    }
+
+    /**
+     * 解压归档流，不限制大小和条目数
+     * @param in 归档内容，不会被关闭
+     * @param root 目标目录，必须已存在
+     * @return 解压出的文件数
+     * @throws IOException 格式无法识别、条目路径非法或读写失败时抛出
+     */
+    public static int extract(InputStream in, Path root) throws IOException {
+        return extract(in, root, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 解压归档流
+     * @param in 归档内容，不会被关闭
+     * @param root 目标目录，必须已存在
+     * @param maxBytes 解压出的文件总字节数上限
+     * @param maxEntries 条目数上限（含目录和被跳过的链接）
+     * @return 解压出的文件数
+     * @throws IOException 格式无法识别、条目路径非法、超出上限或读写失败时抛出；
+     *                     已写入root的内容不会被删除，由调用方清理
+     */
+    public static int extract(InputStream in, Path root, long maxBytes, int maxEntries) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        InputStream source = buffered;
+        if (isGzip(peek(buffered, 2))) {
+            source = new BufferedInputStream(new GzipCompressorInputStream(buffered), 64 * 1024);
+        }
+        byte[] head = peek(source, HEADER_BYTES);
+
+        ArchiveInputStream archive;
+        if (head.length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+            archive = new ZipArchiveInputStream(source, StandardCharsets.UTF_8.name(), true, true);
+        } else if (head.length == HEADER_BYTES && new String(head, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            archive = new TarArchiveInputStream(source);
+        } else {
+            throw new IOException("不支持的归档格式，只接受tar、tar.gz和zip");
+        }
+
+        Path base = root.toAbsolutePath().normalize();
+        int files = 0;
+        int entries = 0;
+        long totalBytes = 0;
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (++entries > maxEntries) {
+                throw new IOException("归档条目数超过上限 " + maxEntries);
+            }
+            Path target = base.resolve(entry.getName()).normalize();
+            if (!target.startsWith(base)) {
+                throw new IOException("归档条目路径越出目标目录: " + entry.getName());
+            }
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+                continue;
+            }
+            if (isLink(entry) || !archive.canReadEntryData(entry) || target.equals(base)) {
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            // 逐段累计实际解压出的字节数，不信任条目头部声明的大小
+            try (OutputStream out = Files.newOutputStream(target)) {
+                int n;
+                while ((n = archive.read(buffer)) != -1) {
+                    totalBytes += n;
+                    if (totalBytes > maxBytes) {
+                        throw new IOException("归档解压后的大小超过上限 " + maxBytes + " 字节");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            // 保留归档中的修改时间
+            if (entry.getLastModifiedDate() != null) {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getLastModifiedDate().getTime()));
+            }
+            files++;
+        }
+        return files;
+    }
+
+    private static boolean isLink(ArchiveEntry entry) {
+        if (entry instanceof TarArchiveEntry) {
+            TarArchiveEntry tar = (TarArchiveEntry) entry;
+            return tar.isSymbolicLink() || tar.isLink() || !tar.isFile();
+        }
+        return entry instanceof ZipArchiveEntry && ((ZipArchiveEntry) entry).isUnixSymlink();
+    }
+
+    private static boolean isGzip(byte[] head) {
+        return head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b;
+    }
+
+    private static byte[] peek(InputStream in, int length) throws IOException {
+        in.mark(length);
+        byte[] head = in.readNBytes(length);
+        in.reset();
+        return head;
+    }
+}
@@ -0,0 +1,134 @@
+package com.platform.sbom.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 内容摘要工具：文件SHA-256及目录的Merkle哈希
+ */
+public final class ContentDigests {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private ContentDigests() {
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM不支持SHA-256", e);
+        }
+    }
+
+    /**
+     * 计算文件内容的SHA-256
+     * 文件按窗口内存映射后直接交给摘要，不经过堆上的中间缓冲区
+     * @return 十六进制摘要
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest md = newSha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos));
+                try {
+                    md.update(window);
+                } finally {
+                    MappedBuffers.unmap(window);
+                }
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * 计算缓冲区剩余内容的SHA-256，不改变缓冲区的position
+     * @return 十六进制摘要
+     */
+    public static String sha256(ByteBuffer buffer) {
+        MessageDigest md = newSha256();
+        md.update(buffer.duplicate());
+        return toHex(md.digest());
+    }
+
+    /**
+     * 计算目录树的Merkle哈希
+     * 每个目录的哈希由其子项（按名称排序）的名称、类型和哈希组成，
+     * 因此只与相对路径和文件内容有关，与目录所在位置和文件时间无关；空目录不参与计算
+     * @return 十六进制摘要
+     */
+    public static String merkleRoot(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Map<String, String> fileHashes = new HashMap<>(files.size() * 2);
+        for (Path file : files) {
+            fileHashes.put("/" + dir.relativize(file).toString().replace('\\', '/'), sha256(file));
+        }
+        return merkleRoot(fileHashes);
+    }
+
+    /**
+     * 由已计算的文件哈希得出目录树的Merkle哈希，结果与对同一目录调用merkleRoot(Path)相同
+     * @param fileHashes 以相对路径（以 / 开头、/ 分隔）为键的文件SHA-256
+     * @return 十六进制摘要
+     */
+    public static String merkleRoot(Map<String, String> fileHashes) {
+        TreeMap<String, Object> root = new TreeMap<>();
+        for (Map.Entry<String, String> entry : fileHashes.entrySet()) {
+            String[] segments = entry.getKey().replaceFirst("^/+", "").split("/");
+            TreeMap<String, Object> dir = root;
+            for (int i = 0; i < segments.length - 1; i++) {
+                dir = subdirectory(dir, segments[i]);
+            }
+            dir.put(segments[segments.length - 1], entry.getValue());
+        }
+        return hashTree(root);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TreeMap<String, Object> subdirectory(TreeMap<String, Object> dir, String name) {
+        return (TreeMap<String, Object>) dir.computeIfAbsent(name, k -> new TreeMap<String, Object>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String hashTree(TreeMap<String, Object> dir) {
+        MessageDigest md = newSha256();
+        for (Map.Entry<String, Object> child : dir.entrySet()) {
+            String line;
+            if (child.getValue() instanceof TreeMap) {
+                line = "d " + child.getKey() + " " + hashTree((TreeMap<String, Object>) child.getValue()) + "\n";
+            } else {
+                line = "f " + child.getKey() + " " + child.getValue() + "\n";
+            }
+            md.update(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(md.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            out[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,62 @@
+package com.platform.sbom.util;
+
+import com.platform.sbom.model.Dependency;
+
+import java.util.*;
+
+/**
+ * 以哈希邻接表收集依赖边：引用 → 有序的目标集合
+ * 添加边和去重都是常数时间，引用按第一次出现的顺序输出，每个引用的目标也按第一次出现的顺序输出
+ */
+public class DependencyAdjacency {
+
+    private final Map<String, Set<String>> targets = new LinkedHashMap<>();
+
+    /**
+     * 登记一个引用，即使它没有依赖也会出现在输出中
+     */
+    public Set<String> addNode(String ref) {
+        return targets.computeIfAbsent(ref, k -> new LinkedHashSet<>());
+    }
+
+    public void addEdge(String ref, String target) {
+        addNode(ref).add(target);
+    }
+
+    /**
+     * 按顺序并入一组依赖，同一引用的目标合并去重
+     */
+    public void addAll(Collection<Dependency> dependencies) {
+        if (dependencies == null) {
+            return;
+        }
+        for (Dependency dep : dependencies) {
+            Set<String> set = addNode(dep.getRef());
+            if (dep.getDependsOn() != null) {
+                set.addAll(dep.getDependsOn());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return targets.isEmpty();
+    }
+
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * 输出为Dependency列表，每次调用都创建新对象
+     */
+    public List<Dependency> toDependencies() {
+        List<Dependency> result = new ArrayList<>(targets.size());
+        for (Map.Entry<String, Set<String>> entry : targets.entrySet()) {
+            Dependency dep = new Dependency();
+            dep.setRef(entry.getKey());
+            dep.setDependsOn(new ArrayList<>(entry.getValue()));
+            result.add(dep);
+        }
+        return result;
+    }
+}
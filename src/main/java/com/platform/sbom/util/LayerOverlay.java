@@ -0,0 +1,143 @@
+package com.platform.sbom.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 按OCI/Docker镜像层的overlay语义计算最终文件系统中每个路径由哪一层提供
+ * 各层按从下到上的顺序apply：
+ * - 不透明目录（.wh..wh..opq）隐藏下层在该目录下的所有内容
+ * - whiteout文件（.wh.name）删除下层的name及其下的所有内容
+ * - 本层的文件覆盖下层的同名路径
+ * 路径统一为以 / 开头、以 / 分隔的形式
+ */
+public class LayerOverlay {
+
+    public static final String WHITEOUT_PREFIX = ".wh.";
+    public static final String OPAQUE_MARKER = ".wh..wh..opq";
+
+    private final TreeMap<String, Integer> owners = new TreeMap<>();
+    private int layerCount;
+
+    /**
+     * 应用一层
+     * @param opaqueDirs 本层标记为不透明的目录
+     * @param whiteouts 本层删除的路径
+     * @param paths 本层包含的文件路径（不含目录）
+     * @return 本层的序号，从0开始
+     */
+    public int apply(Collection<String> opaqueDirs, Collection<String> whiteouts, Collection<String> paths) {
+        int layer = layerCount++;
+        for (String dir : opaqueDirs) {
+            removeUnder(dir);
+        }
+        for (String path : whiteouts) {
+            owners.remove(path);
+            removeUnder(path);
+        }
+        for (String path : paths) {
+            owners.put(path, layer);
+        }
+        return layer;
+    }
+
+    /**
+     * 路径在最终文件系统中是否由指定层提供
+     */
+    public boolean isVisible(String path, int layer) {
+        Integer owner = owners.get(path);
+        return owner != null && owner == layer;
+    }
+
+    /**
+     * @return 提供该路径的层序号，路径不存在时返回null
+     */
+    public Integer owner(String path) {
+        return owners.get(path);
+    }
+
+    public int size() {
+        return owners.size();
+    }
+
+    private void removeUnder(String dir) {
+        String prefix = dir.endsWith("/") ? dir : dir + "/";
+        NavigableMap<String, Integer> children = owners.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        children.clear();
+    }
+
+    /**
+     * 将层内条目名（如 ./usr/lib/a.so、usr/lib/a.so）规范化为 /usr/lib/a.so
+     * @return 规范化后的路径，根目录本身或包含 .. 的条目返回null
+     */
+    public static String normalize(String entryName) {
+        String name = entryName.replace('\\', '/');
+        while (name.startsWith("./")) {
+            name = name.substring(2);
+        }
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        while (name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        if (name.isEmpty() || name.equals(".")) {
+            return null;
+        }
+        for (String part : name.split("/")) {
+            if (part.equals("..")) {
+                return null;
+            }
+        }
+        return "/" + name;
+    }
+
+    /**
+     * 层中的条目是whiteout或不透明目录标记时，记录它删除或隐藏的路径
+     * @param path 规范化后的条目路径（见normalize）
+     * @return 是标记条目时返回true，调用方不应再把它当作文件处理
+     */
+    public static boolean collectMarker(String path, Collection<String> opaqueDirs, Collection<String> whiteouts) {
+        int slash = path.lastIndexOf('/');
+        String parent = path.substring(0, slash);
+        String fileName = path.substring(slash + 1);
+        if (fileName.equals(OPAQUE_MARKER)) {
+            opaqueDirs.add(parent.isEmpty() ? "/" : parent);
+            return true;
+        }
+        if (fileName.startsWith(WHITEOUT_PREFIX)) {
+            whiteouts.add(parent + "/" + fileName.substring(WHITEOUT_PREFIX.length()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解析镜像tar中符号链接的目标（旧版docker save对重复层使用链接）
+     * @param entryName 链接条目名，如 abc/layer.tar
+     * @param linkName 链接目标，相对于链接所在目录或以 / 开头
+     * @return tar内的条目名，不以 / 开头
+     */
+    public static String resolveLink(String entryName, String linkName) {
+        if (linkName.startsWith("/")) {
+            return linkName.substring(1);
+        }
+        Deque<String> parts = new ArrayDeque<>();
+        int slash = entryName.lastIndexOf('/');
+        if (slash > 0) {
+            parts.addAll(Arrays.asList(entryName.substring(0, slash).split("/")));
+        }
+        for (String part : linkName.split("/")) {
+            if (part.equals("..")) {
+                parts.pollLast();
+            } else if (!part.isEmpty() && !part.equals(".")) {
+                parts.addLast(part);
+            }
+        }
+        return String.join("/", parts);
+    }
+}
@@ -0,0 +1,51 @@
+package com.platform.sbom.util;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射文件工具
+ */
+@Log4j2
+public final class MappedBuffers {
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * 只读映射整个文件
+     * @throws IOException 文件超过2GB或无法映射时抛出
+     */
+    public static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("文件超过2GB，无法映射: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * 尽早释放映射（Windows上映射未释放时文件无法删除），调用后不能再访问该缓冲区及其切片
+     * 依赖JDK内部的Unsafe.invokeCleaner，不可用时交给GC释放
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("无法立即释放内存映射: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.platform.sbom.graph;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可达性索引：强连通分量收缩、顶层组件判定，以及预计算位图与按需反向遍历两种路径的结果一致
+ * 测试图（编号即组件下标）：
+ * <pre>
+ * system -> A(0)
+ * A(0) -> B(1) -> C(2) -> D(3)，C(2) -> B(1)
+ * E(4) -> D(3)
+ * F(5) 孤立
+ * G(6) -> H(7) -> G(6)，H(7) -> D(3)
+ * </pre>
+ */
+class ReachabilityIndexTest {
+
+    private static final int A = 0, B = 1, C = 2, D = 3, E = 4, F = 5, G = 6, H = 7;
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MAX_VALUE, 0})
+    void contractsCyclesAndFindsTopLevel(long closureBudgetBytes) {
+        ReachabilityIndex index = index(closureBudgetBytes);
+
+        assertEquals(closureBudgetBytes > 0, index.hasClosures());
+        assertEquals(8, index.componentCount());
+        // A、{B,C}、D、E、F、{G,H}
+        assertEquals(6, index.sccCount());
+        // 没有前驱的分量中的组件；system不是组件，不使A失去顶层身份
+        assertEquals(5, index.topLevelCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MAX_VALUE, 0})
+    void topLevelReaching(long closureBudgetBytes) {
+        ReachabilityIndex index = index(closureBudgetBytes);
+
+        assertArrayEquals(new int[]{A, E, G, H}, index.topLevelReaching(new int[]{D}));
+        // 环内的C也只由A引入
+        assertArrayEquals(new int[]{A}, index.topLevelReaching(new int[]{B}));
+        assertArrayEquals(new int[]{A}, index.topLevelReaching(new int[]{C}));
+        // 顶层组件本身
+        assertArrayEquals(new int[]{F}, index.topLevelReaching(new int[]{F}));
+        assertArrayEquals(new int[]{A, F}, index.topLevelReaching(new int[]{B, F}));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MAX_VALUE, 0})
+    void dependents(long closureBudgetBytes) {
+        ReachabilityIndex index = index(closureBudgetBytes);
+
+        assertArrayEquals(new int[]{C, E, H}, index.dependents(new int[]{D}, false));
+        assertArrayEquals(new int[]{A, B, C, E, G, H}, index.dependents(new int[]{D}, true));
+        // 目标处在依赖环中时包含自身
+        assertArrayEquals(new int[]{A, B, C}, index.dependents(new int[]{B}, true));
+        assertArrayEquals(new int[0], index.dependents(new int[]{F}, true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MAX_VALUE, 0})
+    void shortestPathFromEachTopLevel(long closureBudgetBytes) {
+        ReachabilityIndex index = index(closureBudgetBytes);
+        int[] targets = {D};
+        int[] tops = index.topLevelReaching(targets);
+
+        Map<Integer, int[]> paths = index.paths(targets, tops, 10);
+        assertEquals(List.of(A, E, G, H), List.copyOf(paths.keySet()));
+        assertArrayEquals(new int[]{A, B, C, D}, paths.get(A));
+        assertArrayEquals(new int[]{E, D}, paths.get(E));
+        assertArrayEquals(new int[]{G, H, D}, paths.get(G));
+        assertArrayEquals(new int[]{H, D}, paths.get(H));
+
+        // 只取前maxPaths个顶层组件
+        assertEquals(List.of(A, E), List.copyOf(index.paths(targets, tops, 2).keySet()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MAX_VALUE, 0})
+    void findByPurlThenRef(long closureBudgetBytes) {
+        ReachabilityIndex index = index(closureBudgetBytes);
+
+        assertArrayEquals(new int[]{D}, index.find("pkg:npm/d@1.0.0"));
+        assertArrayEquals(new int[]{D}, index.find("ref-d"));
+        // 非组件引用和未知引用
+        assertArrayEquals(new int[0], index.find("system"));
+        assertArrayEquals(new int[0], index.find("pkg:npm/missing@1.0.0"));
+        assertEquals("d", index.name(D));
+        assertEquals("ref-d", index.ref(D));
+    }
+
+    @Test
+    void findIgnoresQualifiersAndMatchesAllVersionsWithoutVersion() {
+        List<Component> components = new ArrayList<>();
+        for (String version : List.of("3.0.11", "3.0.13")) {
+            Component c = new Component();
+            c.setSbomRef("openssl-" + version);
+            c.setName("openssl");
+            c.setVersion(version);
+            c.setPurl("pkg:deb/debian/openssl@" + version + "?arch=amd64&distro=debian-12");
+            components.add(c);
+        }
+        ReachabilityIndex index = ReachabilityIndex.build(components,
+                List.of(dependency("openssl-3.0.13", "openssl-3.0.11")), Long.MAX_VALUE);
+
+        // CVE数据中的PURL通常不带限定符
+        assertArrayEquals(new int[]{0}, index.find("pkg:deb/debian/openssl@3.0.11"));
+        assertArrayEquals(new int[]{0}, index.find("pkg:deb/debian/OpenSSL@3.0.11?arch=arm64"));
+        assertArrayEquals(new int[]{0}, index.find("pkg:deb/debian/openssl@3.0.11?arch=amd64&distro=debian-12"));
+        assertArrayEquals(new int[]{0, 1}, index.find("pkg:deb/debian/openssl"));
+        assertArrayEquals(new int[0], index.find("pkg:deb/debian/openssl@1.1.1"));
+    }
+
+    private static ReachabilityIndex index(long closureBudgetBytes) {
+        List<Component> components = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d", "e", "f", "g", "h")) {
+            Component c = new Component();
+            c.setSbomRef("ref-" + name);
+            c.setName(name);
+            c.setVersion("1.0.0");
+            c.setPurl("pkg:npm/" + name + "@1.0.0");
+            components.add(c);
+        }
+        List<Dependency> dependencies = List.of(
+                dependency("system", "ref-a"),
+                dependency("ref-a", "ref-b"),
+                dependency("ref-b", "ref-c"),
+                dependency("ref-c", "ref-d", "ref-b"),
+                dependency("ref-e", "ref-d"),
+                dependency("ref-g", "ref-h"),
+                dependency("ref-h", "ref-g", "ref-d"));
+        return ReachabilityIndex.build(components, dependencies, closureBudgetBytes);
+    }
+
+    private static Dependency dependency(String ref, String... dependsOn) {
+        Dependency d = new Dependency();
+        d.setRef(ref);
+        d.setDependsOn(List.of(dependsOn));
+        return d;
+    }
+}
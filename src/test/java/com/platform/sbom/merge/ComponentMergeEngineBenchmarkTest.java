@@ -0,0 +1,55 @@
+package com.platform.sbom.merge;
+
+import com.platform.sbom.model.Component;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.platform.sbom.merge.ComponentMergeFixtures.views;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 组件合并引擎的规模测试，默认不运行：mvn test -Pbenchmark
+ * 两个视图各含n个组件，其中80%以purl重叠（ComponentMergeFixtures）；检查单个组件耗时随规模近似不变
+ * 并行合并与顺序合并结果一致的检查在ComponentMergeEngineTest中，默认运行
+ */
+@Log4j2
+@Tag("benchmark")
+class ComponentMergeEngineBenchmarkTest {
+
+    private static final int[] SIZES = {62_500, 125_000, 250_000, 500_000};
+
+    @Test
+    void scalesLinearlyTo500kComponents() {
+        ComponentMergeEngine engine = new ComponentMergeEngine();
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            engine.merge(views(SIZES[1]));
+        }
+
+        double[] nanosPerComponent = new double[SIZES.length];
+        for (int s = 0; s < SIZES.length; s++) {
+            int n = SIZES[s];
+            long best = Long.MAX_VALUE;
+            int merged = 0;
+            for (int run = 0; run < 5; run++) {
+                List<List<Component>> views = views(n);
+                long start = System.nanoTime();
+                merged = engine.merge(views).size();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            // 第二个视图中20%的组件不与第一个视图重叠
+            assertEquals(n + n / 5, merged);
+            nanosPerComponent[s] = (double) best / (2L * n);
+            log.info("merge {} + {} components: {} ms ({} ns/component)",
+                    n, n, best / 1_000_000, String.format("%.1f", nanosPerComponent[s]));
+        }
+        assertTrue(nanosPerComponent[SIZES.length - 1] < nanosPerComponent[0] * 3,
+                "per-component cost should stay roughly constant as input grows: "
+                        + Arrays.toString(nanosPerComponent) + " ns/component");
+    }
+}
@@ -0,0 +1,98 @@
+package com.platform.sbom.merge;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.PackageURL;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.platform.sbom.merge.ComponentMergeFixtures.component;
+import static com.platform.sbom.merge.ComponentMergeFixtures.views;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 组件合并引擎的正确性测试：各级合并键，以及并行合并与顺序合并的结果和顺序一致
+ */
+class ComponentMergeEngineTest {
+
+    private static final int N = 5_000;
+
+    @Test
+    void parallelMergeMatchesSequentialOrder() {
+        List<Component> sequential = new ComponentMergeEngine(Integer.MAX_VALUE, 1).merge(views(N));
+        // 阈值为1，任何规模都走并行路径
+        List<Component> parallel = new ComponentMergeEngine(1, 8).merge(views(N));
+
+        // 第二个视图中20%的组件不与第一个视图重叠
+        assertEquals(N + N / 5, sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getPurl(), parallel.get(i).getPurl(), "purl at " + i);
+            assertEquals(sequential.get(i).getLicense(), parallel.get(i).getLicense(), "license at " + i);
+        }
+    }
+
+    @Test
+    void keepsFirstViewInstance() {
+        List<List<Component>> views = views(10);
+        assertSame(views.get(0).get(0), new ComponentMergeEngine().merge(views).get(0));
+    }
+
+    @Test
+    void mergesBySbomRefWhenThereIsNoPurl() {
+        Component spdx = component(null, "Package-A", "library", "a", "1.0");
+        Component cdx = component(null, "package-a", "library", "a-renamed", "2.0");
+        cdx.setLicense("MIT");
+
+        List<Component> merged = new ComponentMergeEngine().merge(List.of(List.of(spdx), List.of(cdx)));
+
+        assertEquals(1, merged.size());
+        assertSame(spdx, merged.get(0));
+        assertEquals("MIT", spdx.getLicense());
+    }
+
+    @Test
+    void mergesByTypeNameVersionWithoutPurlOrRef() {
+        Component first = component(null, null, "library", "Lodash", "4.17.21");
+        // 根引用system不作为身份
+        Component sameCoordinates = component(null, "system", "LIBRARY", "lodash", "4.17.21");
+        Component otherType = component(null, null, "application", "lodash", "4.17.21");
+        Component otherVersion = component(null, "", "library", "lodash", "4.17.20");
+
+        List<Component> merged = new ComponentMergeEngine().merge(
+                List.of(List.of(first, otherType), List.of(sameCoordinates, otherVersion)));
+
+        assertEquals(List.of(first, otherType, otherVersion), merged);
+    }
+
+    @Test
+    void mergesByInternedPackageUrl() {
+        PackageURL.Interner interner = new PackageURL.Interner();
+        Component spdx = component(null, "SPDXRef-1", "library", "guava", "33.0.0");
+        spdx.setPackageUrl(interner.intern("pkg:maven/com.google.guava/guava@33.0.0"));
+        Component cdx = component(null, "bom-ref-1", "library", "guava", "33.0.0");
+        cdx.setPackageUrl(interner.intern("pkg:maven/com.google.guava/guava@33.0.0"));
+        // 只有大小写不同的PURL也是同一组件
+        Component upper = component("pkg:maven/com.google.guava/Guava@33.0.0", "other", "library", "guava", "33.0.0");
+
+        List<Component> merged = new ComponentMergeEngine().merge(List.of(List.of(spdx), List.of(cdx, upper)));
+
+        assertEquals(1, merged.size());
+        assertSame(spdx, merged.get(0));
+        assertSame(spdx.getPackageUrl(), cdx.getPackageUrl());
+    }
+
+    @Test
+    void samePurlFromDifferentSourcesIsNotDuplicated() {
+        // 旧的合并在来源不同时以 key + "-" + hashCode() 再次插入，同一组件出现两次
+        Component spdx = component("pkg:npm/left-pad@1.3.0", "SPDXRef-left-pad", "library", "left-pad", "1.3.0");
+        spdx.setSourceRepo("filesystem:/app");
+        Component cdx = component("pkg:npm/left-pad@1.3.0", "left-pad-ref", "library", "left-pad", "1.3.0");
+        cdx.setSourceRepo("container-image");
+
+        List<Component> merged = new ComponentMergeEngine().merge(List.of(List.of(spdx), List.of(cdx)));
+
+        assertEquals(List.of(spdx), merged);
+    }
+}
@@ -0,0 +1,57 @@
+package com.platform.sbom.merge;
+
+import com.platform.sbom.model.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合并引擎测试共用的组件视图
+ * 两个视图各含n个组件，第二个视图中80%的组件以purl与第一个视图重叠
+ */
+final class ComponentMergeFixtures {
+
+    private ComponentMergeFixtures() {
+    }
+
+    static List<List<Component>> views(int n) {
+        List<Component> spdx = new ArrayList<>(n);
+        List<Component> cdx = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            spdx.add(component(i, null));
+        }
+        int overlap = n - n / 5;
+        for (int i = 0; i < n; i++) {
+            // 重叠部分的CycloneDX组件带许可证，合并后应补充到SPDX组件上
+            cdx.add(component(i < overlap ? i : n + i, "Apache-2.0"));
+        }
+        List<List<Component>> views = new ArrayList<>();
+        views.add(spdx);
+        views.add(cdx);
+        return views;
+    }
+
+    static Component component(int i, String license) {
+        Component c = new Component();
+        c.setSbomRef("SPDXRef-Package-" + i);
+        c.setName("artifact-" + i);
+        c.setVersion("1." + (i % 10));
+        c.setType("library");
+        c.setPurl("pkg:maven/org.example.g" + (i % 1000) + "/artifact-" + i + "@1." + (i % 10));
+        c.setLicense(license);
+        return c;
+    }
+
+    /**
+     * 只有给定身份字段的组件，用于检查各级合并键
+     */
+    static Component component(String purl, String sbomRef, String type, String name, String version) {
+        Component c = new Component();
+        c.setPurl(purl);
+        c.setSbomRef(sbomRef);
+        c.setType(type);
+        c.setName(name);
+        c.setVersion(version);
+        return c;
+    }
+}
@@ -0,0 +1,154 @@
+package com.platform.sbom.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PURL解析：各部分边界、npm作用域、限定符与子路径、无效输入
+ */
+class PackageURLTest {
+
+    @Test
+    void parsesAllParts() {
+        PackageURL purl = PackageURL.parse("pkg:deb/debian/curl@7.50.3-1?arch=i386&distro=jessie#src/lib");
+
+        assertNotNull(purl);
+        assertEquals("deb", purl.getType());
+        assertEquals("debian", purl.getNamespace());
+        assertEquals("curl", purl.getName());
+        assertEquals("7.50.3-1", purl.getVersion());
+        assertEquals("arch=i386&distro=jessie", purl.getQualifiers());
+        assertEquals("src/lib", purl.getSubpath());
+        assertEquals("pkg:deb/debian/curl@7.50.3-1?arch=i386&distro=jessie#src/lib", purl.toString());
+    }
+
+    @Test
+    void parsesOptionalPartsAsNull() {
+        PackageURL purl = PackageURL.parse("pkg:generic/openssl");
+
+        assertNotNull(purl);
+        assertEquals("generic", purl.getType());
+        assertNull(purl.getNamespace());
+        assertEquals("openssl", purl.getName());
+        assertNull(purl.getVersion());
+        assertNull(purl.getQualifiers());
+        assertNull(purl.getSubpath());
+    }
+
+    @Test
+    void npmScopeIsNotTakenAsVersion() {
+        PackageURL scoped = PackageURL.parse("pkg:npm/@babel/core@7.24.0");
+        assertEquals("@babel", scoped.getNamespace());
+        assertEquals("core", scoped.getName());
+        assertEquals("7.24.0", scoped.getVersion());
+
+        PackageURL unversioned = PackageURL.parse("pkg:npm/@babel/core");
+        assertEquals("@babel", unversioned.getNamespace());
+        assertEquals("core", unversioned.getName());
+        assertNull(unversioned.getVersion());
+
+        // 各部分保持原样，不做百分号解码
+        assertEquals("%40babel", PackageURL.parse("pkg:npm/%40babel/core@7.24.0").getNamespace());
+    }
+
+    @Test
+    void multiLevelNamespaceAndQualifierWithoutVersion() {
+        PackageURL purl = PackageURL.parse("pkg:golang/github.com/gorilla/context?vcs_url=git%40github.com");
+
+        assertEquals("github.com/gorilla", purl.getNamespace());
+        assertEquals("context", purl.getName());
+        assertNull(purl.getVersion());
+        assertEquals("vcs_url=git%40github.com", purl.getQualifiers());
+    }
+
+    @Test
+    void schemeIsCaseInsensitiveAndExtraSlashesAreSkipped() {
+        PackageURL purl = PackageURL.parse("PKG://Maven/org.apache/Commons-IO@2.16.1");
+
+        assertNotNull(purl);
+        assertEquals("Maven", purl.getType());
+        assertTrue(purl.isType("maven"));
+        assertFalse(purl.isType("npm"));
+        assertEquals("org.apache", purl.getNamespace());
+        assertEquals("Commons-IO", purl.getName());
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertNull(PackageURL.parse(null));
+        assertNull(PackageURL.parse(""));
+        assertNull(PackageURL.parse("maven/org.apache/commons-io@2.16.1"));
+        // 没有类型或名称
+        assertNull(PackageURL.parse("pkg:maven"));
+        assertNull(PackageURL.parse("pkg:/commons-io"));
+        assertNull(PackageURL.parse("pkg:npm/"));
+        assertNull(PackageURL.parse("pkg:npm/@1.0.0"));
+        assertNull(PackageURL.parse("pkg:maven/org.apache/?type=jar"));
+        assertThrows(IllegalArgumentException.class, () -> PackageURL.of("npm", null, "", "1.0.0"));
+    }
+
+    @Test
+    void keyIsLowerCaseAndReusedWhenAlreadyLowerCase() {
+        PackageURL mixed = PackageURL.parse("pkg:maven/org.apache/Commons-IO@2.16.1");
+        assertEquals("pkg:maven/org.apache/commons-io@2.16.1", mixed.key());
+        assertSame(mixed.key(), mixed.key());
+
+        PackageURL lower = PackageURL.parse("pkg:maven/org.apache/commons-io@2.16.1");
+        assertSame(lower.toString(), lower.key());
+        assertNotEquals(mixed, lower);
+        assertEquals(mixed.key(), lower.key());
+    }
+
+    @Test
+    void ofBuildsCanonicalString() {
+        assertEquals("pkg:maven/org.apache/commons-io@2.16.1",
+                PackageURL.of("maven", "org.apache", "commons-io", "2.16.1").toString());
+        assertEquals("pkg:deb/curl?arch=amd64", PackageURL.of("deb", "", "curl", null, "arch=amd64").toString());
+    }
+
+    @Test
+    void withNamespaceKeepsOtherParts() {
+        PackageURL purl = PackageURL.parse("pkg:deb/debian/curl@7.50.3-1?arch=i386#src");
+
+        PackageURL ubuntu = purl.withNamespace("ubuntu");
+        assertEquals("pkg:deb/ubuntu/curl@7.50.3-1?arch=i386#src", ubuntu.toString());
+        assertEquals("src", ubuntu.getSubpath());
+        assertEquals("pkg:deb/curl@7.50.3-1?arch=i386#src", purl.withNamespace(null).toString());
+        // 命名空间相同时返回原实例
+        assertSame(purl, purl.withNamespace("debian"));
+    }
+
+    @Test
+    void withoutQualifiersDropsQualifiersAndSubpath() {
+        assertEquals("pkg:deb/debian/curl@7.50.3-1",
+                PackageURL.parse("pkg:deb/debian/curl@7.50.3-1?arch=i386#src").withoutQualifiers().toString());
+        assertEquals("pkg:golang/github.com/gorilla/mux@v1.8.0",
+                PackageURL.parse("pkg:golang/github.com/gorilla/mux@v1.8.0#pkg").withoutQualifiers().toString());
+        PackageURL plain = PackageURL.parse("pkg:npm/lodash@4.17.21");
+        assertSame(plain, plain.withoutQualifiers());
+    }
+
+    @Test
+    void withQualifierAppendsOnlyMissingQualifier() {
+        PackageURL purl = PackageURL.parse("pkg:deb/debian/curl@7.50.3-1?arch=i386#src");
+
+        assertEquals("pkg:deb/debian/curl@7.50.3-1?arch=i386&distro=debian-12#src",
+                purl.withQualifier("distro", "debian-12").toString());
+        assertEquals("pkg:deb/curl@1?distro=debian-12",
+                PackageURL.parse("pkg:deb/curl@1").withQualifier("distro", "debian-12").toString());
+        // 已有同名限定符时返回原实例
+        assertSame(purl, purl.withQualifier("arch", "amd64"));
+    }
+
+    @Test
+    void internerSharesInstances() {
+        PackageURL.Interner interner = new PackageURL.Interner();
+        PackageURL first = interner.intern("pkg:npm/lodash@4.17.21");
+
+        assertSame(first, interner.intern(new String("pkg:npm/lodash@4.17.21")));
+        assertSame(first, interner.intern(PackageURL.parse("pkg:npm/lodash@4.17.21")));
+        assertNull(interner.intern("not-a-purl"));
+        assertEquals(1, interner.size());
+    }
+}
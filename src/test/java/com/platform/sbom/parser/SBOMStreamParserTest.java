@@ -0,0 +1,132 @@
+package com.platform.sbom.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 流式解析器与原先基于JsonNode树的解析结果一致：
+ * 期望值按旧解析器（SyftService.parseSPDXOutput / parseCycloneDXOutput）的规则得出
+ */
+class SBOMStreamParserTest {
+
+    private static final String SOURCE = "filesystem:/tmp/sys123";
+
+    private final SBOMStreamParser parser = new SBOMStreamParser(new ObjectMapper());
+
+    @Test
+    void spdxComponentsAndDependencies() throws IOException {
+        ScanResultCollector collector = new ScanResultCollector();
+        try (InputStream in = fixture("syft-spdx.json")) {
+            parser.parseSpdx(in, SOURCE, collector);
+        }
+        Map<String, Object> result = collector.toResult();
+        List<Component> components = components(result);
+
+        // 文档自身包被跳过
+        assertEquals(3, components.size());
+        assertComponent(components.get(0), "Package-java-archive-spring-core-1a2b", "spring-core", "6.1.6",
+                "LIBRARY", "Organization: VMware", "NOASSERTION", "Spring Core",
+                "pkg:maven/org.springframework/spring-core@6.1.6",
+                "cpe:2.3:a:vmware:spring-core:6.1.6:*:*:*:*:*:*:*");
+        // 两种许可证都为空时为UNKNOWN，缺失字段与旧解析器一样取空串或默认值
+        assertComponent(components.get(1), "Package-java-archive-spring-jcl-3c4d", "spring-jcl", "6.1.6",
+                "LIBRARY", "", "UNKNOWN", "", "pkg:maven/org.springframework/spring-jcl@6.1.6", null);
+        assertComponent(components.get(2), "Package-deb-zlib-5e6f", "zlib", "1:1.2.13.dfsg-1",
+                "OPERATING-SYSTEM", "", "Zlib", "", null, null);
+
+        // 只保留DEPENDS_ON，按源首次出现的顺序分组
+        List<Dependency> dependencies = dependencies(result);
+        assertEquals(2, dependencies.size());
+        assertDependency(dependencies.get(0), "Package-java-archive-spring-core-1a2b",
+                "Package-java-archive-spring-jcl-3c4d", "Package-deb-zlib-5e6f");
+        assertDependency(dependencies.get(1), "Package-deb-zlib-5e6f", "Package-java-archive-spring-jcl-3c4d");
+    }
+
+    @Test
+    void spdxWithoutDependsOnFallsBackToSystemRoot() throws IOException {
+        ScanResultCollector collector = new ScanResultCollector();
+        try (InputStream in = fixture("syft-spdx-no-relationships.json")) {
+            parser.parseSpdx(in, SOURCE, collector);
+        }
+        Map<String, Object> result = collector.toResult();
+
+        assertEquals(2, components(result).size());
+        List<Dependency> dependencies = dependencies(result);
+        assertEquals(1, dependencies.size());
+        assertDependency(dependencies.get(0), "system", "Package-a", "Package-b");
+    }
+
+    @Test
+    void cycloneDxComponentsAndDependencies() throws IOException {
+        ScanResultCollector collector = new ScanResultCollector();
+        try (InputStream in = fixture("syft-cyclonedx.json")) {
+            parser.parseCycloneDx(in, SOURCE, collector);
+        }
+        Map<String, Object> result = collector.toResult();
+        List<Component> components = components(result);
+
+        assertEquals(4, components.size());
+        // 只取第一个许可证
+        assertComponent(components.get(0), "pkg:maven/org.springframework/spring-core@6.1.6?package-id=1a2b",
+                "spring-core", "6.1.6", "library", "VMware", "Apache-2.0", "Spring Core",
+                "pkg:maven/org.springframework/spring-core@6.1.6",
+                "cpe:2.3:a:vmware:spring-core:6.1.6:*:*:*:*:*:*:*");
+        assertComponent(components.get(1), "pkg:maven/org.springframework/spring-jcl@6.1.6?package-id=3c4d",
+                "spring-jcl", "6.1.6", "library", null, "Apache License, Version 2.0", "",
+                "pkg:maven/org.springframework/spring-jcl@6.1.6", null);
+        // 没有bom-ref时按类型/名称/版本生成
+        assertComponent(components.get(2), "pkg:library/left-pad@1.3.0", "left-pad", "1.3.0", "library",
+                null, "WTFPL OR MIT", "", null, null);
+        assertComponent(components.get(3), "os-zlib", "zlib", "1.2.13", "operating-system",
+                null, "UNKNOWN", "", null, null);
+
+        // dependsOn为空的条目不产生依赖关系
+        List<Dependency> dependencies = dependencies(result);
+        assertEquals(2, dependencies.size());
+        assertDependency(dependencies.get(0), "pkg:maven/org.springframework/spring-core@6.1.6?package-id=1a2b",
+                "pkg:maven/org.springframework/spring-jcl@6.1.6?package-id=3c4d", "os-zlib");
+        assertDependency(dependencies.get(1), "pkg:library/left-pad@1.3.0", "os-zlib");
+    }
+
+    private static void assertComponent(Component c, String ref, String name, String version, String type,
+                                        String vendor, String license, String description, String purl, String cpe) {
+        assertEquals(ref, c.getSbomRef());
+        assertEquals(name, c.getName());
+        assertEquals(version, c.getVersion());
+        assertEquals(type, c.getType());
+        assertEquals(vendor, c.getVendor());
+        assertEquals(license, c.getLicense());
+        assertEquals(description, c.getDescription());
+        assertEquals(purl, c.getPurl());
+        assertEquals(cpe, c.getCpe());
+        assertEquals(SOURCE, c.getSourceRepo());
+    }
+
+    private static void assertDependency(Dependency d, String ref, String... dependsOn) {
+        assertEquals(ref, d.getRef());
+        assertEquals(List.of(dependsOn), d.getDependsOn());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Component> components(Map<String, Object> result) {
+        return (List<Component>) result.get("components");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Dependency> dependencies(Map<String, Object> result) {
+        return (List<Dependency>) result.get("dependencies");
+    }
+
+    private InputStream fixture(String name) {
+        return getClass().getResourceAsStream("/parser/" + name);
+    }
+}
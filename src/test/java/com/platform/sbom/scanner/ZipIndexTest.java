@@ -0,0 +1,152 @@
+package com.platform.sbom.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * zip中央目录读取：STORED/DEFLATED条目、ZIP64、前置数据和声明大小的上限
+ */
+class ZipIndexTest {
+
+    private static final byte[] STORED_CONTENT = "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DEFLATED_CONTENT = "groupId=org.example\nartifactId=demo\nversion=1.0.0\n"
+            .repeat(20).getBytes(StandardCharsets.UTF_8);
+    /** 可执行jar前面的启动脚本 */
+    private static final byte[] LAUNCH_SCRIPT = "#!/bin/bash\nexec java -jar \"$0\" \"$@\"\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void readsStoredAndDeflatedEntries() throws IOException {
+        ZipIndex zip = ZipIndex.open(ByteBuffer.wrap(sampleZip()));
+
+        assertEquals(2, zip.entries().size());
+        ZipIndex.Entry stored = entry(zip, "META-INF/MANIFEST.MF");
+        assertEquals(ZipIndex.STORED, stored.getMethod());
+        assertEquals(new String(STORED_CONTENT, StandardCharsets.UTF_8), string(zip.read(stored)));
+
+        ZipIndex.Entry deflated = entry(zip, "META-INF/maven/org.example/demo/pom.properties");
+        assertEquals(ZipIndex.DEFLATED, deflated.getMethod());
+        assertTrue(deflated.getCompressedSize() < deflated.getSize());
+        assertEquals(new String(DEFLATED_CONTENT, StandardCharsets.UTF_8), string(zip.read(deflated)));
+    }
+
+    @Test
+    void readsArchiveWithPrependedData() throws IOException {
+        ZipIndex zip = ZipIndex.open(ByteBuffer.wrap(concat(LAUNCH_SCRIPT, sampleZip())));
+
+        assertEquals(2, zip.entries().size());
+        assertEquals(new String(STORED_CONTENT, StandardCharsets.UTF_8),
+                string(zip.read(entry(zip, "META-INF/MANIFEST.MF"))));
+        assertEquals(new String(DEFLATED_CONTENT, StandardCharsets.UTF_8),
+                string(zip.read(entry(zip, "META-INF/maven/org.example/demo/pom.properties"))));
+    }
+
+    @Test
+    void readsZip64EndRecord() throws IOException {
+        // 条目数达到0xffff时ZipOutputStream写出ZIP64结束记录
+        byte[] zip64 = manyEntries(0xffff + 1);
+
+        ZipIndex plain = ZipIndex.open(ByteBuffer.wrap(zip64));
+        assertEquals(0xffff + 1, plain.entries().size());
+        assertEquals("e65536", string(plain.read(plain.entries().get(0xffff))));
+
+        ZipIndex prefixed = ZipIndex.open(ByteBuffer.wrap(concat(LAUNCH_SCRIPT, zip64)));
+        assertEquals(0xffff + 1, prefixed.entries().size());
+        assertEquals("e1", string(prefixed.read(prefixed.entries().get(0))));
+    }
+
+    @Test
+    void rejectsEntryLargerThanLimit() throws IOException {
+        byte[] bytes = sampleZip();
+        // 把中央目录中第一个条目声明的原始大小改成约4GB
+        ByteBuffer patch = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int cen = centralDirectoryStart(patch);
+        patch.putInt(cen + 24, 0xfffffff0);
+
+        ZipIndex zip = ZipIndex.open(ByteBuffer.wrap(bytes));
+        ZipIndex.Entry huge = entry(zip, "META-INF/MANIFEST.MF");
+        assertEquals(0xfffffff0L, huge.getSize());
+        assertThrows(IOException.class, () -> zip.read(huge));
+
+        ZipIndex.Entry deflated = entry(zip, "META-INF/maven/org.example/demo/pom.properties");
+        assertThrows(IOException.class, () -> zip.read(deflated, 64));
+        assertEquals(DEFLATED_CONTENT.length, zip.read(deflated, DEFLATED_CONTENT.length).remaining());
+    }
+
+    @Test
+    void rejectsNonZip() {
+        assertThrows(IOException.class, () -> ZipIndex.open(ByteBuffer.wrap(LAUNCH_SCRIPT)));
+    }
+
+    private static byte[] sampleZip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            ZipEntry stored = new ZipEntry("META-INF/MANIFEST.MF");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(STORED_CONTENT.length);
+            CRC32 crc = new CRC32();
+            crc.update(STORED_CONTENT);
+            stored.setCrc(crc.getValue());
+            zip.putNextEntry(stored);
+            zip.write(STORED_CONTENT);
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("META-INF/maven/org.example/demo/pom.properties"));
+            zip.write(DEFLATED_CONTENT);
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] manyEntries(int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(0);
+            for (int i = 1; i <= count; i++) {
+                zip.putNextEntry(new ZipEntry("e" + i));
+                zip.write(("e" + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int centralDirectoryStart(ByteBuffer buf) {
+        for (int pos = buf.capacity() - 22; pos >= 0; pos--) {
+            if (buf.getInt(pos) == 0x06054b50) {
+                return buf.getInt(pos + 16);
+            }
+        }
+        throw new AssertionError("no end of central directory record");
+    }
+
+    private static ZipIndex.Entry entry(ZipIndex zip, String name) {
+        return zip.entries().stream()
+                .filter(e -> e.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("missing entry " + name));
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] all = new byte[a.length + b.length];
+        System.arraycopy(a, 0, all, 0, a.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        return all;
+    }
+}
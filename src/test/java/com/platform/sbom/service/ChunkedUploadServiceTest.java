@@ -0,0 +1,142 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.UploadSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分块上传的偏移校验与断线重传
+ */
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 只测试写入，不提交扫描
+        service = new ChunkedUploadService(null, null, uploadDir.toString(), 8, 24);
+    }
+
+    @Test
+    void writesConsecutiveAndOverlappingChunks() throws IOException {
+        UploadSession session = service.create(UploadSession.Kind.ARCHIVE, "a.tar", 10L);
+        service.writeChunk(session, 0, body("abcdef"));
+        assertEquals(6, session.getReceivedBytes());
+        // 与已写入部分重叠的重传
+        service.writeChunk(session, 4, body("EFghij"));
+        assertEquals(10, session.getReceivedBytes());
+        assertTrue(session.isComplete());
+        assertEquals("abcdEFghij", Files.readString(session.getFile()));
+    }
+
+    @Test
+    void sessionWithoutDeclaredSizeNeedsData() throws IOException {
+        UploadSession session = service.create(UploadSession.Kind.IMAGE, "a.tar", null);
+        assertFalse(session.isComplete());
+        assertThrows(IllegalStateException.class,
+                () -> service.complete(session, "empty", "spdx", false, ScanEngine.SYFT));
+
+        service.writeChunk(session, 0, body("abc"));
+        assertTrue(session.isComplete());
+    }
+
+    @Test
+    void rejectsGapsAndNegativeOffsets() throws IOException {
+        UploadSession session = service.create(UploadSession.Kind.ARCHIVE, "a.tar", 10L);
+        service.writeChunk(session, 0, body("abc"));
+        assertThrows(IllegalStateException.class, () -> service.writeChunk(session, 4, body("x")));
+        assertThrows(IllegalStateException.class, () -> service.writeChunk(session, -1, body("x")));
+        assertEquals(3, session.getReceivedBytes());
+    }
+
+    @Test
+    void rejectsChunksPastLimits() throws IOException {
+        UploadSession session = service.create(UploadSession.Kind.ARCHIVE, "a.tar", 10L);
+        // 单块上限为8字节
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(session, 0, body("123456789")));
+        service.writeChunk(session, 0, body("12345678"));
+        // 超出声明的总大小
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(session, 8, body("abc")));
+        assertEquals(8, session.getReceivedBytes());
+    }
+
+    @Test
+    void retryTakesOverStalledWriter() throws Exception {
+        UploadSession session = service.create(UploadSession.Kind.ARCHIVE, "a.tar", 8L);
+        CountDownLatch firstRead = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 写出4个字节后阻塞，模拟连接中断但套接字尚未超时的请求
+        InputStream stalled = new InputStream() {
+            private int served;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (served == 0) {
+                    served = 4;
+                    System.arraycopy("abcd".getBytes(StandardCharsets.US_ASCII), 0, b, off, 4);
+                    return 4;
+                }
+                firstRead.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                System.arraycopy("XXXX".getBytes(StandardCharsets.US_ASCII), 0, b, off, 4);
+                return 4;
+            }
+        };
+        CompletableFuture<UploadSession> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.writeChunk(session, 0, stalled);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(firstRead.await(5, TimeUnit.SECONDS));
+        assertEquals(4, session.getReceivedBytes());
+
+        // 重试不必等待阻塞的请求
+        CompletableFuture<UploadSession> retry = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.writeChunk(session, 4, body("efgh"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        retry.get(5, TimeUnit.SECONDS);
+        assertEquals(8, session.getReceivedBytes());
+
+        // 旧请求恢复后不能再写入
+        release.countDown();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals("abcdefgh", Files.readString(session.getFile()));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,114 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.Component;
+import com.platform.sbom.model.Dependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按层组装镜像扫描结果
+ */
+class LayeredImageScanServiceTest {
+
+    @Test
+    void hidesComponentsWhoseFilesWereDeletedOrReplaced() {
+        LayeredImageScanService.LayerScan base = layer(List.of("/app/a.jar", "/app/b.jar"), List.of(),
+                component("a", "/app/a.jar"), component("b", "/app/b.jar"));
+        LayeredImageScanService.LayerScan top = layer(List.of("/app/b.jar"), List.of("/app/a.jar"),
+                component("b2", "/app/b.jar"));
+        Map<String, LayeredImageScanService.LayerScan> scans = new HashMap<>();
+        scans.put("sha256:base", base);
+        scans.put("sha256:top", top);
+
+        List<Component> components = components(
+                LayeredImageScanService.assemble(List.of("sha256:base", "sha256:top"), scans));
+
+        assertEquals(List.of("b2"), components.stream().map(Component::getName).toList());
+    }
+
+    @Test
+    void duplicateLayerIsEmittedOnceAndCachedScanIsNotModified() {
+        Component shared = component("shared", "/lib/shared.so");
+        Component os = component("os-release", null);
+        LayeredImageScanService.LayerScan repeated = layer(List.of("/lib/shared.so"), List.of(), shared, os);
+        repeated.getDependencies().put("spdx", List.of(dependency("os-release", "shared")));
+        LayeredImageScanService.LayerScan middle = layer(List.of("/lib/shared.so"), List.of(),
+                component("override", "/lib/shared.so"));
+        Map<String, LayeredImageScanService.LayerScan> scans = new HashMap<>();
+        scans.put("sha256:repeated", repeated);
+        scans.put("sha256:middle", middle);
+
+        Map<String, Object> view = LayeredImageScanService.assemble(
+                List.of("sha256:repeated", "sha256:middle", "sha256:repeated"), scans).get("spdx");
+        @SuppressWarnings("unchecked")
+        List<Component> components = (List<Component>) view.get("components");
+        @SuppressWarnings("unchecked")
+        List<Dependency> dependencies = (List<Dependency>) view.get("dependencies");
+
+        // 重复的层在最后一次出现时拥有文件，中间层的组件被它覆盖
+        assertEquals(List.of("shared", "os-release"), components.stream().map(Component::getName).toList());
+        assertEquals(1, dependencies.size());
+        assertEquals(List.of("shared"), dependencies.get(0).getDependsOn());
+        // 输出的是副本，缓存中的组件不被修改
+        assertNotSame(shared, components.get(0));
+        assertEquals("container-image-archive", components.get(0).getSourceRepo());
+        assertNull(shared.getSourceRepo());
+    }
+
+    @Test
+    void osPackagesOfUpperLayersGetTheDistroOfLowerLayers() {
+        LayeredImageScanService.LayerScan base = layer(List.of("/usr/lib/os-release", "/etc/os-release"), List.of());
+        base.getOsReleases().put("/usr/lib/os-release", Map.of("ID", "debian", "VERSION_ID", "12"));
+        Component deb = component("openssl", "/var/lib/dpkg/status");
+        deb.setSbomRef("openssl-ref");
+        deb.setPurl("pkg:deb/openssl@3.0.11?arch=amd64");
+        LayeredImageScanService.LayerScan top = layer(List.of("/var/lib/dpkg/status"), List.of(), deb);
+        Map<String, LayeredImageScanService.LayerScan> scans = new HashMap<>();
+        scans.put("sha256:base", base);
+        scans.put("sha256:top", top);
+
+        Component assembled = components(
+                LayeredImageScanService.assemble(List.of("sha256:base", "sha256:top"), scans)).get(0);
+
+        assertEquals("pkg:deb/debian/openssl@3.0.11?arch=amd64&distro=debian-12", assembled.getPurl());
+        // Syft组件的sbomRef被依赖关系引用，保持不变
+        assertEquals("openssl-ref", assembled.getSbomRef());
+        assertEquals("pkg:deb/openssl@3.0.11?arch=amd64", deb.getPurl());
+    }
+
+    private static LayeredImageScanService.LayerScan layer(List<String> paths, List<String> whiteouts,
+                                                           Component... components) {
+        LayeredImageScanService.LayerScan scan = new LayeredImageScanService.LayerScan();
+        scan.setPaths(new ArrayList<>(paths));
+        scan.setWhiteouts(new ArrayList<>(whiteouts));
+        scan.getComponents().put("spdx", List.of(components));
+        return scan;
+    }
+
+    private static Component component(String name, String filePath) {
+        Component c = new Component();
+        c.setSbomRef(name);
+        c.setName(name);
+        c.setVersion("1.0");
+        c.setFilePath(filePath);
+        return c;
+    }
+
+    private static Dependency dependency(String ref, String... dependsOn) {
+        Dependency d = new Dependency();
+        d.setRef(ref);
+        d.setDependsOn(List.of(dependsOn));
+        return d;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Component> components(Map<String, Map<String, Object>> views) {
+        return (List<Component>) views.get("spdx").get("components");
+    }
+}
@@ -0,0 +1,129 @@
+package com.platform.sbom.service;
+
+import com.platform.sbom.model.SBOMSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 键集分页：上一页返回的游标在下一页还原为 (排序值, id) 条件
+ */
+class SBOMSummaryServiceTest {
+
+    private final RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+    private final SBOMSummaryService service = new SBOMSummaryService(jdbc, 500);
+
+    @Test
+    void timestampCursorRoundTrip() {
+        LocalDateTime t1 = LocalDateTime.of(2026, 3, 1, 10, 0, 0, 123_456_000);
+        LocalDateTime t2 = LocalDateTime.of(2026, 3, 1, 9, 0);
+        jdbc.rows = List.of(summary(30L, "c", t1), summary(20L, "b", t2), summary(10L, "a", t2));
+
+        Map<String, Object> first = service.list(null, null, null, "timestamp", "desc", null, 2);
+        assertEquals(true, first.get("hasMore"));
+        assertEquals(2, items(first).size());
+        assertEquals(List.of(3), jdbc.args);
+        assertTrue(jdbc.sql.endsWith(" ORDER BY timestamp DESC, id DESC LIMIT ?"));
+
+        jdbc.rows = List.of(summary(10L, "a", t2));
+        Map<String, Object> second = service.list(null, null, null, "timestamp", "desc",
+                (String) first.get("nextCursor"), 2);
+        assertTrue(jdbc.sql.contains(" AND (timestamp < ? OR (timestamp = ? AND id < ?))"));
+        assertEquals(List.of(Timestamp.valueOf(t2), Timestamp.valueOf(t2), 20L, 3), jdbc.args);
+        assertEquals(false, second.get("hasMore"));
+        assertNull(second.get("nextCursor"));
+    }
+
+    @Test
+    void timestampCursorKeepsFractionalSeconds() {
+        LocalDateTime t = LocalDateTime.of(2026, 3, 1, 10, 0, 0, 123_456_000);
+        jdbc.rows = List.of(summary(2L, "b", t), summary(1L, "a", t));
+
+        String cursor = (String) service.list(null, null, null, "timestamp", "asc", null, 1).get("nextCursor");
+        service.list(null, null, null, "timestamp", "asc", cursor, 1);
+
+        assertTrue(jdbc.sql.contains(" AND (timestamp > ? OR (timestamp = ? AND id > ?))"));
+        assertEquals(List.of(Timestamp.valueOf(t), Timestamp.valueOf(t), 2L, 2), jdbc.args);
+    }
+
+    @Test
+    void nameCursorRoundTripWithFilters() {
+        // 名称中的换行不影响游标的分隔
+        jdbc.rows = List.of(summary(5L, "app\nv2", null), summary(6L, "app-v3", null));
+
+        String cursor = (String) service.list("app", "2026-01-01", "2026-01-31", "name", "asc", null, 1)
+                .get("nextCursor");
+        assertFalse(cursor.contains("="));
+        service.list("app", "2026-01-01", "2026-01-31", "name", "asc", cursor, 1);
+
+        assertTrue(jdbc.sql.contains(" AND (name > ? OR (name = ? AND id > ?))"));
+        assertEquals(Arrays.asList("%app%", Timestamp.valueOf("2026-01-01 00:00:00"),
+                Timestamp.valueOf("2026-02-01 00:00:00"), "app\nv2", "app\nv2", 5L, 2), jdbc.args);
+    }
+
+    @Test
+    void idCursorRoundTrip() {
+        jdbc.rows = List.of(summary(9L, "x", null), summary(8L, "y", null));
+
+        String cursor = (String) service.list(null, null, null, "id", "desc", null, 1).get("nextCursor");
+        service.list(null, null, null, "id", "desc", cursor, 1);
+
+        assertTrue(jdbc.sql.contains(" AND id < ? ORDER BY id DESC LIMIT ?"));
+        assertEquals(List.of(9L, 2), jdbc.args);
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrGarbage() {
+        jdbc.rows = List.of(summary(9L, "x", LocalDateTime.now()), summary(8L, "y", LocalDateTime.now()));
+        String nameCursor = (String) service.list(null, null, null, "name", "asc", null, 1).get("nextCursor");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.list(null, null, null, "timestamp", "asc", nameCursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.list(null, null, null, "name", "asc", "not base64!", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.list(null, null, null, "name", "asc", "bmFtZQ", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.list(null, null, null, "size", "asc", null, 1));
+    }
+
+    private static SBOMSummary summary(Long id, String name, LocalDateTime timestamp) {
+        SBOMSummary summary = new SBOMSummary();
+        summary.setId(id);
+        summary.setName(name);
+        summary.setTimestamp(timestamp);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SBOMSummary> items(Map<String, Object> result) {
+        return (List<SBOMSummary>) result.get("items");
+    }
+
+    /**
+     * 记录最后一次查询的SQL和参数，返回预设的行（按LIMIT截取）
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private List<SBOMSummary> rows = List.of();
+        private String sql;
+        private List<Object> args;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = Arrays.asList(args);
+            int limit = (Integer) args[args.length - 1];
+            return (List<T>) new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.platform.sbom.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 归档解压：格式识别、zip slip、链接跳过和解压上限
+ */
+class ArchiveExtractorTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void extractsTarGz() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            addTarFile(tar, "app/lib/a.jar", "jar-a");
+            addTarFile(tar, "app/README", "readme");
+            TarArchiveEntry link = new TarArchiveEntry("app/link", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName("/etc/passwd");
+            tar.putArchiveEntry(link);
+            tar.closeArchiveEntry();
+        }
+
+        int files = ArchiveExtractor.extract(new ByteArrayInputStream(bytes.toByteArray()), root);
+
+        assertEquals(2, files);
+        assertEquals("jar-a", Files.readString(root.resolve("app/lib/a.jar")));
+        assertEquals("readme", Files.readString(root.resolve("app/README")));
+        // 符号链接不解压
+        assertFalse(Files.exists(root.resolve("app/link"), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    @Test
+    void rejectsZipSlip() throws IOException {
+        byte[] zip = zip("ok.txt", "../escape.txt");
+        IOException e = assertThrows(IOException.class,
+                () -> ArchiveExtractor.extract(new ByteArrayInputStream(zip), root));
+        assertTrue(e.getMessage().contains("../escape.txt"));
+        assertFalse(Files.exists(root.getParent().resolve("escape.txt")));
+    }
+
+    @Test
+    void rejectsTarSlip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            addTarFile(tar, "a/../../escape.txt", "x");
+        }
+        assertThrows(IOException.class,
+                () -> ArchiveExtractor.extract(new ByteArrayInputStream(bytes.toByteArray()), root));
+        assertFalse(Files.exists(root.getParent().resolve("escape.txt")));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        byte[] text = "not an archive".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IOException.class, () -> ArchiveExtractor.extract(new ByteArrayInputStream(text), root));
+    }
+
+    @Test
+    void abortsWhenExtractedBytesExceedLimit() throws IOException {
+        // 1 MiB的零压缩后只有约1 KiB
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            TarArchiveEntry entry = new TarArchiveEntry("zeros.bin");
+            entry.setSize(1 << 20);
+            tar.putArchiveEntry(entry);
+            tar.write(new byte[1 << 20]);
+            tar.closeArchiveEntry();
+        }
+        IOException e = assertThrows(IOException.class,
+                () -> ArchiveExtractor.extract(new ByteArrayInputStream(bytes.toByteArray()), root, 64 * 1024, 100));
+        assertTrue(e.getMessage().contains("65536"));
+        assertTrue(Files.size(root.resolve("zeros.bin")) <= 64 * 1024);
+    }
+
+    @Test
+    void abortsWhenEntryCountExceedsLimit() throws IOException {
+        byte[] zip = zip("a", "b", "c", "d");
+        assertEquals(4, ArchiveExtractor.extract(new ByteArrayInputStream(zip), root, Long.MAX_VALUE, 4));
+        assertThrows(IOException.class,
+                () -> ArchiveExtractor.extract(new ByteArrayInputStream(zip), root, Long.MAX_VALUE, 3));
+    }
+
+    private static void addTarFile(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(data.length);
+        tar.putArchiveEntry(entry);
+        tar.write(data);
+        tar.closeArchiveEntry();
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(bytes)) {
+            for (String name : names) {
+                zip.putArchiveEntry(new ZipArchiveEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
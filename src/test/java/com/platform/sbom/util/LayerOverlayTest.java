@@ -0,0 +1,110 @@
+package com.platform.sbom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 镜像层overlay：覆盖、whiteout、不透明目录和条目名规范化
+ */
+class LayerOverlayTest {
+
+    @Test
+    void upperLayerOverridesSamePath() {
+        LayerOverlay overlay = new LayerOverlay();
+        overlay.apply(List.of(), List.of(), List.of("/usr/lib/a.so", "/usr/lib/b.so"));
+        overlay.apply(List.of(), List.of(), List.of("/usr/lib/a.so"));
+
+        assertFalse(overlay.isVisible("/usr/lib/a.so", 0));
+        assertTrue(overlay.isVisible("/usr/lib/a.so", 1));
+        assertTrue(overlay.isVisible("/usr/lib/b.so", 0));
+        assertEquals(2, overlay.size());
+    }
+
+    @Test
+    void whiteoutRemovesPathAndEverythingUnderIt() {
+        LayerOverlay overlay = new LayerOverlay();
+        overlay.apply(List.of(), List.of(), List.of("/app/lib/a.jar", "/app/lib/sub/b.jar", "/app/libx/c.jar",
+                "/app/README"));
+        overlay.apply(List.of(), List.of("/app/lib", "/app/README"), List.of());
+
+        assertNull(overlay.owner("/app/lib/a.jar"));
+        assertNull(overlay.owner("/app/lib/sub/b.jar"));
+        assertNull(overlay.owner("/app/README"));
+        // 前缀相同的兄弟目录不受影响
+        assertEquals(0, overlay.owner("/app/libx/c.jar"));
+    }
+
+    @Test
+    void whiteoutThenRecreateInSameLayer() {
+        LayerOverlay overlay = new LayerOverlay();
+        overlay.apply(List.of(), List.of(), List.of("/etc/conf/a", "/etc/conf/b"));
+        overlay.apply(List.of(), List.of("/etc/conf"), List.of("/etc/conf/a"));
+
+        assertEquals(1, overlay.owner("/etc/conf/a"));
+        assertNull(overlay.owner("/etc/conf/b"));
+    }
+
+    @Test
+    void opaqueDirHidesLowerContentButKeepsOwnFiles() {
+        LayerOverlay overlay = new LayerOverlay();
+        overlay.apply(List.of(), List.of(), List.of("/var/cache/x", "/var/cache/y/z", "/var/log/l"));
+        overlay.apply(List.of("/var/cache"), List.of(), List.of("/var/cache/new"));
+
+        assertNull(overlay.owner("/var/cache/x"));
+        assertNull(overlay.owner("/var/cache/y/z"));
+        assertTrue(overlay.isVisible("/var/cache/new", 1));
+        assertTrue(overlay.isVisible("/var/log/l", 0));
+
+        // 再上一层的不透明标记同样隐藏第二层的内容
+        overlay.apply(List.of("/var/cache"), List.of(), List.of());
+        assertNull(overlay.owner("/var/cache/new"));
+    }
+
+    @Test
+    void opaqueRootHidesEverythingBelow() {
+        LayerOverlay overlay = new LayerOverlay();
+        overlay.apply(List.of(), List.of(), List.of("/a", "/b/c"));
+        overlay.apply(List.of("/"), List.of(), List.of("/d"));
+
+        assertEquals(1, overlay.size());
+        assertEquals(1, overlay.owner("/d"));
+    }
+
+    @Test
+    void normalizesEntryNames() {
+        assertEquals("/usr/lib/a.so", LayerOverlay.normalize("./usr/lib/a.so"));
+        assertEquals("/usr/lib/a.so", LayerOverlay.normalize("/usr/lib/a.so"));
+        assertEquals("/usr/lib", LayerOverlay.normalize("usr/lib/"));
+        assertEquals("/usr/lib/a.so", LayerOverlay.normalize("usr\\lib\\a.so"));
+        assertNull(LayerOverlay.normalize("./"));
+        assertNull(LayerOverlay.normalize("."));
+        assertNull(LayerOverlay.normalize("usr/../../etc/passwd"));
+    }
+
+    @Test
+    void collectsWhiteoutAndOpaqueMarkers() {
+        List<String> opaqueDirs = new ArrayList<>();
+        List<String> whiteouts = new ArrayList<>();
+
+        assertTrue(LayerOverlay.collectMarker("/var/cache/.wh..wh..opq", opaqueDirs, whiteouts));
+        assertTrue(LayerOverlay.collectMarker("/.wh..wh..opq", opaqueDirs, whiteouts));
+        assertTrue(LayerOverlay.collectMarker("/app/lib/.wh.a.jar", opaqueDirs, whiteouts));
+        assertTrue(LayerOverlay.collectMarker("/.wh.tmp", opaqueDirs, whiteouts));
+        assertFalse(LayerOverlay.collectMarker("/app/lib/b.jar", opaqueDirs, whiteouts));
+
+        assertEquals(List.of("/var/cache", "/"), opaqueDirs);
+        assertEquals(List.of("/app/lib/a.jar", "/tmp"), whiteouts);
+    }
+
+    @Test
+    void resolvesLayerLinks() {
+        assertEquals("abc/layer.tar", LayerOverlay.resolveLink("def/layer.tar", "../abc/layer.tar"));
+        assertEquals("abc/layer.tar", LayerOverlay.resolveLink("def/layer.tar", "/abc/layer.tar"));
+        assertEquals("def/other.tar", LayerOverlay.resolveLink("def/layer.tar", "./other.tar"));
+        assertEquals("blobs/sha256/aa", LayerOverlay.resolveLink("blobs/sha256/bb", "aa"));
+    }
+}